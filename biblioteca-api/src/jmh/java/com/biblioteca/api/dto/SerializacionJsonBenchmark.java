@@ -0,0 +1,71 @@
+package com.biblioteca.api.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización Jackson de respuestas List<LibroDTO> con un ObjectMapper configurado como
+ * el de Spring Boot. Se mide tanto la generación del byte[] completo (caché de respuestas)
+ * como la escritura directa a un stream (respuestas sin caché).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacionJsonBenchmark {
+
+    @Param({"1000", "100000"})
+    private int tamano;
+
+    private ObjectWriter writer;
+    private List<LibroDTO> libros;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, LibroDTO.class));
+
+        libros = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            LibroDTO libro = new LibroDTO();
+            libro.setId((long) i);
+            libro.setTitulo("Título del libro número " + i);
+            libro.setIsbn("978-" + String.format("%010d", i));
+            libro.setAutor("Autor " + (i % 500));
+            libro.setAnioPublicacion(1900 + i % 125);
+            libro.setGenero("Género " + (i % 20));
+            libro.setDisponible(i % 3 != 0);
+            libros.add(libro);
+        }
+    }
+
+    @Benchmark
+    public byte[] aBytes() throws IOException {
+        return writer.writeValueAsBytes(libros);
+    }
+
+    @Benchmark
+    public void aStream() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), libros);
+    }
+}
@@ -0,0 +1,123 @@
+package com.biblioteca.api.formato;
+
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.dto.PrestamoDTO;
+import com.biblioteca.api.entity.Prestamo.EstadoPrestamo;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compara los formatos de respuesta con listados grandes de libros y de préstamos: tiempo de
+ * escritura (servidor) y de lectura (consumidor) y, al preparar cada combinación, los bytes
+ * que viajan por la red. "json-gzip" reproduce la compresión que aplica Tomcat a las
+ * respuestas JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatosRespuestaBenchmark {
+
+    @Param({"json", "json-gzip", "cbor", "smile"})
+    private String formato;
+
+    @Param({"libros", "prestamos"})
+    private String contenido;
+
+    @Param({"1000", "100000"})
+    private int tamano;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private boolean comprimir;
+    private List<?> datos;
+    private byte[] serializado;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper base = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper mapper = switch (formato) {
+            case "cbor" -> FormatoRespuesta.CBOR.mapper(base);
+            case "smile" -> FormatoRespuesta.SMILE.mapper(base);
+            default -> FormatoRespuesta.JSON.mapper(base);
+        };
+        comprimir = formato.equals("json-gzip");
+
+        Class<?> tipoElemento = contenido.equals("libros") ? LibroDTO.class : PrestamoDTO.class;
+        JavaType tipo = mapper.getTypeFactory().constructCollectionType(List.class, tipoElemento);
+        writer = mapper.writerFor(tipo);
+        reader = mapper.readerFor(tipo);
+        datos = contenido.equals("libros") ? libros() : prestamos();
+
+        serializado = escribir();
+        System.out.printf("%n%s %s x%d: %,d bytes en la red%n", formato, contenido, tamano, serializado.length);
+    }
+
+    @Benchmark
+    public byte[] escribir() throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (OutputStream destino = comprimir ? new GZIPOutputStream(salida) : salida) {
+            writer.writeValue(destino, datos);
+        }
+        return salida.toByteArray();
+    }
+
+    @Benchmark
+    public List<?> leer() throws IOException {
+        InputStream entrada = new ByteArrayInputStream(serializado);
+        try (InputStream origen = comprimir ? new GZIPInputStream(entrada) : entrada) {
+            return reader.readValue(origen);
+        }
+    }
+
+    private List<LibroDTO> libros() {
+        List<LibroDTO> libros = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            libros.add(new LibroDTO((long) i, "Título del libro número " + i, "978-" + String.format("%010d", i),
+                    "Autor " + (i % 500), 1900 + i % 125, "Género " + (i % 20), i % 3 != 0));
+        }
+        return libros;
+    }
+
+    private List<PrestamoDTO> prestamos() {
+        LocalDate hoy = LocalDate.of(2024, 1, 1);
+        List<PrestamoDTO> prestamos = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            boolean devuelto = i % 4 != 0;
+            LocalDate fechaPrestamo = hoy.minusDays(i % 365);
+            prestamos.add(new PrestamoDTO((long) i, fechaPrestamo, fechaPrestamo.plusDays(14),
+                    devuelto ? hoy.minusDays(i % 30) : null,
+                    devuelto ? EstadoPrestamo.DEVUELTO : EstadoPrestamo.ACTIVO, null,
+                    (long) (i % 1000), (long) (i % 5000), "Lector " + (i % 1000), "Título del libro número " + (i % 5000)));
+        }
+        return prestamos;
+    }
+}
@@ -0,0 +1,99 @@
+package com.biblioteca.api.service;
+
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.dto.PrestamoDTO;
+import com.biblioteca.api.dto.UsuarioDTO;
+import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.entity.Perfil;
+import com.biblioteca.api.entity.Prestamo;
+import com.biblioteca.api.entity.Prestamo.EstadoPrestamo;
+import com.biblioteca.api.entity.Usuario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de los métodos convertirADTO de los servicios, sin base de datos: las entidades
+ * se construyen en memoria y los servicios no necesitan sus dependencias.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapeoDTOBenchmark {
+
+    private LibroService libroService;
+    private PrestamoService prestamoService;
+    private UsuarioService usuarioService;
+
+    private Libro libro;
+    private Prestamo prestamo;
+    private Usuario usuario;
+
+    @Setup
+    public void setUp() {
+        libroService = new LibroService(null, null, null, null, null);
+        prestamoService = new PrestamoService(null, null, null, null, null, null);
+        usuarioService = new UsuarioService(null);
+
+        libro = new Libro();
+        libro.setId(1L);
+        libro.setTitulo("Cien años de soledad");
+        libro.setIsbn("978-0307474728");
+        libro.setAutor("Gabriel García Márquez");
+        libro.setAnioPublicacion(1967);
+        libro.setGenero("Realismo mágico");
+        libro.setDisponible(true);
+
+        usuario = new Usuario();
+        usuario.setId(1L);
+        usuario.setNombre("Ana García");
+        usuario.setEmail("ana@biblioteca.com");
+        usuario.setTelefono("600000000");
+        usuario.setFechaRegistro(LocalDate.of(2024, 1, 15));
+
+        Perfil perfil = new Perfil();
+        perfil.setId(1L);
+        perfil.setDireccion("Calle Mayor 1");
+        perfil.setCiudad("Castellón");
+        perfil.setCodigoPostal("12001");
+        perfil.setPreferenciasLectura("Novela, Ensayo");
+        perfil.setUsuario(usuario);
+        usuario.setPerfil(perfil);
+
+        prestamo = new Prestamo();
+        prestamo.setId(1L);
+        prestamo.setFechaPrestamo(LocalDate.of(2024, 3, 1));
+        prestamo.setFechaVencimiento(LocalDate.of(2024, 3, 15));
+        prestamo.setEstado(EstadoPrestamo.ACTIVO);
+        prestamo.setUsuario(usuario);
+        prestamo.setLibro(libro);
+    }
+
+    @Benchmark
+    public LibroDTO libroADTO() {
+        return libroService.convertirADTO(libro);
+    }
+
+    @Benchmark
+    public PrestamoDTO prestamoADTO() {
+        return prestamoService.convertirADTO(prestamo);
+    }
+
+    @Benchmark
+    public UsuarioDTO usuarioConPerfilADTO() {
+        return usuarioService.convertirADTO(usuario);
+    }
+}
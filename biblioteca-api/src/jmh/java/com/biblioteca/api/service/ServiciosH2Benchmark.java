@@ -0,0 +1,140 @@
+package com.biblioteca.api.service;
+
+import com.biblioteca.api.BibliotecaApiApplication;
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.dto.PrestamoDTO;
+import com.biblioteca.api.dto.UsuarioDTO;
+import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.entity.Perfil;
+import com.biblioteca.api.entity.Prestamo;
+import com.biblioteca.api.entity.Prestamo.EstadoPrestamo;
+import com.biblioteca.api.entity.Usuario;
+import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.repository.PrestamoRepository;
+import com.biblioteca.api.repository.UsuarioRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Llamadas a los servicios contra una base de datos H2 en memoria con datos sembrados,
+ * incluyendo transacción, consulta y mapeo a DTO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiciosH2Benchmark {
+
+    @Param({"1000"})
+    private int registros;
+
+    private ConfigurableApplicationContext contexto;
+    private LibroService libroService;
+    private UsuarioService usuarioService;
+    private PrestamoService prestamoService;
+    private List<Long> libroIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        contexto = new SpringApplicationBuilder(BibliotecaApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--logging.level.root=WARN",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false");
+        libroService = contexto.getBean(LibroService.class);
+        usuarioService = contexto.getBean(UsuarioService.class);
+        prestamoService = contexto.getBean(PrestamoService.class);
+        sembrar();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public LibroDTO libroPorId() {
+        Long id = libroIds.get(ThreadLocalRandom.current().nextInt(libroIds.size()));
+        return libroService.obtenerLibroPorId(id);
+    }
+
+    @Benchmark
+    public List<LibroDTO> todosLosLibros() {
+        return libroService.obtenerTodosLosLibros();
+    }
+
+    @Benchmark
+    public List<UsuarioDTO> todosLosUsuarios() {
+        return usuarioService.obtenerTodosLosUsuarios();
+    }
+
+    @Benchmark
+    public List<PrestamoDTO> todosLosPrestamos() {
+        return prestamoService.obtenerTodosLosPrestamos();
+    }
+
+    private void sembrar() {
+        List<Libro> libros = new ArrayList<>(registros);
+        List<Usuario> usuarios = new ArrayList<>(registros);
+        for (int i = 0; i < registros; i++) {
+            Libro libro = new Libro();
+            libro.setTitulo("Título " + i);
+            libro.setIsbn("benchmark-" + i);
+            libro.setAutor("Autor " + (i % 50));
+            libro.setAnioPublicacion(1950 + i % 70);
+            libro.setGenero("Género " + (i % 10));
+            libro.setDisponible(i % 2 == 0);
+            libros.add(libro);
+
+            Usuario usuario = new Usuario();
+            usuario.setNombre("Lector " + i);
+            usuario.setEmail("lector-" + i + "@biblioteca.com");
+            usuario.setTelefono("600000000");
+            usuario.setFechaRegistro(LocalDate.now());
+            Perfil perfil = new Perfil();
+            perfil.setDireccion("Calle " + i);
+            perfil.setCiudad("Castellón");
+            perfil.setCodigoPostal("12001");
+            perfil.setUsuario(usuario);
+            usuario.setPerfil(perfil);
+            usuarios.add(usuario);
+        }
+        libros = contexto.getBean(LibroRepository.class).saveAll(libros);
+        usuarios = contexto.getBean(UsuarioRepository.class).saveAll(usuarios);
+
+        List<Prestamo> prestamos = new ArrayList<>(registros / 2);
+        for (int i = 1; i < registros; i += 2) {
+            Prestamo prestamo = new Prestamo();
+            prestamo.setFechaPrestamo(LocalDate.now());
+            prestamo.setFechaVencimiento(LocalDate.now().plusDays(14));
+            prestamo.setEstado(EstadoPrestamo.ACTIVO);
+            prestamo.setUsuario(usuarios.get(i));
+            prestamo.setLibro(libros.get(i));
+            prestamos.add(prestamo);
+        }
+        contexto.getBean(PrestamoRepository.class).saveAll(prestamos);
+        libroIds = libros.stream().map(Libro::getId).toList();
+    }
+}
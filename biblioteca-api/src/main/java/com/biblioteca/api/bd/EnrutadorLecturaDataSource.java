@@ -0,0 +1,148 @@
+package com.biblioteca.api.bd;
+
+import com.biblioteca.api.bd.ReplicasLectura.Replica;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Envía las transacciones de sólo lectura a las réplicas y todo lo demás a la base de datos
+ * principal. Debe usarse detrás de un LazyConnectionDataSourceProxy: así la conexión real se
+ * pide en la primera sentencia, cuando la transacción ya está marcada como de sólo lectura.
+ *
+ * <p>Si no hay réplicas disponibles, o la elegida falla al dar la conexión, la lectura se hace
+ * en la principal. Con una ventana de lectura propia, un cliente que acaba de escribir lee de
+ * la principal durante ese tiempo y no ve datos anteriores a su escritura.
+ *
+ * <p>Lo que se guarda en una caché no debe salir de una réplica con retraso: la invalidación
+ * tras el commit no serviría si la recarga vuelve a traer la fila antigua, que se quedaría
+ * cacheada hasta caducar. Las lecturas que rellenan la caché de respuestas se hacen en la
+ * principal ({@link #enPrincipal}) y Hibernate no guarda en su caché de segundo nivel lo leído
+ * en una transacción que usa una réplica ({@link #leeDeReplica}).
+ */
+public class EnrutadorLecturaDataSource extends AbstractDataSource {
+
+    // Cliente de la petición en curso (lo establece FiltroClienteLecturas)
+    private static final ThreadLocal<String> CLIENTE = new ThreadLocal<>();
+    // Lecturas que deben hacerse en la principal aunque sean de sólo lectura
+    private static final ThreadLocal<Boolean> EN_PRINCIPAL = new ThreadLocal<>();
+    // Recurso de la transacción en curso cuando lee de una réplica
+    private static final Object LECTURA_EN_REPLICA = new Object();
+
+    private final DataSource principal;
+    private final ReplicasLectura replicas;
+    private final Cache<String, Boolean> escriturasRecientes;
+
+    public EnrutadorLecturaDataSource(DataSource principal, ReplicasLectura replicas, Duration ventanaLecturaPropia) {
+        this.principal = principal;
+        this.replicas = replicas;
+        this.escriturasRecientes = ventanaLecturaPropia.isPositive()
+                ? Caffeine.newBuilder().expireAfterWrite(ventanaLecturaPropia).maximumSize(100_000).build()
+                : null;
+    }
+
+    public static void establecerCliente(String cliente) {
+        CLIENTE.set(cliente);
+    }
+
+    public static void limpiarCliente() {
+        CLIENTE.remove();
+    }
+
+    // Ejecuta la lectura (y las transacciones que abra) contra la base de datos principal
+    public static <T> T enPrincipal(Supplier<T> lectura) {
+        Boolean anterior = EN_PRINCIPAL.get();
+        EN_PRINCIPAL.set(Boolean.TRUE);
+        try {
+            return lectura.get();
+        } finally {
+            if (anterior == null) {
+                EN_PRINCIPAL.remove();
+            }
+        }
+    }
+
+    // Si la transacción en curso ha obtenido su conexión de una réplica
+    public static boolean leeDeReplica() {
+        return TransactionSynchronizationManager.hasResource(LECTURA_EN_REPLICA);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registrarEscritura();
+            return principal.getConnection();
+        }
+        Replica replica = EN_PRINCIPAL.get() != null || acabaDeEscribir() ? null : replicas.siguiente();
+        if (replica != null) {
+            try {
+                Connection conexion = replica.dataSource().getConnection();
+                replicas.lecturaEnReplica();
+                marcarLecturaEnReplica();
+                return conexion;
+            } catch (SQLException e) {
+                replicas.marcarCaida(replica, e);
+            }
+        }
+        replicas.lecturaEnPrincipal();
+        return principal.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return principal.getConnection(username, password);
+    }
+
+    // Permite llegar al pool principal (métricas de Hikari y del límite de concurrencia)
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : principal.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || principal.isWrapperFor(iface);
+    }
+
+    // La ventana empieza al confirmarse la transacción, que es cuando la escritura es visible.
+    // Las conexiones pedidas fuera de una transacción no cuentan (LazyConnectionDataSourceProxy
+    // abre una al principio para leer la configuración por defecto de las conexiones)
+    private void registrarEscritura() {
+        String cliente = CLIENTE.get();
+        if (escriturasRecientes == null || cliente == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                escriturasRecientes.put(cliente, Boolean.TRUE);
+            }
+        });
+    }
+
+    private void marcarLecturaEnReplica() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || leeDeReplica()) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(LECTURA_EN_REPLICA, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(LECTURA_EN_REPLICA);
+            }
+        });
+    }
+
+    private boolean acabaDeEscribir() {
+        String cliente = CLIENTE.get();
+        return escriturasRecientes != null && cliente != null && escriturasRecientes.getIfPresent(cliente) != null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.biblioteca.api.bd;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Identifica al cliente de cada petición para la ventana de lectura propia del enrutador
+public class FiltroClienteLecturas extends OncePerRequestFilter {
+
+    private final String cabeceraCliente;
+
+    public FiltroClienteLecturas(String cabeceraCliente) {
+        this.cabeceraCliente = cabeceraCliente;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String cliente = request.getHeader(cabeceraCliente);
+        EnrutadorLecturaDataSource.establecerCliente(cliente != null && !cliente.isBlank() ? cliente : request.getRemoteAddr());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            EnrutadorLecturaDataSource.limpiarCliente();
+        }
+    }
+}
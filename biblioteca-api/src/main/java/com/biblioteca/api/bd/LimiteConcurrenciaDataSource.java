@@ -0,0 +1,100 @@
+package com.biblioteca.api.bd;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limita cuántas conexiones pueden estar en uso a la vez. Con hilos virtuales puede haber
+ * miles de peticiones concurrentes: esperan en un semáforo justo y fallan pronto si no
+ * obtienen permiso, en lugar de agotar el pool y acumularse en su cola.
+ */
+public class LimiteConcurrenciaDataSource extends DelegatingDataSource implements MeterBinder {
+
+    private final Semaphore permisos;
+    private final long esperaMaximaNanos;
+
+    public LimiteConcurrenciaDataSource(DataSource destino, int concurrenciaMaxima, Duration esperaMaxima) {
+        super(destino);
+        this.permisos = new Semaphore(concurrenciaMaxima, true);
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        adquirir();
+        try {
+            return envolver(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        adquirir();
+        try {
+            return envolver(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("biblioteca.bd.permisos.disponibles", permisos, Semaphore::availablePermits)
+                .description("Conexiones que aún pueden abrirse sin esperar")
+                .register(registry);
+        Gauge.builder("biblioteca.bd.permisos.esperando", permisos, Semaphore::getQueueLength)
+                .description("Peticiones esperando un permiso de conexión")
+                .register(registry);
+    }
+
+    private void adquirir() throws SQLException {
+        try {
+            if (!permisos.tryAcquire(esperaMaximaNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException("No hay conexiones disponibles: límite de concurrencia alcanzado");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido esperando una conexión", e);
+        }
+    }
+
+    // El permiso se devuelve una sola vez, al cerrar la conexión
+    private Connection envolver(Connection conexion) {
+        AtomicBoolean cerrada = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, metodo, args) -> {
+                    if (metodo.getName().equals("close") && cerrada.compareAndSet(false, true)) {
+                        try {
+                            conexion.close();
+                        } finally {
+                            permisos.release();
+                        }
+                        return null;
+                    }
+                    try {
+                        return metodo.invoke(conexion, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,139 @@
+package com.biblioteca.api.bd;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Réplicas de lectura de la base de datos. Se reparten por turno rotatorio entre las que
+ * están disponibles; una réplica que falla al dar una conexión o no responde a la
+ * verificación periódica deja de usarse hasta que vuelva a responder.
+ */
+@Slf4j
+public class ReplicasLectura implements MeterBinder, AutoCloseable {
+
+    private static final int SEGUNDOS_VERIFICACION = 2;
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger turno = new AtomicInteger();
+    private final LongAdder lecturasEnReplica = new LongAdder();
+    private final LongAdder lecturasEnPrincipal = new LongAdder();
+    private final LongAdder caidas = new LongAdder();
+
+    public ReplicasLectura(Map<String, DataSource> replicasPorNombre) {
+        replicasPorNombre.forEach((nombre, dataSource) -> replicas.add(new Replica(nombre, dataSource)));
+    }
+
+    // Siguiente réplica disponible; null si no queda ninguna
+    public Replica siguiente() {
+        int total = replicas.size();
+        int inicio = Math.floorMod(turno.getAndIncrement(), total);
+        for (int i = 0; i < total; i++) {
+            Replica replica = replicas.get((inicio + i) % total);
+            if (replica.disponible) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    public void marcarCaida(Replica replica, Exception causa) {
+        if (replica.disponible) {
+            replica.disponible = false;
+            caidas.increment();
+            log.warn("Réplica {} fuera de servicio, sus lecturas pasan a la principal: {}", replica.nombre, causa.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${biblioteca.replicas.intervalo-verificacion:PT5S}")
+    public void verificar() {
+        for (Replica replica : replicas) {
+            SQLException error = null;
+            try (Connection conexion = replica.dataSource.getConnection()) {
+                if (!conexion.isValid(SEGUNDOS_VERIFICACION)) {
+                    error = new SQLException("La conexión no es válida");
+                }
+            } catch (SQLException e) {
+                error = e;
+            }
+            if (error != null) {
+                marcarCaida(replica, error);
+            } else if (!replica.disponible) {
+                replica.disponible = true;
+                log.info("Réplica {} disponible de nuevo", replica.nombre);
+            }
+        }
+    }
+
+    void lecturaEnReplica() {
+        lecturasEnReplica.increment();
+    }
+
+    void lecturaEnPrincipal() {
+        lecturasEnPrincipal.increment();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("biblioteca.bd.replicas.disponibles", this, ReplicasLectura::disponibles)
+                .description("Réplicas de lectura que están respondiendo")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.bd.lecturas", lecturasEnReplica, LongAdder::sum)
+                .description("Transacciones de sólo lectura por destino")
+                .tag("destino", "replica")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.bd.lecturas", lecturasEnPrincipal, LongAdder::sum)
+                .description("Transacciones de sólo lectura por destino")
+                .tag("destino", "principal")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.bd.replicas.caidas", caidas, LongAdder::sum)
+                .description("Veces que una réplica ha dejado de usarse por no responder")
+                .register(registry);
+    }
+
+    private int disponibles() {
+        return (int) replicas.stream().filter(replica -> replica.disponible).count();
+    }
+
+    @Override
+    public void close() throws Exception {
+        // El pool puede estar envuelto (límite de concurrencia con hilos virtuales)
+        for (Replica replica : replicas) {
+            if (replica.dataSource.isWrapperFor(AutoCloseable.class)) {
+                replica.dataSource.unwrap(AutoCloseable.class).close();
+            }
+        }
+    }
+
+    public static final class Replica {
+
+        private final String nombre;
+        private final DataSource dataSource;
+        private volatile boolean disponible = true;
+
+        private Replica(String nombre, DataSource dataSource) {
+            this.nombre = nombre;
+            this.dataSource = dataSource;
+        }
+
+        public String nombre() {
+            return nombre;
+        }
+
+        DataSource dataSource() {
+            return dataSource;
+        }
+    }
+}
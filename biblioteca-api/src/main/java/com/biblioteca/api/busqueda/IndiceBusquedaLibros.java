@@ -0,0 +1,192 @@
+package com.biblioteca.api.busqueda;
+
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.event.LibroCambiadoEvent;
+import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.repository.LibroRepository.TextoLibro;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Índice invertido en memoria sobre título y autor de los libros.
+ *
+ * <p>Cada término apunta a los libros que lo contienen con un peso (las apariciones en el
+ * título cuentan el doble que en el autor). Una consulta exige que aparezcan todos sus
+ * términos, el último como prefijo para permitir búsqueda mientras se escribe, y ordena
+ * los resultados por TF-IDF. Se construye al arrancar y se mantiene al día con los
+ * {@link LibroCambiadoEvent} que publica {@code LibroService}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndiceBusquedaLibros {
+
+    private static final int PESO_TITULO = 2;
+    private static final int PESO_AUTOR = 1;
+
+    private final LibroRepository libroRepository;
+
+    // término -> (id de libro -> peso)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    // id de libro -> términos indexados, para poder retirarlo del índice
+    private final Map<Long, Set<String>> terminosPorLibro = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    // Sin readOnly: el índice se carga de la principal, no de una réplica que pueda ir con retraso
+    // respecto a los eventos de cambio que se le aplican después
+    @Transactional
+    public void construir() {
+        long inicio = System.nanoTime();
+        try (Stream<TextoLibro> textos = libroRepository.streamTextos()) {
+            textos.forEach(texto -> indexar(texto.getId(), texto.getTitulo(), texto.getAutor()));
+        }
+        log.info("Índice de búsqueda construido con {} libros en {} ms",
+                tamano(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarLibro(LibroCambiadoEvent evento) {
+        if (evento.esEliminacion()) {
+            eliminar(evento.libroId());
+        } else {
+            LibroDTO libro = evento.actual();
+            indexar(libro.getId(), libro.getTitulo(), libro.getAutor());
+        }
+    }
+
+    public void indexar(Long libroId, String titulo, String autor) {
+        Map<String, Integer> pesos = new HashMap<>();
+        Tokenizador.tokenizar(titulo).forEach(t -> pesos.merge(t, PESO_TITULO, Integer::sum));
+        Tokenizador.tokenizar(autor).forEach(t -> pesos.merge(t, PESO_AUTOR, Integer::sum));
+
+        lock.writeLock().lock();
+        try {
+            retirar(libroId);
+            pesos.forEach((termino, peso) ->
+                    postings.computeIfAbsent(termino, t -> new HashMap<>()).put(libroId, peso));
+            terminosPorLibro.put(libroId, pesos.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(Long libroId) {
+        lock.writeLock().lock();
+        try {
+            retirar(libroId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve los ids de los libros que contienen todos los términos de la consulta,
+     * ordenados de mayor a menor relevancia.
+     */
+    public List<Long> buscar(String consulta, int limite) {
+        List<String> terminos = Tokenizador.tokenizar(consulta);
+        if (terminos.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            double totalLibros = Math.max(terminosPorLibro.size(), 1);
+            Map<Long, Double> puntuaciones = null;
+
+            for (int i = 0; i < terminos.size(); i++) {
+                boolean ultimo = i == terminos.size() - 1;
+                Map<Long, Double> coincidencias = puntuarTermino(terminos.get(i), ultimo, totalLibros);
+                if (puntuaciones == null) {
+                    puntuaciones = coincidencias;
+                } else {
+                    puntuaciones.keySet().retainAll(coincidencias.keySet());
+                    puntuaciones.replaceAll((id, puntuacion) -> puntuacion + coincidencias.get(id));
+                }
+                if (puntuaciones.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return mejores(puntuaciones, limite);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tamano() {
+        lock.readLock().lock();
+        try {
+            return terminosPorLibro.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Suma la puntuación de un término; si es prefijo, de todos los términos que empiezan por él
+    private Map<Long, Double> puntuarTermino(String termino, boolean comoPrefijo, double totalLibros) {
+        Map<String, Map<Long, Integer>> candidatos = comoPrefijo
+                ? postings.subMap(termino, true, termino + Character.MAX_VALUE, false)
+                : postings.containsKey(termino) ? Map.of(termino, postings.get(termino)) : Map.of();
+
+        Map<Long, Double> puntuaciones = new HashMap<>();
+        candidatos.forEach((candidato, libros) -> {
+            double idf = Math.log(1 + totalLibros / libros.size());
+            // Una coincidencia exacta puntúa más que una por prefijo
+            double factor = candidato.equals(termino) ? 1.0 : 0.5;
+            libros.forEach((id, peso) -> puntuaciones.merge(id, peso * idf * factor, Double::sum));
+        });
+        return puntuaciones;
+    }
+
+    private List<Long> mejores(Map<Long, Double> puntuaciones, int limite) {
+        Comparator<Map.Entry<Long, Double>> porPuntuacion = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(porPuntuacion);
+        for (Map.Entry<Long, Double> entrada : puntuaciones.entrySet()) {
+            top.offer(entrada);
+            if (top.size() > limite) {
+                top.poll();
+            }
+        }
+        List<Long> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(top.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    private void retirar(Long libroId) {
+        Set<String> terminos = terminosPorLibro.remove(libroId);
+        if (terminos == null) {
+            return;
+        }
+        for (String termino : terminos) {
+            Map<Long, Integer> libros = postings.get(termino);
+            libros.remove(libroId);
+            if (libros.isEmpty()) {
+                postings.remove(termino);
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.biblioteca.api.busqueda;
+
+import com.biblioteca.api.config.IndiceFiltrosProperties;
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.event.DisponibilidadCambiadaEvent;
+import com.biblioteca.api.event.LibroCambiadoEvent;
+import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.repository.LibroRepository.FiltroLibro;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Índice en memoria de los filtros del catálogo: un bitmap comprimido (Roaring) con los ids
+ * de los libros disponibles y otro por cada género.
+ *
+ * <p>Los filtros, incluido "disponibles de un género", se resuelven intersecando bitmaps sin
+ * consultar la base de datos; después sólo se cargan los libros resultantes por id. Se
+ * construye al arrancar, se mantiene con los eventos de {@code LibroService} y
+ * {@code PrestamoService} y se compara periódicamente con la base de datos por si algún
+ * cambio no hubiera pasado por ellos.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndiceFiltrosLibros implements MeterBinder {
+
+    private final LibroRepository libroRepository;
+    private final IndiceFiltrosProperties properties;
+
+    private RoaringBitmap disponibles = new RoaringBitmap();
+    private Map<String, RoaringBitmap> porGenero = new HashMap<>();
+    // Se incrementa con cada cambio aplicado; permite saber si el índice cambió durante una verificación
+    private long modificaciones;
+    private long discrepancias;
+    private volatile boolean listo;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    // Sin readOnly: el índice se carga de la principal, no de una réplica que pueda ir con retraso
+    // respecto a los eventos de cambio que se le aplican después
+    @Transactional
+    public void construir() {
+        if (!properties.isHabilitado()) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        Instantanea instantanea = leerBaseDeDatos();
+        lock.writeLock().lock();
+        try {
+            reemplazar(instantanea);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        listo = true;
+        log.info("Índice de filtros construido con {} libros y {} géneros en {} ms",
+                instantanea.total(), instantanea.porGenero().size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Reconstruye el índice desde la base de datos y lo sustituye si no coincide. Si mientras
+     * se leía llegó algún cambio, la comparación no sería fiable y se deja para la siguiente vez.
+     */
+    @Scheduled(fixedDelayString = "${biblioteca.indice-filtros.intervalo-verificacion:PT10M}",
+            initialDelayString = "${biblioteca.indice-filtros.intervalo-verificacion:PT10M}")
+    // También de la principal: una réplica con retraso daría discrepancias que no lo son
+    @Transactional
+    public void verificar() {
+        if (!listo) {
+            return;
+        }
+        long modificacionesAntes = modificaciones();
+        Instantanea instantanea = leerBaseDeDatos();
+
+        lock.writeLock().lock();
+        try {
+            if (modificaciones != modificacionesAntes) {
+                log.debug("Verificación del índice de filtros aplazada: hubo cambios durante la lectura");
+                return;
+            }
+            long diferencias = diferencias(instantanea);
+            if (diferencias > 0) {
+                discrepancias += diferencias;
+                log.warn("El índice de filtros difería de la base de datos en {} entradas; se reconstruye", diferencias);
+                reemplazar(instantanea);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Se aplica antes que la invalidación de la caché de respuestas, para que no se vuelva a
+    // cachear una lista calculada con el índice todavía sin actualizar
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarLibro(LibroCambiadoEvent evento) {
+        if (evento.esEliminacion()) {
+            eliminar(evento.libroId());
+        } else {
+            LibroDTO libro = evento.actual();
+            indexar(libro.getId(), libro.getGenero(), Boolean.TRUE.equals(libro.getDisponible()));
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarDisponibilidad(DisponibilidadCambiadaEvent evento) {
+        int id = Math.toIntExact(evento.libroId());
+        lock.writeLock().lock();
+        try {
+            if (evento.disponible()) {
+                disponibles.add(id);
+            } else {
+                disponibles.remove(id);
+            }
+            modificaciones++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void indexar(Long libroId, String genero, boolean disponible) {
+        int id = Math.toIntExact(libroId);
+        lock.writeLock().lock();
+        try {
+            retirar(id);
+            porGenero.computeIfAbsent(genero, g -> new RoaringBitmap()).add(id);
+            if (disponible) {
+                disponibles.add(id);
+            }
+            modificaciones++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(Long libroId) {
+        lock.writeLock().lock();
+        try {
+            retirar(Math.toIntExact(libroId));
+            modificaciones++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indica si el índice puede responder consultas; mientras no se haya construido (o si está
+     * deshabilitado) los filtros deben resolverse contra la base de datos.
+     */
+    public boolean listo() {
+        return listo;
+    }
+
+    // Los ids se devuelven siempre en orden ascendente
+
+    public List<Long> disponibles() {
+        lock.readLock().lock();
+        try {
+            return aIds(disponibles);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> porGenero(String genero) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap libros = porGenero.get(genero);
+            return libros == null ? List.of() : aIds(libros);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> disponiblesPorGenero(String genero) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap libros = porGenero.get(genero);
+            return libros == null ? List.of() : aIds(RoaringBitmap.and(disponibles, libros));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("biblioteca.indice.filtros.bytes", this, IndiceFiltrosLibros::tamanoEnBytes)
+                .description("Memoria ocupada por los bitmaps del índice de filtros")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.indice.filtros.discrepancias", this, IndiceFiltrosLibros::discrepancias)
+                .description("Entradas del índice de filtros corregidas al compararlo con la base de datos")
+                .register(registry);
+    }
+
+    // Entradas corregidas por las verificaciones desde el arranque
+    private long discrepancias() {
+        lock.readLock().lock();
+        try {
+            return discrepancias;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long tamanoEnBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = disponibles.getLongSizeInBytes();
+            for (RoaringBitmap libros : porGenero.values()) {
+                bytes += libros.getLongSizeInBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long modificaciones() {
+        lock.readLock().lock();
+        try {
+            return modificaciones;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Instantanea leerBaseDeDatos() {
+        RoaringBitmap disponiblesBd = new RoaringBitmap();
+        Map<String, RoaringBitmap> porGeneroBd = new HashMap<>();
+        try (Stream<FiltroLibro> filtros = libroRepository.streamFiltros()) {
+            filtros.forEach(filtro -> {
+                int id = Math.toIntExact(filtro.getId());
+                porGeneroBd.computeIfAbsent(filtro.getGenero(), g -> new RoaringBitmap()).add(id);
+                if (Boolean.TRUE.equals(filtro.getDisponible())) {
+                    disponiblesBd.add(id);
+                }
+            });
+        }
+        // Los ids suelen ser consecutivos: las secuencias se comprimen como rangos
+        disponiblesBd.runOptimize();
+        porGeneroBd.values().forEach(RoaringBitmap::runOptimize);
+        return new Instantanea(disponiblesBd, porGeneroBd);
+    }
+
+    private long diferencias(Instantanea instantanea) {
+        long total = RoaringBitmap.xorCardinality(disponibles, instantanea.disponibles());
+        for (Map.Entry<String, RoaringBitmap> entrada : porGenero.entrySet()) {
+            RoaringBitmap enBd = instantanea.porGenero().getOrDefault(entrada.getKey(), new RoaringBitmap());
+            total += RoaringBitmap.xorCardinality(entrada.getValue(), enBd);
+        }
+        for (Map.Entry<String, RoaringBitmap> entrada : instantanea.porGenero().entrySet()) {
+            if (!porGenero.containsKey(entrada.getKey())) {
+                total += entrada.getValue().getLongCardinality();
+            }
+        }
+        return total;
+    }
+
+    private void reemplazar(Instantanea instantanea) {
+        disponibles = instantanea.disponibles();
+        porGenero = instantanea.porGenero();
+        modificaciones++;
+    }
+
+    // Un libro pertenece a un único género, pero el evento de eliminación no dice a cuál
+    private void retirar(int id) {
+        disponibles.remove(id);
+        Iterator<RoaringBitmap> generos = porGenero.values().iterator();
+        while (generos.hasNext()) {
+            RoaringBitmap libros = generos.next();
+            libros.remove(id);
+            if (libros.isEmpty()) {
+                generos.remove();
+            }
+        }
+    }
+
+    private static List<Long> aIds(RoaringBitmap bitmap) {
+        return Arrays.stream(bitmap.toArray()).mapToObj(id -> (long) id).toList();
+    }
+
+    private record Instantanea(RoaringBitmap disponibles, Map<String, RoaringBitmap> porGenero) {
+
+        long total() {
+            return porGenero.values().stream().mapToLong(RoaringBitmap::getLongCardinality).sum();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.biblioteca.api.cache;
+
+import com.biblioteca.api.bd.EnrutadorLecturaDataSource;
+import com.biblioteca.api.config.CacheRespuestasProperties;
+import com.biblioteca.api.formato.FormatoRespuesta;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria de respuestas ya serializadas (JSON o un formato binario, cada uno en su
+ * propia entrada). Se limita por bytes (no por número de entradas) y usa la política
+ * W-TinyLFU de Caffeine para decidir qué desalojar.
+ */
+@Component
+public class CacheRespuestas implements MeterBinder {
+
+    private final AsyncCache<String, byte[]> cache;
+    private final Map<FormatoRespuesta, ObjectMapper> mappers = new EnumMap<>(FormatoRespuesta.class);
+    private final boolean habilitada;
+
+    public CacheRespuestas(CacheRespuestasProperties properties, ObjectMapper objectMapper) {
+        for (FormatoRespuesta formato : FormatoRespuesta.values()) {
+            mappers.put(formato, formato.mapper(objectMapper));
+        }
+        this.habilitada = properties.isHabilitada();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxBytes().toBytes())
+                .weigher((String clave, byte[] valor) -> clave.length() * 2 + valor.length)
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .buildAsync();
+    }
+
+    // Las excepciones de la consulta (p. ej. recurso no encontrado) se propagan y no se cachean.
+    // La consulta se ejecuta fuera de los bloqueos internos del mapa: quien llega primero la
+    // resuelve y el resto espera su resultado, sin bloquear invalidaciones de otras claves.
+    public byte[] obtener(String clave, FormatoRespuesta formato, Supplier<?> consulta) {
+        if (!habilitada) {
+            return serializar(formato, consulta.get());
+        }
+        CompletableFuture<byte[]> propio = new CompletableFuture<>();
+        CompletableFuture<byte[]> futuro = cache.get(formato.clave(clave), (k, executor) -> propio);
+        if (futuro == propio) {
+            try {
+                // Lo cacheado se lee de la principal: una réplica con retraso devolvería la versión anterior
+                propio.complete(serializar(formato, EnrutadorLecturaDataSource.enPrincipal(consulta)));
+            } catch (RuntimeException e) {
+                propio.completeExceptionally(e);
+            }
+        }
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    // Invalida la respuesta en todos los formatos
+    public void invalidar(String clave) {
+        cache.synchronous().invalidateAll(Arrays.stream(FormatoRespuesta.values()).map(f -> f.clave(clave)).toList());
+    }
+
+    public void invalidarPorPrefijo(String prefijo) {
+        cache.asMap().keySet().removeIf(clave -> clave.startsWith(prefijo));
+    }
+
+    public CacheStats estadisticas() {
+        return cache.synchronous().stats();
+    }
+
+    public long entradas() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    public long bytesOcupados() {
+        return cache.synchronous().policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache.synchronous(), "respuestas");
+        Gauge.builder("biblioteca.cache.respuestas.bytes", this, CacheRespuestas::bytesOcupados)
+                .description("Bytes ocupados por las respuestas cacheadas")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private byte[] serializar(FormatoRespuesta formato, Object valor) {
+        try {
+            return mappers.get(formato).writeValueAsBytes(valor);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
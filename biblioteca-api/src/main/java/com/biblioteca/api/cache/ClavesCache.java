@@ -0,0 +1,24 @@
+package com.biblioteca.api.cache;
+
+public final class ClavesCache {
+
+    public static final String LIBROS_DISPONIBLES = "libros:disponibles";
+    public static final String PREFIJO_GENERO = "libros:genero:";
+    public static final String PREFIJO_DISPONIBLES_GENERO = "libros:disponibles:genero:";
+
+    private ClavesCache() {
+    }
+
+    // Con el ETag en la clave, un cuerpo sólo se sirve junto al ETag de la versión con la que se cacheó
+    public static String libro(Long id, String etag) {
+        return "libros:id:" + id + ":" + etag;
+    }
+
+    public static String genero(String genero) {
+        return PREFIJO_GENERO + genero;
+    }
+
+    public static String disponiblesGenero(String genero) {
+        return PREFIJO_DISPONIBLES_GENERO + genero;
+    }
+}
@@ -0,0 +1,49 @@
+package com.biblioteca.api.cache;
+
+import com.biblioteca.api.dto.EstadisticasRegionCacheDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Estadísticas por región de la caché de segundo nivel de Hibernate (entidades y consultas).
+ * Requieren hibernate.generate_statistics=true; sin ellas todos los contadores valen cero.
+ */
+@Component
+public class EstadisticasCacheSegundoNivel {
+
+    private final Statistics estadisticas;
+
+    public EstadisticasCacheSegundoNivel(EntityManagerFactory entityManagerFactory) {
+        this.estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public List<EstadisticasRegionCacheDTO> porRegion() {
+        return Arrays.stream(estadisticas.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(this::region)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private EstadisticasRegionCacheDTO region(String nombre) {
+        CacheRegionStatistics region = estadisticas.getCacheRegionStatistics(nombre);
+        if (region == null) {
+            return null;
+        }
+        long accesos = region.getHitCount() + region.getMissCount();
+        return new EstadisticasRegionCacheDTO(
+                nombre,
+                region.getHitCount(),
+                region.getMissCount(),
+                region.getPutCount(),
+                accesos == 0 ? 0.0 : (double) region.getHitCount() / accesos,
+                region.getElementCountInMemory());
+    }
+}
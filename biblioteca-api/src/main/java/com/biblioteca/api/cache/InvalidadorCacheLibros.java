@@ -0,0 +1,53 @@
+package com.biblioteca.api.cache;
+
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.event.DisponibilidadCambiadaEvent;
+import com.biblioteca.api.event.LibroCambiadoEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Invalida sólo las listas afectadas por cada cambio, una vez confirmada la transacción
+ * (antes del commit otra petición podría volver a cachear el estado antiguo).
+ *
+ * <p>Las respuestas de un libro no se invalidan: su clave lleva el ETag de la versión, así que
+ * la de una versión anterior ya no se vuelve a leer y sale de la caché por caducidad o desalojo.
+ */
+@Component
+@RequiredArgsConstructor
+public class InvalidadorCacheLibros {
+
+    private final CacheRespuestas cacheRespuestas;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarLibro(LibroCambiadoEvent evento) {
+        if (evento.esEliminacion()) {
+            // Del libro eliminado sólo se conoce el id
+            cacheRespuestas.invalidar(ClavesCache.LIBROS_DISPONIBLES);
+            cacheRespuestas.invalidarPorPrefijo(ClavesCache.PREFIJO_GENERO);
+            cacheRespuestas.invalidarPorPrefijo(ClavesCache.PREFIJO_DISPONIBLES_GENERO);
+            return;
+        }
+        invalidarListas(evento.anterior());
+        invalidarListas(evento.actual());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarDisponibilidad(DisponibilidadCambiadaEvent evento) {
+        cacheRespuestas.invalidar(ClavesCache.LIBROS_DISPONIBLES);
+        cacheRespuestas.invalidar(ClavesCache.genero(evento.genero()));
+        cacheRespuestas.invalidar(ClavesCache.disponiblesGenero(evento.genero()));
+    }
+
+    private void invalidarListas(LibroDTO libro) {
+        if (libro == null) {
+            return;
+        }
+        if (Boolean.TRUE.equals(libro.getDisponible())) {
+            cacheRespuestas.invalidar(ClavesCache.LIBROS_DISPONIBLES);
+            cacheRespuestas.invalidar(ClavesCache.disponiblesGenero(libro.getGenero()));
+        }
+        cacheRespuestas.invalidar(ClavesCache.genero(libro.getGenero()));
+    }
+}
@@ -0,0 +1,45 @@
+package com.biblioteca.api.cache;
+
+import com.biblioteca.api.bd.EnrutadorLecturaDataSource;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.jcache.internal.JCacheAccessImpl;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * Regiones JCache de la caché de segundo nivel que no guardan lo leído en una transacción que
+ * usa una réplica (entidades y resultados de consultas): tras invalidarse una entrada, una
+ * réplica con retraso la volvería a llenar con la fila anterior hasta que caducara. Las marcas
+ * de actualización de las tablas sólo las escriben las transacciones de escritura y no cambian.
+ */
+public class RegionesCacheSegundoNivel extends JCacheRegionFactory {
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return new AccesoSinReplicas(super.createDomainDataStorageAccess(regionConfig, buildingContext));
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return new AccesoSinReplicas(super.createQueryResultsRegionStorageAccess(regionName, sessionFactory));
+    }
+
+    private static class AccesoSinReplicas extends JCacheAccessImpl {
+
+        AccesoSinReplicas(StorageAccess original) {
+            super(((JCacheAccessImpl) original).getUnderlyingCache());
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            if (!EnrutadorLecturaDataSource.leeDeReplica()) {
+                super.putIntoCache(key, value, session);
+            }
+        }
+    }
+}
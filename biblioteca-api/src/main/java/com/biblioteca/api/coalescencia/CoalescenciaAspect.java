@@ -0,0 +1,161 @@
+package com.biblioteca.api.coalescencia;
+
+import com.biblioteca.api.config.CoalescenciaProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Une las llamadas simultáneas e idénticas a los métodos {@link Coalescente}: la primera
+ * ejecuta el método ("vuelo") y las que llegan mientras tanto esperan su resultado en lugar de
+ * repetir la consulta.
+ *
+ * <p>Va por delante de la transacción, así que las llamadas que esperan no ocupan conexión. No
+ * se une nada que ya esté dentro de una transacción (podría ver sus propios cambios sin
+ * confirmar) ni a un vuelo que empezó antes de la última escritura confirmada: quien llega
+ * después de una escritura nunca recibe datos anteriores a ella. Cada vuelo tiene un plazo;
+ * pasado éste, quien espera hace su propia llamada.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class CoalescenciaAspect implements TransactionExecutionListener, MeterBinder {
+
+    private final CoalescenciaProperties properties;
+    private final ConcurrentHashMap<Clave, Vuelo> vuelos = new ConcurrentHashMap<>();
+    // Transacciones de escritura confirmadas; lo registra el gestor de transacciones (listener)
+    private final AtomicLong escrituras = new AtomicLong();
+
+    private final LongAdder ejecutadas = new LongAdder();
+    private final LongAdder compartidas = new LongAdder();
+    private final LongAdder esperasAgotadas = new LongAdder();
+
+    public CoalescenciaAspect(CoalescenciaProperties properties) {
+        this.properties = properties;
+    }
+
+    @Around("@annotation(coalescente)")
+    public Object coalescer(ProceedingJoinPoint punto, Coalescente coalescente) throws Throwable {
+        if (!properties.isHabilitada() || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return punto.proceed();
+        }
+        Clave clave = new Clave(((MethodSignature) punto.getSignature()).getMethod(), Arrays.asList(punto.getArgs()));
+        long esperaMaxima = coalescente.esperaMaximaMs() >= 0
+                ? TimeUnit.MILLISECONDS.toNanos(coalescente.esperaMaximaMs())
+                : properties.getEsperaMaxima().toNanos();
+
+        while (true) {
+            long ahora = System.nanoTime();
+            long escriturasActuales = escrituras.get();
+            Vuelo nuevo = new Vuelo(escriturasActuales, ahora + esperaMaxima);
+            Vuelo enCurso = vuelos.putIfAbsent(clave, nuevo);
+            if (enCurso == null) {
+                return ejecutar(punto, clave, nuevo);
+            }
+            if (enCurso.admite(escriturasActuales, ahora)) {
+                return esperar(punto, enCurso, ahora);
+            }
+            // Anterior a una escritura o fuera de plazo: las llamadas nuevas empiezan otro vuelo
+            if (vuelos.replace(clave, enCurso, nuevo)) {
+                return ejecutar(punto, clave, nuevo);
+            }
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaccion, @Nullable Throwable fallo) {
+        if (fallo == null && !transaccion.isReadOnly()) {
+            escrituras.incrementAndGet();
+        }
+    }
+
+    // Las compartidas recibieron el resultado de otra llamada: son consultas que no llegaron a la base de datos
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("biblioteca.coalescencia.llamadas", ejecutadas, LongAdder::sum)
+                .description("Llamadas a métodos coalescentes")
+                .tag("resultado", "ejecutada")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.coalescencia.llamadas", compartidas, LongAdder::sum)
+                .description("Llamadas a métodos coalescentes")
+                .tag("resultado", "compartida")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.coalescencia.esperas.agotadas", esperasAgotadas, LongAdder::sum)
+                .description("Llamadas que dejaron de esperar una ejecución compartida al vencer su plazo")
+                .register(registry);
+        Gauge.builder("biblioteca.coalescencia.vuelos", vuelos, ConcurrentHashMap::size)
+                .description("Ejecuciones compartidas en curso")
+                .register(registry);
+    }
+
+    private Object ejecutar(ProceedingJoinPoint punto, Clave clave, Vuelo vuelo) throws Throwable {
+        ejecutadas.increment();
+        try {
+            Object resultado = punto.proceed();
+            vuelo.resultado.complete(resultado);
+            return resultado;
+        } catch (Throwable e) {
+            vuelo.resultado.completeExceptionally(e);
+            throw e;
+        } finally {
+            vuelos.remove(clave, vuelo);
+        }
+    }
+
+    private Object esperar(ProceedingJoinPoint punto, Vuelo vuelo, long ahora) throws Throwable {
+        try {
+            Object resultado = vuelo.resultado.get(vuelo.plazo - ahora, TimeUnit.NANOSECONDS);
+            compartidas.increment();
+            return resultado;
+        } catch (ExecutionException e) {
+            compartidas.increment();
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            esperasAgotadas.increment();
+            ejecutadas.increment();
+            return punto.proceed();
+        }
+    }
+
+    private record Clave(Method metodo, List<Object> argumentos) {
+    }
+
+    private static final class Vuelo {
+
+        private final long escrituras;
+        private final long plazo;
+        private final CompletableFuture<Object> resultado = new CompletableFuture<>();
+
+        private Vuelo(long escrituras, long plazo) {
+            this.escrituras = escrituras;
+            this.plazo = plazo;
+        }
+
+        private boolean admite(long escriturasActuales, long ahora) {
+            return escrituras == escriturasActuales && plazo - ahora > 0;
+        }
+    }
+}
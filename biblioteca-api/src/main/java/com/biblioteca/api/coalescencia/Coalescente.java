@@ -0,0 +1,21 @@
+package com.biblioteca.api.coalescencia;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Las llamadas simultáneas al método con los mismos argumentos comparten una sola ejecución y
+ * su resultado (o su excepción). Sólo para lecturas: el resultado se entrega tal cual a todas
+ * las llamadas y no debe modificarse. Ver {@link CoalescenciaAspect}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalescente {
+
+    // Lo que espera una llamada a la ejecución en curso antes de hacer la suya; -1 = biblioteca.coalescencia.espera-maxima
+    long esperaMaximaMs() default -1;
+}
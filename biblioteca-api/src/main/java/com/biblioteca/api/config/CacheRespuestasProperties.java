@@ -0,0 +1,19 @@
+package com.biblioteca.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "biblioteca.cache-respuestas")
+public class CacheRespuestasProperties {
+
+    private boolean habilitada = true;
+
+    // Tamaño máximo que pueden ocupar las respuestas serializadas
+    private DataSize maxBytes = DataSize.ofMegabytes(64);
+
+    private Duration ttl = Duration.ofMinutes(10);
+}
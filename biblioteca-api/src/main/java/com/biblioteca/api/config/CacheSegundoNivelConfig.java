@@ -0,0 +1,86 @@
+package com.biblioteca.api.config;
+
+import com.biblioteca.api.cache.RegionesCacheSegundoNivel;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+/**
+ * Caché de segundo nivel de Hibernate sobre JCache (Ehcache). Las regiones se crean aquí con
+ * el tamaño configurado; Hibernate falla al arrancar si una entidad cacheable usa una región
+ * que no existe, en lugar de crearla sin límites. Lo leído de una réplica no se guarda
+ * ({@link RegionesCacheSegundoNivel}).
+ */
+@Configuration
+public class CacheSegundoNivelConfig {
+
+    static final String REGION_CONSULTAS = "consultas";
+
+    private static final Map<String, Long> TAMANOS_POR_DEFECTO = Map.of(
+            "libros", 10_000L,
+            "usuarios", 5_000L,
+            "perfiles", 5_000L,
+            REGION_CONSULTAS, 1_000L);
+
+    // Las marcas de actualización deben sobrevivir a las consultas que protegen: sin caducidad
+    private static final long TAMANO_MARCAS_ACTUALIZACION = 1_000L;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheManagerSegundoNivel(CacheSegundoNivelProperties properties) {
+        ConfigurationBuilder configuracion = ConfigurationBuilder.newConfigurationBuilder();
+        for (Map.Entry<String, Long> region : TAMANOS_POR_DEFECTO.entrySet()) {
+            long entradas = properties.getRegiones().getOrDefault(region.getKey(), region.getValue());
+            String nombre = region.getKey().equals(REGION_CONSULTAS)
+                    ? RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME
+                    : region.getKey();
+            configuracion = configuracion.withCache(nombre, region(entradas, properties.getTtl()));
+        }
+        configuracion = configuracion.withCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                region(TAMANO_MARCAS_ACTUALIZACION, null));
+
+        // Un gestor propio por contexto: el gestor por defecto de JCache es global a la JVM
+        EhcacheCachingProvider proveedor = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        return proveedor.getCacheManager(URI.create("biblioteca-cache-l2-" + UUID.randomUUID()), configuracion.build());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivelCustomizer(CacheSegundoNivelProperties properties,
+                                                                     CacheManager cacheManagerSegundoNivel) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, properties.isHabilitada());
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, properties.isHabilitada());
+            if (properties.isHabilitada()) {
+                hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, RegionesCacheSegundoNivel.class.getName());
+                hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManagerSegundoNivel);
+                hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, MissingCacheStrategy.FAIL.getExternalRepresentation());
+            }
+        };
+    }
+
+    private CacheConfiguration<Object, Object> region(long entradas, Duration ttl) {
+        CacheConfigurationBuilder<Object, Object> configuracion = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(entradas));
+        if (ttl != null) {
+            configuracion = configuracion.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl));
+        }
+        return configuracion.build();
+    }
+}
@@ -0,0 +1,21 @@
+package com.biblioteca.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "biblioteca.cache-l2")
+public class CacheSegundoNivelProperties {
+
+    private boolean habilitada = true;
+
+    // Caducidad de las entradas de entidades y de consultas
+    private Duration ttl = Duration.ofHours(1);
+
+    // Entradas máximas por región: libros, usuarios, perfiles y consultas
+    private Map<String, Long> regiones = new LinkedHashMap<>();
+}
@@ -0,0 +1,18 @@
+package com.biblioteca.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "biblioteca.coalescencia")
+public class CoalescenciaProperties {
+
+    // Si se desactiva, cada llamada a un método @Coalescente hace su propia consulta
+    private boolean habilitada = true;
+
+    // Plazo de cada ejecución compartida: pasado este tiempo las llamadas que esperan hacen la suya
+    // y las nuevas ya no se unen a ella
+    private Duration esperaMaxima = Duration.ofSeconds(2);
+}
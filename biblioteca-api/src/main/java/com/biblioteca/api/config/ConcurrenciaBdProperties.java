@@ -0,0 +1,17 @@
+package com.biblioteca.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "biblioteca.bd")
+public class ConcurrenciaBdProperties {
+
+    // Conexiones que pueden estar en uso a la vez; 0 = tamaño máximo del pool de Hikari
+    private int concurrenciaMaxima = 0;
+
+    // Tiempo máximo de espera por un permiso antes de fallar la petición
+    private Duration esperaMaxima = Duration.ofSeconds(5);
+}
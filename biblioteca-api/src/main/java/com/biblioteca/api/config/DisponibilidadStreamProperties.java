@@ -0,0 +1,26 @@
+package com.biblioteca.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "biblioteca.disponibilidad-stream")
+public class DisponibilidadStreamProperties {
+
+    // Últimos cambios que se conservan para reanudar una conexión desde Last-Event-ID
+    private int historial = 1000;
+
+    // Libros con cambios pendientes de enviar por suscriptor; si se supera, el cliente debe recargar
+    private int capacidadSuscriptor = 256;
+
+    // Hilos que escriben en las conexiones; un cliente que no lee ocupa uno hasta que falla la escritura
+    private int hilosEnvio = 16;
+
+    // Cada cuánto se envía un comentario a cada suscriptor para mantener viva la conexión
+    private Duration latido = Duration.ofSeconds(15);
+
+    // Duración máxima de una conexión; el navegador reconecta solo y reanuda desde el último evento
+    private Duration duracionMaxima = Duration.ofMinutes(30);
+}
@@ -0,0 +1,13 @@
+package com.biblioteca.api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Con spring.threads.virtual.enabled=true, Spring Boot ejecuta las peticiones de Tomcat,
+// los métodos @Async y las tareas @Scheduled sobre hilos virtuales
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class EjecucionConfig {
+}
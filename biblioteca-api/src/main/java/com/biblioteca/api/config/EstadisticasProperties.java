@@ -0,0 +1,20 @@
+package com.biblioteca.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "biblioteca.estadisticas")
+public class EstadisticasProperties {
+
+    // Si se desactivan, las estadísticas se calculan con consultas de agregación en cada petición
+    private boolean habilitadas = true;
+
+    // Libros más prestados que se mantienen ordenados (máximo que se puede pedir)
+    private int tamanoPodio = 100;
+
+    // Cada cuánto se recalculan desde la base de datos para corregir posibles desviaciones
+    private Duration intervaloVerificacion = Duration.ofMinutes(10);
+}
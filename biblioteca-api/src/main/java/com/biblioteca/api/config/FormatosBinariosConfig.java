@@ -0,0 +1,24 @@
+package com.biblioteca.api.config;
+
+import com.biblioteca.api.formato.FormatoRespuesta;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+// Spring Boot sustituye por estos los conversores CBOR/Smile por defecto, que usarían un
+// ObjectMapper sin la configuración de la aplicación
+@Configuration
+public class FormatosBinariosConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2CborHttpMessageConverter(FormatoRespuesta.CBOR.mapper(objectMapper));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(FormatoRespuesta.SMILE.mapper(objectMapper));
+    }
+}
@@ -0,0 +1,41 @@
+package com.biblioteca.api.config;
+
+import com.biblioteca.api.bd.LimiteConcurrenciaDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// Sólo en modo de hilos virtuales: se antepone un semáforo al pool de conexiones
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class HilosVirtualesConfig {
+
+    @Bean
+    static BeanPostProcessor limiteConcurrenciaDataSource(@Lazy ConcurrenciaBdProperties properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // El enrutador de réplicas no abre conexiones: el límite se aplica a cada pool
+                if (!(bean instanceof DataSource dataSource) || bean instanceof LimiteConcurrenciaDataSource
+                        || bean instanceof LazyConnectionDataSourceProxy) {
+                    return bean;
+                }
+                int concurrenciaMaxima = properties.getConcurrenciaMaxima();
+                if (concurrenciaMaxima <= 0 && bean instanceof HikariDataSource hikari) {
+                    concurrenciaMaxima = hikari.getMaximumPoolSize();
+                }
+                if (concurrenciaMaxima <= 0) {
+                    return bean;
+                }
+                return new LimiteConcurrenciaDataSource(dataSource, concurrenciaMaxima, properties.getEsperaMaxima());
+            }
+        };
+    }
+}
@@ -0,0 +1,15 @@
+package com.biblioteca.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "biblioteca.importacion")
+public class ImportacionProperties {
+
+    // Filas que se validan contra la base de datos e insertan en cada transacción
+    private int tamanoLote = 500;
+
+    // Máximo de filas rechazadas que se detallan en el informe
+    private int maxRechazosInformados = 1000;
+}
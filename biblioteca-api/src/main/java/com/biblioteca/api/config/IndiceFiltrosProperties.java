@@ -0,0 +1,17 @@
+package com.biblioteca.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "biblioteca.indice-filtros")
+public class IndiceFiltrosProperties {
+
+    // Si se desactiva, los filtros del catálogo se resuelven siempre con consultas a la base de datos
+    private boolean habilitado = true;
+
+    // Cada cuánto se compara el índice con la base de datos
+    private Duration intervaloVerificacion = Duration.ofMinutes(10);
+}
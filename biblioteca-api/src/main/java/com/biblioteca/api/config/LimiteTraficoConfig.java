@@ -0,0 +1,30 @@
+package com.biblioteca.api.config;
+
+import com.biblioteca.api.limite.FiltroLimiteTrafico;
+import com.biblioteca.api.limite.LimitadorTrafico;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.Set;
+
+// Sólo la API: el actuator, la consola H2 y la documentación quedan fuera de los límites
+@Configuration
+public class LimiteTraficoConfig {
+
+    @Bean
+    public FilterRegistrationBean<FiltroLimiteTrafico> filtroLimiteTrafico(LimitadorTrafico limitador,
+                                                                           ObjectMapper objectMapper,
+                                                                           LimiteTraficoProperties properties) {
+        FilterRegistrationBean<FiltroLimiteTrafico> registro = new FilterRegistrationBean<>(
+                new FiltroLimiteTrafico(limitador, objectMapper, properties.getCabeceraClave(),
+                        Set.copyOf(properties.getClavesApi())));
+        registro.addUrlPatterns("/api/*");
+        // Antes que el resto de filtros: lo rechazado no debe costar más que lo imprescindible
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        registro.setEnabled(properties.isHabilitado());
+        return registro;
+    }
+}
@@ -0,0 +1,53 @@
+package com.biblioteca.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "biblioteca.limite-trafico")
+public class LimiteTraficoProperties {
+
+    private boolean habilitado = true;
+
+    // Cabecera que identifica a la integración; sin ella se limita por dirección IP
+    private String cabeceraClave = "X-API-Key";
+
+    // Claves de las integraciones con cubo propio: una clave desconocida cuenta como su dirección IP,
+    // para que inventarse una clave por petición no dé un cubo nuevo cada vez
+    private List<String> clavesApi = new ArrayList<>();
+
+    // Clientes de los que se guarda el límite; los inactivos se olvidan (con el cubo lleno de nuevo)
+    private int clientesMaximos = 100_000;
+    private Duration inactividad = Duration.ofMinutes(10);
+
+    // Grupos de endpoints con su propio límite por cliente; a cada petición se le aplica el primero que coincide
+    private Map<String, Grupo> grupos = new LinkedHashMap<>();
+
+    // Peticiones simultáneas en toda la aplicación: lecturas (GET, HEAD) y escrituras por separado,
+    // para que una avalancha de escrituras no deje sin conexiones a las lecturas
+    private int lecturasSimultaneas = 200;
+    private int escriturasSimultaneas = 8;
+
+    // Lo que espera una petición a que quede sitio en su compartimento antes del 429
+    private Duration esperaMaxima = Duration.ofMillis(100);
+
+    @Data
+    public static class Grupo {
+
+        // Métodos HTTP del grupo; vacío = todos
+        private List<String> metodos = new ArrayList<>();
+
+        // Patrones de ruta (estilo Ant, p. ej. /api/prestamos/**)
+        private List<String> rutas = new ArrayList<>();
+
+        // Peticiones por segundo sostenidas y ráfaga máxima por cliente
+        private double porSegundo = 10;
+        private int rafaga = 20;
+    }
+}
@@ -0,0 +1,44 @@
+package com.biblioteca.api.config;
+
+import com.biblioteca.api.bd.LimiteConcurrenciaDataSource;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.sql.SQLException;
+import javax.sql.DataSource;
+
+// Las métricas HTTP, de repositorios, de HikariCP y de Hibernate las registra Spring Boot y las
+// propias cada componente, que implementa MeterBinder; aquí quedan los temporizadores @Timed
+// de los servicios y el límite de conexiones, que no es un bean
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    // Con réplicas de lectura el DataSource es el enrutador, que da acceso al pool principal
+    @Bean
+    public MeterBinder metricasLimiteConcurrenciaBd(DataSource dataSource) {
+        return registry -> {
+            LimiteConcurrenciaDataSource limite = limiteConcurrencia(dataSource);
+            if (limite != null) {
+                limite.bindTo(registry);
+            }
+        };
+    }
+
+    private static LimiteConcurrenciaDataSource limiteConcurrencia(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(LimiteConcurrenciaDataSource.class)
+                    ? dataSource.unwrap(LimiteConcurrenciaDataSource.class)
+                    : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
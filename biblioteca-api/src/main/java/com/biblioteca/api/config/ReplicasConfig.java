@@ -0,0 +1,95 @@
+package com.biblioteca.api.config;
+
+import com.biblioteca.api.bd.EnrutadorLecturaDataSource;
+import com.biblioteca.api.bd.FiltroClienteLecturas;
+import com.biblioteca.api.bd.LimiteConcurrenciaDataSource;
+import com.biblioteca.api.bd.ReplicasLectura;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réplicas de lectura: sólo si se configura alguna URL en biblioteca.replicas.urls. La
+ * aplicación usa un único DataSource que enruta cada transacción a la principal o a una
+ * réplica; al existir, Spring Boot ya no crea el suyo y el pool principal se define aquí con
+ * la misma configuración (spring.datasource.*).
+ */
+@Configuration
+@ConditionalOnExpression("!'${biblioteca.replicas.urls:}'.isBlank()")
+public class ReplicasConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrincipal(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("principal");
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicasLectura replicasLectura(ReplicasProperties replicas, DataSourceProperties principal,
+                                           ConcurrenciaBdProperties concurrencia, MeterRegistry meterRegistry,
+                                           Environment environment) {
+        Map<String, DataSource> porNombre = new LinkedHashMap<>();
+        List<String> urls = replicas.getUrls();
+        for (int i = 0; i < urls.size(); i++) {
+            String nombre = "replica-" + (i + 1);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName(nombre);
+            pool.setJdbcUrl(urls.get(i).trim());
+            pool.setUsername(replicas.getUsuario() != null ? replicas.getUsuario() : principal.determineUsername());
+            pool.setPassword(replicas.getContrasena() != null ? replicas.getContrasena() : principal.determinePassword());
+            pool.setReadOnly(true);
+            pool.setMaximumPoolSize(replicas.getTamanoPool());
+            pool.setConnectionTimeout(replicas.getEsperaConexion().toMillis());
+            // Una réplica caída al arrancar no impide el arranque: se usa la principal hasta que responda
+            pool.setInitializationFailTimeout(-1);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            porNombre.put(nombre, limitarConcurrencia(pool, concurrencia, environment));
+        }
+        return new ReplicasLectura(porNombre);
+    }
+
+    // El límite de concurrencia del pool principal lo aplica HilosVirtualesConfig al bean;
+    // las réplicas no son beans y se limitan aquí con el mismo criterio
+    private DataSource limitarConcurrencia(HikariDataSource pool, ConcurrenciaBdProperties concurrencia,
+                                           Environment environment) {
+        if (!Threading.VIRTUAL.isActive(environment)) {
+            return pool;
+        }
+        int maxima = concurrencia.getConcurrenciaMaxima() > 0 ? concurrencia.getConcurrenciaMaxima() : pool.getMaximumPoolSize();
+        return new LimiteConcurrenciaDataSource(pool, maxima, concurrencia.getEsperaMaxima());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("dataSourcePrincipal") DataSource principal,
+                                 ReplicasLectura replicasLectura, ReplicasProperties replicas) {
+        return new LazyConnectionDataSourceProxy(
+                new EnrutadorLecturaDataSource(principal, replicasLectura, replicas.getVentanaLecturaPropia()));
+    }
+
+    @Bean
+    public FilterRegistrationBean<FiltroClienteLecturas> filtroClienteLecturas(ReplicasProperties replicas) {
+        FilterRegistrationBean<FiltroClienteLecturas> registro =
+                new FilterRegistrationBean<>(new FiltroClienteLecturas(replicas.getCabeceraCliente()));
+        registro.setEnabled(replicas.getVentanaLecturaPropia().isPositive());
+        return registro;
+    }
+}
@@ -0,0 +1,36 @@
+package com.biblioteca.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "biblioteca.replicas")
+public class ReplicasProperties {
+
+    // URL JDBC de cada réplica de lectura; sin ninguna, todo va a la base de datos principal
+    private List<String> urls = new ArrayList<>();
+
+    // Credenciales de las réplicas; si se dejan vacías se usan las de la principal
+    private String usuario;
+    private String contrasena;
+
+    // Conexiones del pool de cada réplica
+    private int tamanoPool = 10;
+
+    // Espera máxima por una conexión de réplica antes de leer de la principal
+    private Duration esperaConexion = Duration.ofSeconds(1);
+
+    // Cada cuánto se comprueba si las réplicas responden
+    private Duration intervaloVerificacion = Duration.ofSeconds(5);
+
+    // Tras una escritura, las lecturas del mismo cliente van a la principal durante este tiempo
+    // para que vea sus propios cambios aunque las réplicas vayan con retraso (0 = desactivado)
+    private Duration ventanaLecturaPropia = Duration.ZERO;
+
+    // Cabecera que identifica al cliente; sin ella se usa su dirección IP
+    private String cabeceraCliente = "X-Cliente-Id";
+}
@@ -0,0 +1,23 @@
+package com.biblioteca.api.config;
+
+import com.biblioteca.api.salida.DestinoEventos;
+import com.biblioteca.api.salida.DestinoEventosArchivo;
+import com.biblioteca.api.salida.DestinoEventosMemoria;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Destinos locales de la bandeja de salida; un bean DestinoEventos propio los sustituye
+@Configuration
+public class SalidaEventosConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public DestinoEventos destinoEventos(SalidaEventosProperties properties, ObjectMapper objectMapper) {
+        return switch (properties.getDestino()) {
+            case MEMORIA -> new DestinoEventosMemoria(properties.getCapacidadMemoria());
+            case ARCHIVO -> new DestinoEventosArchivo(properties.getArchivo(), objectMapper);
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.biblioteca.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "biblioteca.salida-eventos")
+public class SalidaEventosProperties {
+
+    // Si se desactiva, los eventos se siguen guardando pero esta instancia no los publica
+    private boolean publicacionHabilitada = true;
+
+    // Eventos que se reservan y publican en cada transacción
+    private int tamanoLote = 200;
+
+    // Espera entre vaciados de la bandeja: los eventos que llegan mientras tanto salen juntos
+    // en el siguiente lote. Si un lote sale lleno, el siguiente se publica sin esperar
+    private Duration espera = Duration.ofSeconds(1);
+
+    // Duración máxima de la transacción de cada lote (incluye el envío al destino)
+    private Duration tiempoMaximoLote = Duration.ofSeconds(10);
+
+    // Dónde se publican si la aplicación no define su propio DestinoEventos
+    private Destino destino = Destino.MEMORIA;
+
+    // Fichero NDJSON del destino ARCHIVO
+    private Path archivo = Path.of("eventos-salida.ndjson");
+
+    // Últimos eventos que conserva el destino MEMORIA
+    private int capacidadMemoria = 10_000;
+
+    public enum Destino {
+        MEMORIA,
+        ARCHIVO
+    }
+}
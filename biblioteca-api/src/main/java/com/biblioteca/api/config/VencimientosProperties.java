@@ -0,0 +1,31 @@
+package com.biblioteca.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "biblioteca.vencimientos")
+public class VencimientosProperties {
+
+    // Días de préstamo hasta la fecha de vencimiento
+    private int diasPrestamo = 14;
+
+    // Multa por cada día de retraso y máximo por préstamo
+    private BigDecimal multaDiaria = new BigDecimal("0.50");
+    private BigDecimal multaMaxima = new BigDecimal("20.00");
+
+    // Si se desactiva, no se marcan préstamos vencidos (las multas se calculan igualmente al devolver)
+    private boolean revisionHabilitada = true;
+
+    // Cada cuánto se lanza la revisión; una vez completada la pasada del día, las siguientes no hacen nada
+    private Duration intervalo = Duration.ofHours(1);
+
+    // Préstamos que se revisan en cada transacción
+    private int tamanoBloque = 500;
+
+    // Duración máxima de la transacción de cada bloque
+    private Duration tiempoMaximoBloque = Duration.ofSeconds(5);
+}
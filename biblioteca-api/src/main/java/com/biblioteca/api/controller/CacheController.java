@@ -0,0 +1,45 @@
+package com.biblioteca.api.controller;
+
+import com.biblioteca.api.cache.CacheRespuestas;
+import com.biblioteca.api.cache.EstadisticasCacheSegundoNivel;
+import com.biblioteca.api.dto.EstadisticasCacheDTO;
+import com.biblioteca.api.dto.EstadisticasRegionCacheDTO;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+@Tag(name = "Caché", description = "Estado de la caché de respuestas y de la caché de segundo nivel")
+public class CacheController {
+
+    private final CacheRespuestas cacheRespuestas;
+    private final EstadisticasCacheSegundoNivel estadisticasCacheSegundoNivel;
+
+    @GetMapping("/estadisticas")
+    @Operation(summary = "Obtener aciertos, fallos y desalojos de la caché de respuestas")
+    public ResponseEntity<EstadisticasCacheDTO> obtenerEstadisticas() {
+        CacheStats stats = cacheRespuestas.estadisticas();
+        return ResponseEntity.ok(new EstadisticasCacheDTO(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                cacheRespuestas.entradas(),
+                cacheRespuestas.bytesOcupados()));
+    }
+
+    @GetMapping("/estadisticas/l2")
+    @Operation(summary = "Obtener aciertos y fallos por región de la caché de segundo nivel de Hibernate")
+    public ResponseEntity<List<EstadisticasRegionCacheDTO>> obtenerEstadisticasSegundoNivel() {
+        return ResponseEntity.ok(estadisticasCacheSegundoNivel.porRegion());
+    }
+}
@@ -0,0 +1,37 @@
+package com.biblioteca.api.controller;
+
+import com.biblioteca.api.disponibilidad.DifusorDisponibilidad;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/libros/disponibilidad")
+@RequiredArgsConstructor
+@Tag(name = "Libros", description = "API para gestión de libros")
+public class DisponibilidadController {
+
+    private final DifusorDisponibilidad difusorDisponibilidad;
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Recibir los cambios de disponibilidad de los libros (Server-Sent Events)",
+            description = "Envía un evento 'disponibilidad' con libroId, genero y disponible cada vez que un libro se presta o se devuelve. "
+                    + "Sin filtros se reciben todos los libros; con 'genero' y/o 'ids', sólo los de esos géneros o ids. "
+                    + "Al reconectar con Last-Event-ID se reenvían los cambios perdidos; si no es posible llega un evento "
+                    + "'reinicio' y el cliente debe recargar /api/libros/disponibles.")
+    public SseEmitter suscribir(
+            @RequestParam(required = false, defaultValue = "") Set<String> genero,
+            @RequestParam(required = false, defaultValue = "") Set<Long> ids,
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoId) {
+        return difusorDisponibilidad.suscribir(genero, ids, ultimoId);
+    }
+}
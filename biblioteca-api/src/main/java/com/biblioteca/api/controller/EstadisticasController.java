@@ -0,0 +1,42 @@
+package com.biblioteca.api.controller;
+
+import com.biblioteca.api.dto.EstadisticaGeneroDTO;
+import com.biblioteca.api.dto.EstadisticaUsuarioDTO;
+import com.biblioteca.api.dto.LibroMasPrestadoDTO;
+import com.biblioteca.api.service.EstadisticasService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/estadisticas")
+@RequiredArgsConstructor
+@Tag(name = "Estadísticas", description = "API de estadísticas de préstamos")
+public class EstadisticasController {
+
+    private final EstadisticasService estadisticasService;
+
+    @GetMapping("/libros/mas-prestados")
+    @Operation(summary = "Obtener los libros más prestados",
+            description = "Devuelve como máximo 'limite' libros ordenados por número de préstamos (incluidos los devueltos).")
+    public ResponseEntity<List<LibroMasPrestadoDTO>> obtenerLibrosMasPrestados(
+            @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(estadisticasService.obtenerLibrosMasPrestados(limite));
+    }
+
+    @GetMapping("/generos")
+    @Operation(summary = "Obtener préstamos y préstamos pendientes por género")
+    public ResponseEntity<List<EstadisticaGeneroDTO>> obtenerEstadisticasPorGenero() {
+        return ResponseEntity.ok(estadisticasService.obtenerEstadisticasPorGenero());
+    }
+
+    @GetMapping("/usuarios/{usuarioId}")
+    @Operation(summary = "Obtener los préstamos pendientes de devolución de un usuario")
+    public ResponseEntity<EstadisticaUsuarioDTO> obtenerEstadisticasDeUsuario(@PathVariable Long usuarioId) {
+        return ResponseEntity.ok(estadisticasService.obtenerEstadisticasDeUsuario(usuarioId));
+    }
+}
@@ -0,0 +1,40 @@
+package com.biblioteca.api.controller;
+
+import com.biblioteca.api.dto.ResultadoImportacionDTO;
+import com.biblioteca.api.service.ImportacionLibrosService;
+import com.biblioteca.api.service.ImportacionLibrosService.FormatoImportacion;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/libros/importar")
+@RequiredArgsConstructor
+@Tag(name = "Libros", description = "API para gestión de libros")
+public class ImportacionLibrosController {
+
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private final ImportacionLibrosService importacionLibrosService;
+
+    // El cuerpo se lee como flujo: no se carga el archivo completo en memoria
+    @PostMapping(consumes = {"text/csv", "application/x-ndjson"})
+    @Operation(summary = "Importar libros de forma masiva",
+            description = "Acepta un CSV con cabecera (titulo,isbn,autor,anioPublicacion,genero) o un libro JSON por línea (NDJSON). Devuelve cuántas filas se insertaron y el motivo de las rechazadas.")
+    public ResponseEntity<ResultadoImportacionDTO> importarLibros(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType tipo,
+            InputStream cuerpo) throws IOException {
+        FormatoImportacion formato = CSV.includes(tipo) ? FormatoImportacion.CSV : FormatoImportacion.NDJSON;
+        return ResponseEntity.ok(importacionLibrosService.importar(cuerpo, formato));
+    }
+}
@@ -1,16 +1,28 @@
 package com.biblioteca.api.controller;
 
+import com.biblioteca.api.cache.CacheRespuestas;
+import com.biblioteca.api.cache.ClavesCache;
 import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.dto.PaginaDTO;
+import com.biblioteca.api.formato.FormatoRespuesta;
+import com.biblioteca.api.formato.NegociadorFormato;
 import com.biblioteca.api.service.LibroService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/libros")
@@ -19,29 +31,87 @@ import java.util.List;
 public class LibroController {
 
     private final LibroService libroService;
+    private final CacheRespuestas cacheRespuestas;
+    private final NegociadorFormato negociadorFormato;
+
+    // Las peticiones condicionales (If-None-Match) se resuelven consultando sólo versiones
 
     @GetMapping
-    @Operation(summary = "Obtener todos los libros")
-    public ResponseEntity<List<LibroDTO>> obtenerTodosLosLibros() {
-        return ResponseEntity.ok(libroService.obtenerTodosLosLibros());
+    @Operation(summary = "Obtener todos los libros",
+            description = "Admite If-None-Match: si el catálogo no ha cambiado se responde 304 sin cuerpo.")
+    public ResponseEntity<List<LibroDTO>> obtenerTodosLosLibros(NativeWebRequest request) {
+        FormatoRespuesta formato = negociadorFormato.resolver(request);
+        String etag = negociadorFormato.etag(formato, libroService.obtenerEtagCatalogo());
+        if (request.checkNotModified(etag)) {
+            // Spring ya ha preparado la respuesta 304 con el ETag
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(formato.tipo())
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(libroService.obtenerTodosLosLibros());
+    }
+
+    @GetMapping(params = "limit")
+    @Operation(summary = "Obtener libros paginados por cursor",
+            description = "Devuelve como máximo 'limit' elementos ordenados por id. El campo 'siguiente' de la respuesta se pasa como 'after' para pedir la página siguiente.")
+    public ResponseEntity<PaginaDTO<LibroDTO>> obtenerLibrosPaginados(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit) {
+        return ResponseEntity.ok(libroService.obtenerLibrosPaginados(after, limit));
     }
 
+    // Las consultas más frecuentes del catálogo se sirven desde la caché de respuestas serializadas,
+    // en el formato que pida la cabecera Accept (JSON, CBOR o Smile)
+
     @GetMapping("/{id}")
-    @Operation(summary = "Obtener un libro por ID")
-    public ResponseEntity<LibroDTO> obtenerLibroPorId(@PathVariable Long id) {
-        return ResponseEntity.ok(libroService.obtenerLibroPorId(id));
+    @Operation(summary = "Obtener un libro por ID",
+            description = "Admite If-None-Match: si el libro no ha cambiado se responde 304 sin cuerpo.")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = LibroDTO.class)))
+    public ResponseEntity<byte[]> obtenerLibroPorId(@PathVariable Long id, NativeWebRequest request) {
+        FormatoRespuesta formato = negociadorFormato.resolver(request);
+        String etagLibro = libroService.obtenerEtagLibro(id);
+        String etag = negociadorFormato.etag(formato, etagLibro);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(formato.tipo())
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(cacheRespuestas.obtener(ClavesCache.libro(id, etagLibro), formato, () -> libroService.obtenerLibroPorId(id)));
     }
 
     @GetMapping("/disponibles")
     @Operation(summary = "Obtener libros disponibles")
-    public ResponseEntity<List<LibroDTO>> obtenerLibrosDisponibles() {
-        return ResponseEntity.ok(libroService.obtenerLibrosDisponibles());
+    @ApiResponse(responseCode = "200", content = @Content(array = @ArraySchema(schema = @Schema(implementation = LibroDTO.class))))
+    public ResponseEntity<byte[]> obtenerLibrosDisponibles(NativeWebRequest request) {
+        return respuestaCacheada(request, ClavesCache.LIBROS_DISPONIBLES, libroService::obtenerLibrosDisponibles);
+    }
+
+    @GetMapping(value = "/disponibles", params = "genero")
+    @Operation(summary = "Obtener libros disponibles de un género")
+    @ApiResponse(responseCode = "200", content = @Content(array = @ArraySchema(schema = @Schema(implementation = LibroDTO.class))))
+    public ResponseEntity<byte[]> obtenerLibrosDisponiblesPorGenero(@RequestParam String genero, NativeWebRequest request) {
+        return respuestaCacheada(request, ClavesCache.disponiblesGenero(genero),
+                () -> libroService.obtenerLibrosDisponiblesPorGenero(genero));
     }
 
     @GetMapping("/genero/{genero}")
     @Operation(summary = "Obtener libros por género")
-    public ResponseEntity<List<LibroDTO>> obtenerLibrosPorGenero(@PathVariable String genero) {
-        return ResponseEntity.ok(libroService.obtenerLibrosPorGenero(genero));
+    @ApiResponse(responseCode = "200", content = @Content(array = @ArraySchema(schema = @Schema(implementation = LibroDTO.class))))
+    public ResponseEntity<byte[]> obtenerLibrosPorGenero(@PathVariable String genero, NativeWebRequest request) {
+        return respuestaCacheada(request, ClavesCache.genero(genero), () -> libroService.obtenerLibrosPorGenero(genero));
+    }
+
+    @GetMapping("/buscar")
+    @Operation(summary = "Buscar libros por título o autor",
+            description = "Búsqueda de texto completo sin distinguir mayúsculas ni tildes. Los resultados se ordenan por relevancia.")
+    public ResponseEntity<List<LibroDTO>> buscarLibros(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(libroService.buscarLibros(q, limit));
     }
 
     @PostMapping
@@ -65,4 +135,12 @@ public class LibroController {
         libroService.eliminarLibro(id);
         return ResponseEntity.noContent().build();
     }
+
+    private ResponseEntity<byte[]> respuestaCacheada(NativeWebRequest request, String clave, Supplier<?> consulta) {
+        FormatoRespuesta formato = negociadorFormato.resolver(request);
+        return ResponseEntity.ok()
+                .contentType(formato.tipo())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(cacheRespuestas.obtener(clave, formato, consulta));
+    }
 }
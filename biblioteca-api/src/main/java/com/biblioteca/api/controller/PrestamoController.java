@@ -1,15 +1,25 @@
 package com.biblioteca.api.controller;
 
+import com.biblioteca.api.dto.PaginaDTO;
 import com.biblioteca.api.dto.PrestamoDTO;
+import com.biblioteca.api.dto.PrestamoLoteDTO;
+import com.biblioteca.api.dto.ResultadoLoteDTO;
 import com.biblioteca.api.service.PrestamoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -18,7 +28,10 @@ import java.util.List;
 @Tag(name = "Préstamos", description = "API para gestión de préstamos")
 public class PrestamoController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final PrestamoService prestamoService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     @Operation(summary = "Obtener todos los préstamos")
@@ -26,6 +39,34 @@ public class PrestamoController {
         return ResponseEntity.ok(prestamoService.obtenerTodosLosPrestamos());
     }
 
+    @GetMapping(params = "limit")
+    @Operation(summary = "Obtener préstamos paginados por cursor",
+            description = "Devuelve como máximo 'limit' elementos ordenados por id. El campo 'siguiente' de la respuesta se pasa como 'after' para pedir la página siguiente.")
+    public ResponseEntity<PaginaDTO<PrestamoDTO>> obtenerPrestamosPaginados(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit) {
+        return ResponseEntity.ok(prestamoService.obtenerPrestamosPaginados(after, limit));
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @Operation(summary = "Exportar el historial completo de préstamos",
+            description = "Devuelve un préstamo por línea (NDJSON) y lo envía a medida que se lee de la base de datos.")
+    public ResponseEntity<StreamingResponseBody> exportarPrestamos() {
+        StreamingResponseBody cuerpo = salida -> {
+            OutputStream buffer = new BufferedOutputStream(salida, 64 * 1024);
+            prestamoService.exportarPrestamos(prestamo -> {
+                try {
+                    buffer.write(objectMapper.writeValueAsBytes(prestamo));
+                    buffer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            buffer.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(cuerpo);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Obtener un préstamo por ID")
     public ResponseEntity<PrestamoDTO> obtenerPrestamoPorId(@PathVariable Long id) {
@@ -33,7 +74,8 @@ public class PrestamoController {
     }
 
     @GetMapping("/usuario/{usuarioId}/activos")
-    @Operation(summary = "Obtener préstamos activos de un usuario")
+    @Operation(summary = "Obtener préstamos activos de un usuario",
+            description = "Incluye los vencidos: todos los préstamos que el usuario tiene pendientes de devolver.")
     public ResponseEntity<List<PrestamoDTO>> obtenerPrestamosActivosDeUsuario(@PathVariable Long usuarioId) {
         return ResponseEntity.ok(prestamoService.obtenerPrestamosActivosDeUsuario(usuarioId));
     }
@@ -45,6 +87,13 @@ public class PrestamoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(nuevoPrestamo);
     }
 
+    @PostMapping("/lote")
+    @Operation(summary = "Prestar varios libros a un usuario en una sola operación",
+            description = "Devuelve el resultado de cada libro: los que no existen o no están disponibles se informan como fallidos sin impedir el resto.")
+    public ResponseEntity<ResultadoLoteDTO> crearPrestamosEnLote(@Valid @RequestBody PrestamoLoteDTO loteDTO) {
+        return ResponseEntity.ok(prestamoService.crearPrestamosEnLote(loteDTO));
+    }
+
     @PutMapping("/{id}/devolver")
     @Operation(summary = "Devolver un libro prestado")
     public ResponseEntity<PrestamoDTO> devolverLibro(@PathVariable Long id) {
@@ -1,14 +1,19 @@
 package com.biblioteca.api.controller;
 
+import com.biblioteca.api.dto.PaginaDTO;
 import com.biblioteca.api.dto.UsuarioDTO;
+import com.biblioteca.api.formato.FormatoRespuesta;
+import com.biblioteca.api.formato.NegociadorFormato;
 import com.biblioteca.api.service.UsuarioService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
 
 import java.util.List;
 
@@ -19,6 +24,7 @@ import java.util.List;
 public class UsuarioController {
 
     private final UsuarioService usuarioService;
+    private final NegociadorFormato negociadorFormato;
 
     @GetMapping
     @Operation(summary = "Obtener todos los usuarios")
@@ -26,10 +32,30 @@ public class UsuarioController {
         return ResponseEntity.ok(usuarioService.obtenerTodosLosUsuarios());
     }
 
+    @GetMapping(params = "limit")
+    @Operation(summary = "Obtener usuarios paginados por cursor",
+            description = "Devuelve como máximo 'limit' elementos ordenados por id. El campo 'siguiente' de la respuesta se pasa como 'after' para pedir la página siguiente.")
+    public ResponseEntity<PaginaDTO<UsuarioDTO>> obtenerUsuariosPaginados(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit) {
+        return ResponseEntity.ok(usuarioService.obtenerUsuariosPaginados(after, limit));
+    }
+
     @GetMapping("/{id}")
-    @Operation(summary = "Obtener un usuario por ID")
-    public ResponseEntity<UsuarioDTO> obtenerUsuarioPorId(@PathVariable Long id) {
-        return ResponseEntity.ok(usuarioService.obtenerUsuarioPorId(id));
+    @Operation(summary = "Obtener un usuario por ID",
+            description = "Admite If-None-Match: si el usuario no ha cambiado se responde 304 sin cuerpo.")
+    public ResponseEntity<UsuarioDTO> obtenerUsuarioPorId(@PathVariable Long id, NativeWebRequest request) {
+        FormatoRespuesta formato = negociadorFormato.resolver(request);
+        String etag = negociadorFormato.etag(formato, usuarioService.obtenerEtagUsuario(id));
+        if (request.checkNotModified(etag)) {
+            // Spring ya ha preparado la respuesta 304 con el ETag
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(formato.tipo())
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(usuarioService.obtenerUsuarioPorId(id));
     }
 
     @PostMapping
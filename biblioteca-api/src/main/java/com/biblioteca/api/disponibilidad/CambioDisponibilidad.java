@@ -0,0 +1,15 @@
+package com.biblioteca.api.disponibilidad;
+
+import com.biblioteca.api.dto.CambioDisponibilidadDTO;
+
+// Un cambio con su posición en el historial; el id es el que recibe el cliente en el evento SSE
+record CambioDisponibilidad(long secuencia, String id, CambioDisponibilidadDTO datos) {
+
+    Long libroId() {
+        return datos.getLibroId();
+    }
+
+    String genero() {
+        return datos.getGenero();
+    }
+}
@@ -0,0 +1,201 @@
+package com.biblioteca.api.disponibilidad;
+
+import com.biblioteca.api.config.DisponibilidadStreamProperties;
+import com.biblioteca.api.dto.CambioDisponibilidadDTO;
+import com.biblioteca.api.event.DisponibilidadCambiadaEvent;
+import com.biblioteca.api.event.LibroCambiadoEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Difunde por SSE los cambios de disponibilidad de los libros a los clientes suscritos
+ * (los quioscos), para que no tengan que consultar el catálogo periódicamente.
+ *
+ * <p>Cada cambio confirmado se numera, se guarda en el historial y se deja en el buffer de los
+ * suscriptores a los que interesa: un único recorrido en memoria por cambio, sin consultas.
+ * Los ids de los eventos llevan la época de esta instancia; un cliente que reconecta con un id
+ * de otra época, o demasiado antiguo para el historial, recibe un "reinicio" y recarga la lista.
+ */
+@Component
+public class DifusorDisponibilidad implements MeterBinder {
+
+    private final DisponibilidadStreamProperties properties;
+    private final Executor ejecutor;
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+
+    // Protegido por sí mismo: numerar, guardar y repartir un cambio es atómico respecto a las suscripciones
+    private final HistorialCambios historial;
+
+    private final LongAdder publicados = new LongAdder();
+    private final LongAdder combinados = new LongAdder();
+    private final LongAdder desbordamientos = new LongAdder();
+
+    // Hilos de plataforma y no virtuales: SseEmitter.send es synchronized y un hilo virtual que
+    // escribe a un cliente lento quedaría fijado a su hilo portador. Cada suscriptor tiene como
+    // mucho una tarea a la vez, así que la cola no crece más que el número de conexiones
+    @Autowired
+    public DifusorDisponibilidad(DisponibilidadStreamProperties properties) {
+        this(properties, Executors.newFixedThreadPool(properties.getHilosEnvio(),
+                Thread.ofPlatform().name("sse-", 0).daemon().factory()));
+    }
+
+    DifusorDisponibilidad(DisponibilidadStreamProperties properties, Executor ejecutor) {
+        this.properties = properties;
+        this.ejecutor = ejecutor;
+        this.historial = new HistorialCambios(properties.getHistorial());
+    }
+
+    /**
+     * Abre una suscripción. Con {@code ultimoId} (la cabecera Last-Event-ID de una reconexión)
+     * se reenvían primero los cambios posteriores que sigan en el historial.
+     */
+    public SseEmitter suscribir(Set<String> generos, Set<Long> libroIds, String ultimoId) {
+        SseEmitter emitter = new SseEmitter(properties.getDuracionMaxima().toMillis());
+        suscribir(emitter, generos, libroIds, ultimoId);
+        return emitter;
+    }
+
+    void suscribir(SseEmitter emitter, Set<String> generos, Set<Long> libroIds, String ultimoId) {
+        Suscriptor suscriptor = new Suscriptor(emitter, Set.copyOf(generos), Set.copyOf(libroIds),
+                properties.getCapacidadSuscriptor(), ejecutor);
+        emitter.onCompletion(() -> quitar(suscriptor));
+        emitter.onTimeout(() -> quitar(suscriptor));
+        emitter.onError(error -> quitar(suscriptor));
+
+        synchronized (historial) {
+            String idActual = id(historial.ultima());
+            if (ultimoId == null || ultimoId.isBlank()) {
+                suscriptor.avisar("inicio", idActual, "inicio");
+            } else {
+                List<CambioDisponibilidad> perdidos = perdidosDesde(ultimoId);
+                if (perdidos == null) {
+                    suscriptor.avisar("reinicio", idActual, "historial");
+                } else {
+                    for (CambioDisponibilidad cambio : perdidos) {
+                        if (suscriptor.interesa(cambio)) {
+                            entregar(cambio, suscriptor);
+                        }
+                    }
+                }
+            }
+            suscriptores.add(suscriptor);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarDisponibilidad(DisponibilidadCambiadaEvent evento) {
+        publicar(new CambioDisponibilidadDTO(evento.libroId(), evento.genero(), evento.disponible()));
+    }
+
+    // De las modificaciones del catálogo sólo interesan las que cambian la disponibilidad
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarLibro(LibroCambiadoEvent evento) {
+        if (evento.anterior() == null || evento.actual() == null
+                || Objects.equals(evento.anterior().getDisponible(), evento.actual().getDisponible())) {
+            return;
+        }
+        publicar(new CambioDisponibilidadDTO(evento.libroId(), evento.actual().getGenero(),
+                Boolean.TRUE.equals(evento.actual().getDisponible())));
+    }
+
+    @Scheduled(fixedDelayString = "${biblioteca.disponibilidad-stream.latido:PT15S}",
+            initialDelayString = "${biblioteca.disponibilidad-stream.latido:PT15S}")
+    public void latir() {
+        for (Suscriptor suscriptor : suscriptores) {
+            if (suscriptor.cerrado()) {
+                suscriptores.remove(suscriptor);
+            } else {
+                suscriptor.latir();
+            }
+        }
+    }
+
+    // Al parar se cierran las conexiones para que el contenedor no espere a que caduquen
+    @PreDestroy
+    public void cerrar() {
+        suscriptores.forEach(Suscriptor::completar);
+        suscriptores.clear();
+        if (ejecutor instanceof ExecutorService servicio) {
+            servicio.shutdown();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("biblioteca.disponibilidad.suscriptores", suscriptores, Set::size)
+                .description("Conexiones SSE abiertas al stream de disponibilidad")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.disponibilidad.cambios", publicados, LongAdder::sum)
+                .description("Cambios de disponibilidad difundidos")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.disponibilidad.combinados", combinados, LongAdder::sum)
+                .description("Cambios que sustituyeron a otro del mismo libro pendiente de enviar a un cliente lento")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.disponibilidad.desbordamientos", desbordamientos, LongAdder::sum)
+                .description("Buffers de suscriptor llenos: el cliente recibe un reinicio y recarga la lista")
+                .register(registry);
+    }
+
+    private void publicar(CambioDisponibilidadDTO datos) {
+        synchronized (historial) {
+            long secuencia = historial.ultima() + 1;
+            CambioDisponibilidad cambio = new CambioDisponibilidad(secuencia, id(secuencia), datos);
+            historial.anadir(cambio);
+            for (Suscriptor suscriptor : suscriptores) {
+                if (suscriptor.interesa(cambio)) {
+                    entregar(cambio, suscriptor);
+                }
+            }
+        }
+        publicados.increment();
+    }
+
+    private void entregar(CambioDisponibilidad cambio, Suscriptor suscriptor) {
+        switch (suscriptor.ofrecer(cambio)) {
+            case COMBINADO -> combinados.increment();
+            case DESBORDADO -> desbordamientos.increment();
+            default -> {
+            }
+        }
+    }
+
+    private void quitar(Suscriptor suscriptor) {
+        suscriptor.cerrar();
+        suscriptores.remove(suscriptor);
+    }
+
+    private String id(long secuencia) {
+        return epoca + "-" + secuencia;
+    }
+
+    // null si el id no es de esta instancia o no es válido
+    private List<CambioDisponibilidad> perdidosDesde(String ultimoId) {
+        int separador = ultimoId.lastIndexOf('-');
+        if (separador < 0 || !ultimoId.substring(0, separador).equals(epoca)) {
+            return null;
+        }
+        try {
+            return historial.desde(Long.parseLong(ultimoId.substring(separador + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.biblioteca.api.disponibilidad;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Los últimos cambios de disponibilidad en un buffer circular, para reenviar a un cliente que
+ * reconecta los que se perdió. No es seguro entre hilos: lo protege {@link DifusorDisponibilidad}.
+ */
+class HistorialCambios {
+
+    private final CambioDisponibilidad[] cambios;
+    // Secuencia del último cambio añadido; 0 si todavía no hay ninguno
+    private long ultima;
+
+    HistorialCambios(int capacidad) {
+        this.cambios = new CambioDisponibilidad[capacidad];
+    }
+
+    void anadir(CambioDisponibilidad cambio) {
+        cambios[(int) (cambio.secuencia() % cambios.length)] = cambio;
+        ultima = cambio.secuencia();
+    }
+
+    long ultima() {
+        return ultima;
+    }
+
+    /**
+     * Los cambios posteriores a la secuencia dada, o null si no se conservan todos (la
+     * secuencia es anterior al más antiguo o posterior al último).
+     */
+    List<CambioDisponibilidad> desde(long secuencia) {
+        long primera = Math.max(1, ultima - cambios.length + 1);
+        if (secuencia < primera - 1 || secuencia > ultima) {
+            return null;
+        }
+        List<CambioDisponibilidad> resultado = new ArrayList<>((int) (ultima - secuencia));
+        for (long s = secuencia + 1; s <= ultima; s++) {
+            resultado.add(cambios[(int) (s % cambios.length)]);
+        }
+        return resultado;
+    }
+}
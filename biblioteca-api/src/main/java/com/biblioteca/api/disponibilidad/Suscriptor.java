@@ -0,0 +1,137 @@
+package com.biblioteca.api.disponibilidad;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Una conexión SSE con sus filtros y los cambios pendientes de enviar.
+ *
+ * <p>Quien publica sólo deja el cambio en el buffer; el envío lo hace una tarea del ejecutor,
+ * como mucho una a la vez por suscriptor. Si el cliente lee despacio, los cambios de un mismo
+ * libro se combinan (sólo importa el último estado) y, si aun así se llena el buffer, se
+ * descarta entero y se envía un evento "reinicio" para que el cliente recargue la lista.
+ */
+class Suscriptor {
+
+    enum Resultado { ENCOLADO, COMBINADO, DESBORDADO }
+
+    private final SseEmitter emitter;
+    private final Set<String> generos;
+    private final Set<Long> libroIds;
+    private final int capacidad;
+    private final Executor ejecutor;
+
+    // Protegidos por this
+    private final LinkedHashMap<Long, CambioDisponibilidad> pendientes = new LinkedHashMap<>();
+    private SseEventBuilder aviso;
+    private boolean latido;
+    private boolean programado;
+    private volatile boolean cerrado;
+
+    Suscriptor(SseEmitter emitter, Set<String> generos, Set<Long> libroIds, int capacidad, Executor ejecutor) {
+        this.emitter = emitter;
+        this.generos = generos;
+        this.libroIds = libroIds;
+        this.capacidad = capacidad;
+        this.ejecutor = ejecutor;
+    }
+
+    // Sin filtros interesan todos los libros; con filtros, los de esos géneros y esos ids
+    boolean interesa(CambioDisponibilidad cambio) {
+        if (generos.isEmpty() && libroIds.isEmpty()) {
+            return true;
+        }
+        return generos.contains(cambio.genero()) || libroIds.contains(cambio.libroId());
+    }
+
+    synchronized Resultado ofrecer(CambioDisponibilidad cambio) {
+        // Se vuelve a insertar al final para que los ids lleguen en orden creciente
+        if (pendientes.remove(cambio.libroId()) != null) {
+            pendientes.put(cambio.libroId(), cambio);
+            return Resultado.COMBINADO;
+        }
+        if (pendientes.size() >= capacidad) {
+            avisar("reinicio", cambio.id(), "desbordamiento");
+            return Resultado.DESBORDADO;
+        }
+        pendientes.put(cambio.libroId(), cambio);
+        programar();
+        return Resultado.ENCOLADO;
+    }
+
+    /**
+     * Descarta lo pendiente y envía un evento sin cambios con el id desde el que se sigue: "inicio"
+     * al conectar o "reinicio" cuando el cliente debe recargar la lista (no se pudo reanudar).
+     */
+    synchronized void avisar(String nombre, String id, String motivo) {
+        pendientes.clear();
+        aviso = SseEmitter.event().id(id).name(nombre).data(motivo, MediaType.TEXT_PLAIN);
+        programar();
+    }
+
+    synchronized void latir() {
+        latido = true;
+        programar();
+    }
+
+    boolean cerrado() {
+        return cerrado;
+    }
+
+    void cerrar() {
+        cerrado = true;
+    }
+
+    void completar() {
+        cerrado = true;
+        emitter.complete();
+    }
+
+    private void programar() {
+        if (!programado && !cerrado) {
+            programado = true;
+            ejecutor.execute(this::enviar);
+        }
+    }
+
+    private void enviar() {
+        while (true) {
+            List<SseEventBuilder> eventos = new ArrayList<>();
+            synchronized (this) {
+                if (aviso != null) {
+                    eventos.add(aviso);
+                    aviso = null;
+                }
+                for (CambioDisponibilidad cambio : pendientes.values()) {
+                    eventos.add(SseEmitter.event().id(cambio.id()).name("disponibilidad")
+                            .data(cambio.datos(), MediaType.APPLICATION_JSON));
+                }
+                pendientes.clear();
+                if (latido && eventos.isEmpty()) {
+                    eventos.add(SseEmitter.event().comment("latido"));
+                }
+                latido = false;
+                if (eventos.isEmpty() || cerrado) {
+                    programado = false;
+                    return;
+                }
+            }
+            try {
+                for (SseEventBuilder evento : eventos) {
+                    emitter.send(evento);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado: el contenedor completa el emitter y se deja de enviar
+                cerrar();
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.biblioteca.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioDisponibilidadDTO {
+    private Long libroId;
+    private String genero;
+    private boolean disponible;
+}
@@ -0,0 +1,13 @@
+package com.biblioteca.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticaUsuarioDTO {
+    private Long usuarioId;
+    private long prestamosPendientes;
+}
@@ -0,0 +1,17 @@
+package com.biblioteca.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticasRegionCacheDTO {
+    private String region;
+    private long aciertos;
+    private long fallos;
+    private long escrituras;
+    private double tasaAciertos;
+    private long entradasEnMemoria;
+}
@@ -0,0 +1,14 @@
+package com.biblioteca.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LibroMasPrestadoDTO {
+    private Long libroId;
+    private String titulo;
+    private long prestamos;
+}
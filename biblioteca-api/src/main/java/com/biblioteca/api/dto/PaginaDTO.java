@@ -0,0 +1,19 @@
+package com.biblioteca.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaDTO<T> {
+    private List<T> contenido;
+
+    // Cursor opaco para pedir la página siguiente (null si no hay más resultados)
+    private String siguiente;
+
+    private int limite;
+}
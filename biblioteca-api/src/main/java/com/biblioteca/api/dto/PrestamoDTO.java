@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Data
@@ -15,11 +16,14 @@ public class PrestamoDTO {
     private Long id;
     
     private LocalDate fechaPrestamo;
+    private LocalDate fechaVencimiento;
     private LocalDate fechaDevolucion;
     
     @NotNull(message = "El estado es obligatorio")
     private Prestamo.EstadoPrestamo estado;
     
+    private BigDecimal multa;
+    
     @NotNull(message = "El ID del usuario es obligatorio")
     private Long usuarioId;
     
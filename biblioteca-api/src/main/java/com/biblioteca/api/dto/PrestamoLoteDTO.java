@@ -0,0 +1,22 @@
+package com.biblioteca.api.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrestamoLoteDTO {
+    @NotNull(message = "El ID del usuario es obligatorio")
+    private Long usuarioId;
+    
+    @NotEmpty(message = "La lista de libros es obligatoria")
+    @Size(max = 100, message = "Un lote admite como máximo 100 libros")
+    private List<@NotNull(message = "Los IDs de libro no pueden ser nulos") Long> libroIds;
+}
@@ -0,0 +1,30 @@
+package com.biblioteca.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoImportacionDTO {
+    private long filasLeidas;
+    private long insertados;
+    private long rechazados;
+    private long duracionMs;
+    private double filasPorSegundo;
+
+    // Detalle de las primeras filas rechazadas
+    private List<FilaRechazada> filasRechazadas;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FilaRechazada {
+        private long linea;
+        private String isbn;
+        private String motivo;
+    }
+}
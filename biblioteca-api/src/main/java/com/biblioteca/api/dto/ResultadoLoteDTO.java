@@ -0,0 +1,26 @@
+package com.biblioteca.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoLoteDTO {
+    private int exitosos;
+    private int fallidos;
+    private List<Item> resultados;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Long libroId;
+        private boolean exito;
+        private String mensaje;
+        private PrestamoDTO prestamo;
+    }
+}
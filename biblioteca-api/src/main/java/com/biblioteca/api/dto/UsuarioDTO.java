@@ -26,4 +26,11 @@ public class UsuarioDTO {
     
     private LocalDate fechaRegistro;
     private PerfilDTO perfil;
+
+    // Constructor para las proyecciones JPQL: el perfil llega aplanado en la misma fila
+    public UsuarioDTO(Long id, String nombre, String email, String telefono, LocalDate fechaRegistro,
+                      Long perfilId, String direccion, String ciudad, String codigoPostal, String preferenciasLectura) {
+        this(id, nombre, email, telefono, fechaRegistro,
+                perfilId == null ? null : new PerfilDTO(perfilId, direccion, ciudad, codigoPostal, preferenciasLectura));
+    }
 }
@@ -0,0 +1,54 @@
+package com.biblioteca.api.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Evento pendiente de publicar a otros sistemas. Se inserta en la transacción del cambio que
+ * lo origina, así que sólo existe si el cambio se confirmó; se borra al publicarlo.
+ */
+@Entity
+@Table(name = "eventos_salida")
+@Data
+@NoArgsConstructor
+public class EventoSalida {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "eventos_salida_seq")
+    @SequenceGenerator(name = "eventos_salida_seq", sequenceName = "eventos_salida_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 40)
+    @Enumerated(EnumType.STRING)
+    private TipoEvento tipo;
+
+    // Id del préstamo o del libro al que se refiere el evento
+    @Column(name = "agregado_id", nullable = false)
+    private Long agregadoId;
+
+    // Contenido del evento en JSON
+    @Column(nullable = false, length = 1000)
+    private String datos;
+
+    @Column(nullable = false)
+    private Instant creado;
+
+    public EventoSalida(TipoEvento tipo, Long agregadoId, String datos) {
+        this.tipo = tipo;
+        this.agregadoId = agregadoId;
+        this.datos = datos;
+        this.creado = Instant.now();
+    }
+
+    public enum TipoEvento {
+        PRESTAMO_CREADO,
+        PRESTAMO_DEVUELTO,
+        PRESTAMO_ELIMINADO,
+        LIBRO_CREADO,
+        LIBRO_ACTUALIZADO,
+        LIBRO_ELIMINADO
+    }
+}
@@ -4,19 +4,25 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "libros")
 @Table(name = "libros")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Libro {
 
+    // Secuencia con reserva de bloques para que Hibernate pueda agrupar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "libros_seq")
+    @SequenceGenerator(name = "libros_seq", sequenceName = "libros_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -37,6 +43,10 @@ public class Libro {
     @Column(nullable = false)
     private Boolean disponible = true;
 
+    // Control de concurrencia optimista; los UPDATE condicionales de préstamo también lo incrementan
+    @Version
+    private Long version;
+
     // Relación 1:N con Préstamo
     @OneToMany(mappedBy = "libro", cascade = CascadeType.ALL)
     private List<Prestamo> prestamos = new ArrayList<>();
@@ -4,8 +4,12 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "perfiles")
 @Table(name = "perfiles")
 @Data
 @NoArgsConstructor
@@ -28,6 +32,9 @@ public class Perfil {
     @Column(name = "preferencias_lectura")
     private String preferenciasLectura;
 
+    @Version
+    private Long version;
+
     // Relación 1:1 con Usuario
     @OneToOne
     @JoinColumn(name = "usuario_id", nullable = false, unique = true)
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
@@ -14,13 +15,18 @@ import java.time.LocalDate;
 @AllArgsConstructor
 public class Prestamo {
 
+    // Secuencia con reserva de bloques para que Hibernate pueda agrupar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prestamos_seq")
+    @SequenceGenerator(name = "prestamos_seq", sequenceName = "prestamos_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "fecha_prestamo", nullable = false)
     private LocalDate fechaPrestamo;
 
+    @Column(name = "fecha_vencimiento", nullable = false)
+    private LocalDate fechaVencimiento;
+
     @Column(name = "fecha_devolucion")
     private LocalDate fechaDevolucion;
 
@@ -28,18 +34,27 @@ public class Prestamo {
     @Enumerated(EnumType.STRING)
     private EstadoPrestamo estado;
 
+    // Multa por retraso: la acumulada hasta la última revisión o, si ya se devolvió, la definitiva
+    @Column(precision = 10, scale = 2)
+    private BigDecimal multa;
+
+    @Version
+    private Long version;
+
     // Relación N:1 con Usuario
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false)
     private Usuario usuario;
 
     // Relación N:1 con Libro
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "libro_id", nullable = false)
     private Libro libro;
 
     public enum EstadoPrestamo {
         ACTIVO,
+        // Sin devolver pasada la fecha de vencimiento; lo marca la revisión de vencimientos
+        VENCIDO,
         DEVUELTO
     }
 }
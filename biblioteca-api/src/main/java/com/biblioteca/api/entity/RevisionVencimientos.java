@@ -0,0 +1,64 @@
+package com.biblioteca.api.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Punto de control de la revisión diaria de vencimientos. Se actualiza en la misma transacción
+ * que cada bloque de préstamos, así que una pasada interrumpida continúa donde se quedó.
+ */
+@Entity
+@Table(name = "revisiones_vencimiento")
+@Data
+@NoArgsConstructor
+public class RevisionVencimientos {
+
+    @Id
+    private String nombre;
+
+    // Día de la pasada en curso (o de la última terminada)
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    // Último préstamo revisado en la pasada
+    @Column(name = "ultimo_id", nullable = false)
+    private Long ultimoId;
+
+    @Column(nullable = false)
+    private long revisados;
+
+    @Column(nullable = false)
+    private long actualizados;
+
+    @Column(nullable = false)
+    private boolean completada;
+
+    @Column(nullable = false)
+    private LocalDateTime actualizada;
+
+    public void iniciar(LocalDate dia) {
+        fecha = dia;
+        ultimoId = 0L;
+        revisados = 0;
+        actualizados = 0;
+        completada = false;
+        actualizada = LocalDateTime.now();
+    }
+
+    public void avanzar(Long hastaId, int revisadosEnBloque, int actualizadosEnBloque, boolean ultimoBloque) {
+        if (hastaId != null) {
+            ultimoId = hastaId;
+        }
+        revisados += revisadosEnBloque;
+        actualizados += actualizadosEnBloque;
+        completada = ultimoBloque;
+        actualizada = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,25 @@
+package com.biblioteca.api.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contador de cambios de un catálogo. Se incrementa en la misma transacción que cada alta, baja
+ * o modificación, así que dos lecturas con la misma versión han visto el mismo catálogo.
+ */
+@Entity
+@Table(name = "versiones_catalogo")
+@Data
+@NoArgsConstructor
+public class VersionCatalogo {
+
+    @Id
+    private String nombre;
+
+    @Column(nullable = false)
+    private long version;
+}
@@ -0,0 +1,294 @@
+package com.biblioteca.api.estadisticas;
+
+import com.biblioteca.api.config.EstadisticasProperties;
+import com.biblioteca.api.dto.EstadisticaGeneroDTO;
+import com.biblioteca.api.dto.LibroMasPrestadoDTO;
+import com.biblioteca.api.estadisticas.PodioLibros.Puesto;
+import com.biblioteca.api.event.PrestamoCambiadoEvent;
+import com.biblioteca.api.repository.PrestamoRepository;
+import com.biblioteca.api.repository.PrestamoRepository.Agregado;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Contadores de préstamos en memoria: préstamos por libro (con el podio de los más
+ * prestados), préstamos y pendientes por género y pendientes por usuario.
+ *
+ * <p>Se calculan una vez al arrancar con consultas de agregación y después se mantienen con
+ * los eventos de {@code PrestamoService}, de modo que las estadísticas se responden sin
+ * recorrer el historial de préstamos. Los eventos de distintas peticiones se aplican a la vez
+ * (contadores LongAdder); sólo la sustitución completa excluye al resto. Periódicamente se
+ * recalculan desde la base de datos para corregir los cambios que no pasan por el servicio
+ * (el género de un libro que cambia, otras instancias de la aplicación).
+ */
+@Slf4j
+@Component
+public class EstadisticasPrestamos implements MeterBinder {
+
+    private final PrestamoRepository prestamoRepository;
+    private final EstadisticasProperties properties;
+
+    private Map<Long, LongAdder> prestamosPorLibro = new ConcurrentHashMap<>();
+    private Map<String, Contadores> porGenero = new ConcurrentHashMap<>();
+    private Map<Long, LongAdder> pendientesPorUsuario = new ConcurrentHashMap<>();
+    private PodioLibros podio;
+    // Se incrementa con cada cambio aplicado; permite saber si hubo cambios durante una verificación
+    private final LongAdder modificaciones = new LongAdder();
+    private long discrepancias;
+    private volatile boolean listo;
+    // Lectura para aplicar eventos (concurrentes entre sí), escritura para sustituirlo todo
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public EstadisticasPrestamos(PrestamoRepository prestamoRepository, EstadisticasProperties properties) {
+        this.prestamoRepository = prestamoRepository;
+        this.properties = properties;
+        this.podio = new PodioLibros(properties.getTamanoPodio());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    // De la principal, como los índices del catálogo: los eventos posteriores se suman a esta lectura
+    @Transactional
+    public void construir() {
+        if (!properties.isHabilitadas()) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        Instantanea instantanea = leerBaseDeDatos();
+        lock.writeLock().lock();
+        try {
+            reemplazar(instantanea);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        listo = true;
+        log.info("Estadísticas de préstamos calculadas para {} libros, {} géneros y {} usuarios en {} ms",
+                instantanea.prestamosPorLibro().size(), instantanea.porGenero().size(),
+                instantanea.pendientesPorUsuario().size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Recalcula los contadores desde la base de datos y los sustituye si no coinciden. Si
+     * mientras se leía llegó algún cambio, la comparación no sería fiable y se deja para la
+     * siguiente vez.
+     */
+    @Scheduled(fixedDelayString = "${biblioteca.estadisticas.intervalo-verificacion:PT10M}",
+            initialDelayString = "${biblioteca.estadisticas.intervalo-verificacion:PT10M}")
+    @Transactional
+    public void verificar() {
+        if (!listo) {
+            return;
+        }
+        long modificacionesAntes = modificaciones.sum();
+        Instantanea instantanea = leerBaseDeDatos();
+
+        lock.writeLock().lock();
+        try {
+            if (modificaciones.sum() != modificacionesAntes) {
+                log.debug("Verificación de las estadísticas de préstamos aplazada: hubo cambios durante la lectura");
+                return;
+            }
+            long diferencias = diferencias(instantanea);
+            if (diferencias > 0) {
+                discrepancias += diferencias;
+                log.warn("Las estadísticas de préstamos diferían de la base de datos en {} contadores; se recalculan",
+                        diferencias);
+                reemplazar(instantanea);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarPrestamo(PrestamoCambiadoEvent evento) {
+        lock.readLock().lock();
+        try {
+            if (evento.prestamos() != 0) {
+                LongAdder prestamos = prestamosPorLibro.computeIfAbsent(evento.libroId(), id -> new LongAdder());
+                prestamos.add(evento.prestamos());
+                podio.actualizar(evento.libroId(), prestamos.sum());
+            }
+            Contadores genero = porGenero.computeIfAbsent(evento.genero(), g -> new Contadores());
+            genero.prestamos.add(evento.prestamos());
+            genero.pendientes.add(evento.pendientes());
+            if (evento.pendientes() != 0) {
+                pendientesPorUsuario.computeIfAbsent(evento.usuarioId(), id -> new LongAdder()).add(evento.pendientes());
+            }
+            modificaciones.increment();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indica si las estadísticas pueden responderse desde memoria; mientras no se hayan
+     * calculado (o si están deshabilitadas) deben consultarse a la base de datos.
+     */
+    public boolean listo() {
+        return listo;
+    }
+
+    // Como mucho tamanoPodio libros, de más a menos préstamos (a igualdad, por id); sin el título
+    public List<LibroMasPrestadoDTO> masPrestados(int limite) {
+        lock.readLock().lock();
+        try {
+            List<LibroMasPrestadoDTO> resultado = new ArrayList<>(limite);
+            for (Puesto puesto : podio.mejores(limite, prestamosPorLibro)) {
+                resultado.add(new LibroMasPrestadoDTO(puesto.libroId(), null, puesto.prestamos()));
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Préstamos y pendientes por género, ordenados por nombre de género
+    public List<EstadisticaGeneroDTO> porGenero() {
+        lock.readLock().lock();
+        try {
+            List<EstadisticaGeneroDTO> resultado = new ArrayList<>(porGenero.size());
+            porGenero.forEach((genero, contadores) -> {
+                long prestamos = contadores.prestamos.sum();
+                if (prestamos > 0) {
+                    resultado.add(new EstadisticaGeneroDTO(genero, prestamos, contadores.pendientes.sum()));
+                }
+            });
+            resultado.sort(Comparator.comparing(EstadisticaGeneroDTO::getGenero));
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long pendientesDeUsuario(Long usuarioId) {
+        lock.readLock().lock();
+        try {
+            LongAdder pendientes = pendientesPorUsuario.get(usuarioId);
+            return pendientes == null ? 0 : pendientes.sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tamanoPodio() {
+        return properties.getTamanoPodio();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("biblioteca.estadisticas.discrepancias", this, EstadisticasPrestamos::discrepancias)
+                .description("Contadores de las estadísticas de préstamos corregidos al compararlos con la base de datos")
+                .register(registry);
+    }
+
+    // Contadores corregidos por las verificaciones desde el arranque
+    private long discrepancias() {
+        lock.readLock().lock();
+        try {
+            return discrepancias;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Instantanea leerBaseDeDatos() {
+        Map<Long, Long> prestamosPorLibroBd = new HashMap<>();
+        try (Stream<Agregado<Long>> agregados = prestamoRepository.streamPrestamosPorLibro()) {
+            agregados.forEach(agregado -> prestamosPorLibroBd.put(agregado.getClave(), agregado.getPrestamos()));
+        }
+        Map<String, long[]> porGeneroBd = new HashMap<>();
+        for (Agregado<String> agregado : prestamoRepository.findPrestamosPorGenero()) {
+            porGeneroBd.put(agregado.getClave(), new long[]{agregado.getPrestamos(), agregado.getPendientes()});
+        }
+        Map<Long, Long> pendientesPorUsuarioBd = new HashMap<>();
+        try (Stream<Agregado<Long>> agregados = prestamoRepository.streamPendientesPorUsuario()) {
+            agregados.forEach(agregado -> pendientesPorUsuarioBd.put(agregado.getClave(), agregado.getPendientes()));
+        }
+        return new Instantanea(prestamosPorLibroBd, porGeneroBd, pendientesPorUsuarioBd);
+    }
+
+    // Número de contadores que no coinciden; los que faltan en un lado cuentan como cero
+    private long diferencias(Instantanea instantanea) {
+        long total = diferencias(prestamosPorLibro, instantanea.prestamosPorLibro())
+                + diferencias(pendientesPorUsuario, instantanea.pendientesPorUsuario());
+        Set<String> generos = new HashSet<>(porGenero.keySet());
+        generos.addAll(instantanea.porGenero().keySet());
+        for (String genero : generos) {
+            Contadores enMemoria = porGenero.get(genero);
+            long[] enBd = instantanea.porGenero().getOrDefault(genero, new long[2]);
+            long prestamos = enMemoria == null ? 0 : enMemoria.prestamos.sum();
+            long pendientes = enMemoria == null ? 0 : enMemoria.pendientes.sum();
+            total += (prestamos != enBd[0] ? 1 : 0) + (pendientes != enBd[1] ? 1 : 0);
+        }
+        return total;
+    }
+
+    private static long diferencias(Map<Long, LongAdder> enMemoria, Map<Long, Long> enBd) {
+        Set<Long> claves = new HashSet<>(enMemoria.keySet());
+        claves.addAll(enBd.keySet());
+        long total = 0;
+        for (Long clave : claves) {
+            LongAdder contador = enMemoria.get(clave);
+            if ((contador == null ? 0 : contador.sum()) != enBd.getOrDefault(clave, 0L)) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    private void reemplazar(Instantanea instantanea) {
+        prestamosPorLibro = aContadores(instantanea.prestamosPorLibro());
+        pendientesPorUsuario = aContadores(instantanea.pendientesPorUsuario());
+        Map<String, Contadores> porGeneroNuevo = new ConcurrentHashMap<>();
+        instantanea.porGenero().forEach((genero, valores) -> {
+            Contadores contadores = new Contadores();
+            contadores.prestamos.add(valores[0]);
+            contadores.pendientes.add(valores[1]);
+            porGeneroNuevo.put(genero, contadores);
+        });
+        porGenero = porGeneroNuevo;
+        podio = new PodioLibros(properties.getTamanoPodio());
+        podio.recalcular(prestamosPorLibro);
+        modificaciones.increment();
+    }
+
+    private static Map<Long, LongAdder> aContadores(Map<Long, Long> valores) {
+        Map<Long, LongAdder> contadores = new ConcurrentHashMap<>(Math.max(16, valores.size() * 4 / 3 + 1));
+        valores.forEach((clave, valor) -> {
+            LongAdder contador = new LongAdder();
+            contador.add(valor);
+            contadores.put(clave, contador);
+        });
+        return contadores;
+    }
+
+    private static final class Contadores {
+        private final LongAdder prestamos = new LongAdder();
+        private final LongAdder pendientes = new LongAdder();
+    }
+
+    private record Instantanea(Map<Long, Long> prestamosPorLibro, Map<String, long[]> porGenero,
+                               Map<Long, Long> pendientesPorUsuario) {
+    }
+}
@@ -0,0 +1,84 @@
+package com.biblioteca.api.estadisticas;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Los K libros con más préstamos, ordenados. Sólo se bloquea cuando un libro entra en el
+ * podio o ya está en él: el resto de incrementos se descartan comparando con el umbral (los
+ * préstamos del último del podio) sin sincronización.
+ *
+ * <p>Si un libro del podio pierde préstamos (se elimina alguno), otro de fuera podría haberlo
+ * superado; el podio se marca como incompleto y se recalcula con todos los contadores en la
+ * siguiente lectura.
+ */
+class PodioLibros {
+
+    private static final Comparator<Puesto> ORDEN =
+            Comparator.comparingLong(Puesto::prestamos).reversed().thenComparing(Puesto::libroId);
+
+    private final int capacidad;
+    private final TreeSet<Puesto> puestos = new TreeSet<>(ORDEN);
+    private final Map<Long, Puesto> porLibro = new ConcurrentHashMap<>();
+    // Préstamos del último puesto con el podio lleno; 0 mientras queden huecos
+    private volatile long umbral;
+    private boolean incompleto;
+
+    PodioLibros(int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    void actualizar(Long libroId, long prestamos) {
+        if (prestamos < umbral && !porLibro.containsKey(libroId)) {
+            return;
+        }
+        synchronized (this) {
+            Puesto anterior = porLibro.remove(libroId);
+            if (anterior != null) {
+                puestos.remove(anterior);
+                if (prestamos < anterior.prestamos()) {
+                    incompleto = true;
+                }
+            }
+            if (prestamos > 0) {
+                Puesto puesto = new Puesto(libroId, prestamos);
+                puestos.add(puesto);
+                porLibro.put(libroId, puesto);
+                if (puestos.size() > capacidad) {
+                    porLibro.remove(puestos.pollLast().libroId());
+                }
+            }
+            umbral = puestos.size() < capacidad ? 0 : puestos.last().prestamos();
+        }
+    }
+
+    synchronized List<Puesto> mejores(int limite, Map<Long, LongAdder> prestamosPorLibro) {
+        if (incompleto) {
+            recalcular(prestamosPorLibro);
+        }
+        List<Puesto> resultado = new ArrayList<>(Math.min(limite, puestos.size()));
+        for (Puesto puesto : puestos) {
+            if (resultado.size() == limite) {
+                break;
+            }
+            resultado.add(puesto);
+        }
+        return resultado;
+    }
+
+    synchronized void recalcular(Map<Long, LongAdder> prestamosPorLibro) {
+        puestos.clear();
+        porLibro.clear();
+        umbral = 0;
+        incompleto = false;
+        prestamosPorLibro.forEach((libroId, prestamos) -> actualizar(libroId, prestamos.sum()));
+    }
+
+    record Puesto(Long libroId, long prestamos) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.biblioteca.api.event;
+
+/**
+ * Se publica cuando un préstamo o una devolución cambia la disponibilidad de un libro.
+ */
+public record DisponibilidadCambiadaEvent(Long libroId, String genero, boolean disponible) {
+}
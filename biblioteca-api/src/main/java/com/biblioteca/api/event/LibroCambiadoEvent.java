@@ -0,0 +1,14 @@
+package com.biblioteca.api.event;
+
+import com.biblioteca.api.dto.LibroDTO;
+
+/**
+ * Se publica cuando se crea, modifica o elimina un libro desde el catálogo.
+ * En una creación {@code anterior} es null; en una eliminación sólo se informa el id.
+ */
+public record LibroCambiadoEvent(Long libroId, LibroDTO anterior, LibroDTO actual) {
+
+    public boolean esEliminacion() {
+        return actual == null;
+    }
+}
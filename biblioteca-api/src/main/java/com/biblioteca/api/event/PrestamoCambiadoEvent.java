@@ -0,0 +1,20 @@
+package com.biblioteca.api.event;
+
+/**
+ * Se publica cuando se crea, devuelve o elimina un préstamo, con la variación que supone en
+ * los préstamos del libro y en los pendientes de devolución (activos o vencidos).
+ */
+public record PrestamoCambiadoEvent(Long libroId, Long usuarioId, String genero, int prestamos, int pendientes) {
+
+    public static PrestamoCambiadoEvent creado(Long libroId, Long usuarioId, String genero) {
+        return new PrestamoCambiadoEvent(libroId, usuarioId, genero, 1, 1);
+    }
+
+    public static PrestamoCambiadoEvent devuelto(Long libroId, Long usuarioId, String genero) {
+        return new PrestamoCambiadoEvent(libroId, usuarioId, genero, 0, -1);
+    }
+
+    public static PrestamoCambiadoEvent eliminado(Long libroId, Long usuarioId, String genero, boolean pendiente) {
+        return new PrestamoCambiadoEvent(libroId, usuarioId, genero, -1, pendiente ? -1 : 0);
+    }
+}
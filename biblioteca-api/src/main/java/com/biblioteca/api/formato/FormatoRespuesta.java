@@ -0,0 +1,50 @@
+package com.biblioteca.api.formato;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.MediaType;
+
+/**
+ * Formatos en los que se pueden servir las respuestas. JSON es el formato por defecto; CBOR y
+ * Smile son codificaciones binarias del mismo modelo de Jackson, más compactas y baratas de
+ * generar y leer para los consumidores de listados grandes.
+ */
+public enum FormatoRespuesta {
+
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.parseMediaType("application/cbor")),
+    SMILE(MediaType.parseMediaType("application/x-jackson-smile"));
+
+    private final MediaType tipo;
+
+    FormatoRespuesta(MediaType tipo) {
+        this.tipo = tipo;
+    }
+
+    public MediaType tipo() {
+        return tipo;
+    }
+
+    // Copia del ObjectMapper de la aplicación (módulos y opciones incluidos) para este formato
+    public ObjectMapper mapper(ObjectMapper base) {
+        return switch (this) {
+            case JSON -> base;
+            case CBOR -> base.copyWith(new CBORFactory());
+            case SMILE -> base.copyWith(new SmileFactory());
+        };
+    }
+
+    // Un ETag fuerte identifica bytes concretos: cada formato binario lleva el suyo
+    String etag(String etag) {
+        if (this == JSON) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + name().toLowerCase() + "\"";
+    }
+
+    // Clave de la caché de respuestas; la de JSON no lleva sufijo
+    public String clave(String clave) {
+        return this == JSON ? clave : clave + "#" + name().toLowerCase();
+    }
+}
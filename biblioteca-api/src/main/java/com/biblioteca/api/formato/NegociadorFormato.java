@@ -0,0 +1,53 @@
+package com.biblioteca.api.formato;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.NativeWebRequest;
+
+/**
+ * Elige el formato de respuesta a partir de la cabecera Accept, con las mismas reglas de
+ * preferencia que Spring MVC. Lo usan los endpoints que necesitan conocer el formato antes de
+ * serializar: los que sirven bytes desde la caché y los que calculan un ETag.
+ */
+@Component
+public class NegociadorFormato {
+
+    private final ContentNegotiationManager contentNegotiationManager;
+    private final boolean compresion;
+
+    public NegociadorFormato(ContentNegotiationManager contentNegotiationManager,
+                             @Value("${server.compression.enabled:false}") boolean compresion) {
+        this.contentNegotiationManager = contentNegotiationManager;
+        this.compresion = compresion;
+    }
+
+    public FormatoRespuesta resolver(NativeWebRequest request) {
+        try {
+            // Ya vienen ordenados por calidad y especificidad
+            for (MediaType aceptado : contentNegotiationManager.resolveMediaTypes(request)) {
+                for (FormatoRespuesta formato : FormatoRespuesta.values()) {
+                    if (aceptado.isCompatibleWith(formato.tipo())) {
+                        return formato;
+                    }
+                }
+            }
+        } catch (HttpMediaTypeNotAcceptableException e) {
+            // Cabecera Accept mal formada: se responde en el formato por defecto
+        }
+        return FormatoRespuesta.JSON;
+    }
+
+    /**
+     * ETag de la representación en el formato indicado. Tomcat no comprime respuestas con un
+     * ETag fuerte (la versión comprimida son otros bytes), así que con la compresión activa el
+     * de JSON se marca como débil: identifica el mismo contenido con o sin gzip, y If-None-Match
+     * compara los ETags de forma débil.
+     */
+    public String etag(FormatoRespuesta formato, String etag) {
+        String etagFormato = formato.etag(etag);
+        return compresion && formato == FormatoRespuesta.JSON ? "W/" + etagFormato : etagFormato;
+    }
+}
@@ -0,0 +1,45 @@
+package com.biblioteca.api.limite;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Peticiones simultáneas de un tipo: las que no consiguen sitio en la espera máxima se rechazan
+class Compartimento {
+
+    private final int capacidad;
+    private final Semaphore permisos;
+    private final long esperaMaximaNanos;
+    private final LongAdder rechazos = new LongAdder();
+
+    Compartimento(int capacidad, Duration esperaMaxima) {
+        this.capacidad = capacidad;
+        this.permisos = new Semaphore(capacidad, true);
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+    }
+
+    boolean entrar() {
+        try {
+            if (permisos.tryAcquire(esperaMaximaNanos, TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rechazos.increment();
+        return false;
+    }
+
+    void salir() {
+        permisos.release();
+    }
+
+    int enUso() {
+        return capacidad - permisos.availablePermits();
+    }
+
+    long rechazos() {
+        return rechazos.sum();
+    }
+}
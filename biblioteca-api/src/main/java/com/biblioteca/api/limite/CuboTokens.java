@@ -0,0 +1,39 @@
+package com.biblioteca.api.limite;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cubo de tokens sin bloqueos: en lugar de contar tokens guarda el instante en que el cubo
+ * volverá a estar lleno ("llegada teórica", GCRA) y lo avanza con compareAndSet. Equivale a un
+ * cubo de {@code rafaga} tokens que se rellena a {@code porSegundo}.
+ */
+class CuboTokens {
+
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    private final AtomicLong llegadaTeorica;
+
+    CuboTokens(double porSegundo, int rafaga, long ahora) {
+        this.intervaloNanos = (long) (1_000_000_000L / porSegundo);
+        this.toleranciaNanos = intervaloNanos * (rafaga - 1);
+        this.llegadaTeorica = new AtomicLong(ahora);
+    }
+
+    /**
+     * Consume un token si lo hay. Devuelve 0 si la petición se admite o, si no, los
+     * nanosegundos que faltan para que haya uno.
+     */
+    long consumir(long ahora) {
+        while (true) {
+            long actual = llegadaTeorica.get();
+            long base = actual - ahora > 0 ? actual : ahora;
+            long espera = base - ahora - toleranciaNanos;
+            if (espera > 0) {
+                return espera;
+            }
+            if (llegadaTeorica.compareAndSet(actual, base + intervaloNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.biblioteca.api.limite;
+
+import com.biblioteca.api.exception.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aplica los límites de {@link LimitadorTrafico} antes de que la petición llegue a los
+ * controladores: primero el cubo de tokens del cliente y después el compartimento de
+ * lecturas o escrituras. Lo que se rechaza recibe un 429 con Retry-After.
+ *
+ * <p>El cliente es la clave de API si es una de las configuradas y, si no, la dirección IP. Detrás
+ * del balanceador, esa dirección es la del cliente sólo porque el servidor toma X-Forwarded-For de
+ * los proxies de confianza ({@code server.forward-headers-strategy}); sin eso todas las peticiones
+ * compartirían el cubo del balanceador.
+ */
+public class FiltroLimiteTrafico extends OncePerRequestFilter {
+
+    private final LimitadorTrafico limitador;
+    private final ObjectMapper objectMapper;
+    private final String cabeceraClave;
+    private final Set<String> clavesConocidas;
+
+    public FiltroLimiteTrafico(LimitadorTrafico limitador, ObjectMapper objectMapper, String cabeceraClave,
+                               Set<String> clavesConocidas) {
+        this.limitador = limitador;
+        this.objectMapper = objectMapper;
+        this.cabeceraClave = cabeceraClave;
+        this.clavesConocidas = clavesConocidas;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // La misma ruta con la que enruta Spring MVC: decodificada, sin parámetros ";..." ni barras repetidas
+        String ruta = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        long espera = limitador.consumir(request.getMethod(), ruta, cliente(request));
+        if (espera > 0) {
+            rechazar(response, espera, "Demasiadas peticiones: se ha superado el límite de este cliente");
+            return;
+        }
+
+        // En las peticiones asíncronas (exportaciones, SSE) el sitio se libera al acabar el primer despacho
+        Compartimento compartimento = limitador.compartimento(request.getMethod());
+        if (!compartimento.entrar()) {
+            rechazar(response, TimeUnit.SECONDS.toNanos(1), "Servidor ocupado: demasiadas peticiones simultáneas");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            compartimento.salir();
+        }
+    }
+
+    private String cliente(HttpServletRequest request) {
+        String clave = request.getHeader(cabeceraClave);
+        return clave != null && clavesConocidas.contains(clave) ? "clave:" + clave : "ip:" + request.getRemoteAddr();
+    }
+
+    private void rechazar(HttpServletResponse response, long esperaNanos, String mensaje) throws IOException {
+        // Retry-After sólo admite segundos enteros: se redondea hacia arriba
+        long segundos = Math.max(1, (esperaNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(segundos));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse(HttpStatus.TOO_MANY_REQUESTS.value(), mensaje, LocalDateTime.now()));
+    }
+}
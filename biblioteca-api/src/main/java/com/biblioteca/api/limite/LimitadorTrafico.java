@@ -0,0 +1,131 @@
+package com.biblioteca.api.limite;
+
+import com.biblioteca.api.config.LimiteTraficoProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Límites de tráfico de la API: un cubo de tokens por cliente en cada grupo de endpoints y
+ * dos compartimentos de concurrencia, uno para lecturas y otro para escrituras.
+ *
+ * <p>Los cubos de cada grupo se guardan en una caché Caffeine acotada por número de clientes
+ * y que olvida a los inactivos, así que un barrido de claves o direcciones no agota la memoria.
+ */
+@Component
+public class LimitadorTrafico implements MeterBinder {
+
+    public static final String LECTURAS = "lecturas";
+    public static final String ESCRITURAS = "escrituras";
+
+    private static final Set<String> METODOS_LECTURA = Set.of("GET", "HEAD", "OPTIONS");
+    private static final AntPathMatcher RUTAS = new AntPathMatcher();
+
+    private final List<Grupo> grupos = new ArrayList<>();
+    private final Compartimento lecturas;
+    private final Compartimento escrituras;
+
+    public LimitadorTrafico(LimiteTraficoProperties properties) {
+        properties.getGrupos().forEach((nombre, grupo) -> grupos.add(new Grupo(nombre, grupo, properties)));
+        this.lecturas = new Compartimento(properties.getLecturasSimultaneas(), properties.getEsperaMaxima());
+        this.escrituras = new Compartimento(properties.getEscriturasSimultaneas(), properties.getEsperaMaxima());
+    }
+
+    /**
+     * Consume un token del cliente en el primer grupo que coincide con la petición. Devuelve 0
+     * si se admite (o si no la limita ningún grupo) y, si no, los nanosegundos hasta el siguiente token.
+     */
+    long consumir(String metodo, String ruta, String cliente) {
+        for (Grupo grupo : grupos) {
+            if (grupo.coincide(metodo, ruta)) {
+                return grupo.consumir(cliente);
+            }
+        }
+        return 0;
+    }
+
+    Compartimento compartimento(String metodo) {
+        return METODOS_LECTURA.contains(metodo) ? lecturas : escrituras;
+    }
+
+    // Rechazos con 429: por la tasa de cada grupo de endpoints o por falta de sitio en un compartimento
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Grupo grupo : grupos) {
+            FunctionCounter.builder("biblioteca.limite.rechazos", grupo.rechazos, LongAdder::sum)
+                    .description("Peticiones rechazadas por los límites de tráfico")
+                    .tags("motivo", "tasa", "grupo", grupo.nombre)
+                    .register(registry);
+        }
+        registrarCompartimento(registry, LECTURAS, lecturas);
+        registrarCompartimento(registry, ESCRITURAS, escrituras);
+    }
+
+    private static void registrarCompartimento(MeterRegistry registry, String nombre, Compartimento compartimento) {
+        FunctionCounter.builder("biblioteca.limite.rechazos", compartimento, Compartimento::rechazos)
+                .description("Peticiones rechazadas por los límites de tráfico")
+                .tags("motivo", "concurrencia", "grupo", nombre)
+                .register(registry);
+        Gauge.builder("biblioteca.limite.en.curso", compartimento, Compartimento::enUso)
+                .description("Peticiones en curso en cada compartimento")
+                .tag("compartimento", nombre)
+                .register(registry);
+    }
+
+    private static final class Grupo {
+
+        private final String nombre;
+        private final Set<String> metodos;
+        private final List<String> rutas;
+        private final double porSegundo;
+        private final int rafaga;
+        private final Cache<String, CuboTokens> cubos;
+        private final LongAdder rechazos = new LongAdder();
+
+        private Grupo(String nombre, LimiteTraficoProperties.Grupo grupo, LimiteTraficoProperties properties) {
+            this.nombre = nombre;
+            this.metodos = grupo.getMetodos().stream()
+                    .map(metodo -> metodo.trim().toUpperCase(Locale.ROOT)).collect(Collectors.toSet());
+            this.rutas = List.copyOf(grupo.getRutas());
+            this.porSegundo = grupo.getPorSegundo();
+            this.rafaga = grupo.getRafaga();
+            this.cubos = Caffeine.newBuilder()
+                    .maximumSize(properties.getClientesMaximos())
+                    .expireAfterAccess(properties.getInactividad())
+                    .build();
+        }
+
+        private boolean coincide(String metodo, String ruta) {
+            if (!metodos.isEmpty() && !metodos.contains(metodo)) {
+                return false;
+            }
+            for (String patron : rutas) {
+                if (RUTAS.match(patron, ruta)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private long consumir(String cliente) {
+            long ahora = System.nanoTime();
+            long espera = cubos.get(cliente, clave -> new CuboTokens(porSegundo, rafaga, ahora)).consumir(ahora);
+            if (espera > 0) {
+                rechazos.increment();
+            }
+            return espera;
+        }
+    }
+}
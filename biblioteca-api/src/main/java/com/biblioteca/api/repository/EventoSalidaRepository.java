@@ -0,0 +1,24 @@
+package com.biblioteca.api.repository;
+
+import com.biblioteca.api.entity.EventoSalida;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EventoSalidaRepository extends JpaRepository<EventoSalida, Long> {
+
+    // Reserva los eventos más antiguos hasta el final de la transacción. Las filas que ya ha
+    // reservado otra instancia se saltan en lugar de esperar a que las libere
+    @Query(value = "select * from eventos_salida order by id limit :limite for update skip locked", nativeQuery = true)
+    List<EventoSalida> reservarPendientes(@Param("limite") int limite);
+
+    @Modifying
+    @Query("delete from EventoSalida e where e.id in :ids")
+    int borrarPublicados(@Param("ids") Collection<Long> ids);
+}
@@ -1,17 +1,112 @@
 package com.biblioteca.api.repository;
 
+import com.biblioteca.api.dto.LibroDTO;
 import com.biblioteca.api.entity.Libro;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface LibroRepository extends JpaRepository<Libro, Long> {
+
+    // Proyección directa a LibroDTO para las lecturas de listas: sin entidades gestionadas
+    String SELECT_LIBRO_DTO = "select new com.biblioteca.api.dto.LibroDTO("
+            + "l.id, l.titulo, l.isbn, l.autor, l.anioPublicacion, l.genero, l.disponible) "
+            + "from Libro l ";
+
+    @Query(SELECT_LIBRO_DTO + "order by l.id")
+    List<LibroDTO> findAllDTO();
+
+    // Paginación por cursor (keyset) sobre el id
+    @Query(SELECT_LIBRO_DTO + "where l.id > :id order by l.id")
+    List<LibroDTO> findDTOByIdGreaterThan(@Param("id") Long id, Limit limit);
+
+    @Query(SELECT_LIBRO_DTO + "where l.id in :ids")
+    List<LibroDTO> findDTOByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Resultados en la caché de consultas; se invalidan al modificarse la tabla libros
+    @Query(SELECT_LIBRO_DTO + "where l.disponible = :disponible order by l.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<LibroDTO> findDTOByDisponible(@Param("disponible") Boolean disponible);
+
+    @Query(SELECT_LIBRO_DTO + "where l.genero = :genero order by l.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<LibroDTO> findDTOByGenero(@Param("genero") String genero);
+
     List<Libro> findByDisponible(Boolean disponible);
     List<Libro> findByGenero(String genero);
     List<Libro> findByAutor(String autor);
     Optional<Libro> findByIsbn(String isbn);
     boolean existsByIsbn(String isbn);
+
+    // Texto indexable de todo el catálogo, para construir el índice de búsqueda
+    @Query("select l.id as id, l.titulo as titulo, l.autor as autor from Libro l")
+    Stream<TextoLibro> streamTextos();
+
+    // Disponibilidad y género de todo el catálogo, para construir el índice de filtros
+    @Query("select l.id as id, l.genero as genero, l.disponible as disponible from Libro l")
+    Stream<FiltroLibro> streamFiltros();
+
+    // Versiones para las peticiones condicionales (ETag)
+    @Query("select l.version from Libro l where l.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // ISBN ya registrados de entre los indicados (importación masiva)
+    @Query("select l.isbn from Libro l where l.isbn in :isbns")
+    Set<String> findIsbnsExistentes(@Param("isbns") Collection<String> isbns);
+
+    // Estado de varios libros en una sola consulta (préstamo en lote). Bloquea las filas hasta el
+    // final de la transacción para que ningún préstamo simultáneo se lleve un libro antes del UPDATE;
+    // en orden de id, para que dos lotes con libros en común no se bloqueen mutuamente
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l.id as id, l.titulo as titulo, l.genero as genero, l.disponible as disponible "
+            + "from Libro l where l.id in :ids order by l.id")
+    List<EstadoLibro> findEstadosParaPrestar(@Param("ids") Collection<Long> ids);
+
+    // Cambios de disponibilidad atómicos: sólo afectan a la fila si sigue en el estado esperado,
+    // así que de dos peticiones simultáneas sólo una obtiene 1 como resultado
+    @Modifying
+    @Query("update Libro l set l.disponible = false, l.version = l.version + 1 where l.id = :id and l.disponible = true")
+    int marcarComoPrestado(@Param("id") Long id);
+
+    @Modifying
+    @Query("update Libro l set l.disponible = true, l.version = l.version + 1 where l.id = :id and l.disponible = false")
+    int marcarComoDisponible(@Param("id") Long id);
+
+    @Modifying
+    @Query("update Libro l set l.disponible = false, l.version = l.version + 1 where l.id in :ids and l.disponible = true")
+    int marcarComoPrestados(@Param("ids") Collection<Long> ids);
+
+    interface TextoLibro {
+        Long getId();
+        String getTitulo();
+        String getAutor();
+    }
+
+    interface FiltroLibro {
+        Long getId();
+        String getGenero();
+        Boolean getDisponible();
+    }
+
+    interface EstadoLibro {
+        Long getId();
+        String getTitulo();
+        String getGenero();
+        Boolean getDisponible();
+    }
 }
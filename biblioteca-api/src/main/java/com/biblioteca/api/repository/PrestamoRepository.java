@@ -1,16 +1,120 @@
 package com.biblioteca.api.repository;
 
+import com.biblioteca.api.dto.PrestamoDTO;
 import com.biblioteca.api.entity.Prestamo;
 import com.biblioteca.api.entity.Prestamo.EstadoPrestamo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PrestamoRepository extends JpaRepository<Prestamo, Long> {
-    List<Prestamo> findByUsuarioId(Long usuarioId);
-    List<Prestamo> findByLibroId(Long libroId);
+
+    int TAMANO_BLOQUE_EXPORTACION = 500;
+
+    // Proyección directa a PrestamoDTO: préstamo, usuario y libro en una sola consulta
+    String SELECT_PRESTAMO_DTO = "select new com.biblioteca.api.dto.PrestamoDTO("
+            + "p.id, p.fechaPrestamo, p.fechaVencimiento, p.fechaDevolucion, p.estado, p.multa, "
+            + "u.id, l.id, u.nombre, l.titulo) "
+            + "from Prestamo p join p.usuario u join p.libro l ";
+
+    // Filtros sobre las claves ajenas escritos a mano: las consultas derivadas (findByUsuarioId...)
+    // hacen un join con la tabla relacionada y el filtro deja de usar los índices de prestamos
+    @Query("select p from Prestamo p where p.usuario.id = :usuarioId")
+    List<Prestamo> findByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query("select p from Prestamo p where p.libro.id = :libroId")
+    List<Prestamo> findByLibroId(@Param("libroId") Long libroId);
+
     List<Prestamo> findByEstado(EstadoPrestamo estado);
-    List<Prestamo> findByUsuarioIdAndEstado(Long usuarioId, EstadoPrestamo estado);
+
+    @Query("select p from Prestamo p where p.usuario.id = :usuarioId and p.estado = :estado")
+    List<Prestamo> findByUsuarioIdAndEstado(@Param("usuarioId") Long usuarioId, @Param("estado") EstadoPrestamo estado);
+
+    @Query(SELECT_PRESTAMO_DTO + "order by p.id")
+    List<PrestamoDTO> findAllDTO();
+
+    @Query(SELECT_PRESTAMO_DTO + "where p.id = :id")
+    Optional<PrestamoDTO> findDTOById(@Param("id") Long id);
+
+    @Query(SELECT_PRESTAMO_DTO + "where u.id = :usuarioId and p.estado = :estado order by p.id")
+    List<PrestamoDTO> findDTOByUsuarioIdAndEstado(@Param("usuarioId") Long usuarioId,
+                                                  @Param("estado") EstadoPrestamo estado);
+
+    // Préstamos sin devolver (activos o vencidos) de un usuario. Los estados van como literales
+    // para que PostgreSQL pueda usar el índice parcial de préstamos pendientes
+    @Query(SELECT_PRESTAMO_DTO + "where u.id = :usuarioId and p.estado in (ACTIVO, VENCIDO) order by p.id")
+    List<PrestamoDTO> findDTOPendientesByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    // Paginación por cursor (keyset) sobre el id
+    @Query(SELECT_PRESTAMO_DTO + "where p.id > :id order by p.id")
+    List<PrestamoDTO> findDTOByIdGreaterThan(@Param("id") Long id, Limit limit);
+
+    // Recorrido completo para exportación: se lee en bloques del tamaño del fetch size y,
+    // al ser una proyección, no se acumulan entidades en el contexto de persistencia
+    @Query(SELECT_PRESTAMO_DTO + "order by p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + TAMANO_BLOQUE_EXPORTACION))
+    Stream<PrestamoDTO> streamDTO();
+
+    // Revisión de vencimientos: siguiente bloque de préstamos pendientes ya vencidos, en orden de id
+    @Query("select p.id as id, p.fechaVencimiento as fechaVencimiento, p.estado as estado, p.multa as multa "
+            + "from Prestamo p where p.id > :despuesDe and p.estado in (ACTIVO, VENCIDO) "
+            + "and p.fechaVencimiento < :hoy order by p.id")
+    List<PrestamoVencido> findVencidosDespuesDe(@Param("despuesDe") Long despuesDe, @Param("hoy") LocalDate hoy,
+                                                Limit limit);
+
+    // Sin tocar la versión: es un dato derivado de la fecha, y una devolución simultánea debe
+    // confirmarse igualmente (la condición sobre el estado evita pisarla)
+    @Modifying
+    @Query("update Prestamo p set p.estado = VENCIDO, p.multa = :multa where p.id in :ids and p.estado <> DEVUELTO")
+    int marcarComoVencidos(@Param("ids") Collection<Long> ids, @Param("multa") BigDecimal multa);
+
+    // Estadísticas: agregados completos para construir y verificar los contadores en memoria,
+    // y para responder mientras todavía no están construidos
+
+    @Query("select p.libro.id as clave, count(p) as prestamos, 0L as pendientes "
+            + "from Prestamo p group by p.libro.id")
+    Stream<Agregado<Long>> streamPrestamosPorLibro();
+
+    @Query("select l.genero as clave, count(p) as prestamos, "
+            + "sum(case when p.estado <> DEVUELTO then 1L else 0L end) as pendientes "
+            + "from Prestamo p join p.libro l group by l.genero")
+    List<Agregado<String>> findPrestamosPorGenero();
+
+    @Query("select p.usuario.id as clave, 0L as prestamos, count(p) as pendientes "
+            + "from Prestamo p where p.estado in (ACTIVO, VENCIDO) group by p.usuario.id")
+    Stream<Agregado<Long>> streamPendientesPorUsuario();
+
+    @Query("select p.libro.id as clave, count(p) as prestamos, 0L as pendientes "
+            + "from Prestamo p group by p.libro.id order by count(p) desc, p.libro.id")
+    List<Agregado<Long>> findMasPrestados(Limit limit);
+
+    @Query("select count(p) from Prestamo p where p.usuario.id = :usuarioId and p.estado in (ACTIVO, VENCIDO)")
+    long countPendientesByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    interface Agregado<K> {
+        K getClave();
+        long getPrestamos();
+        long getPendientes();
+    }
+
+    interface PrestamoVencido {
+        Long getId();
+        LocalDate getFechaVencimiento();
+        EstadoPrestamo getEstado();
+        BigDecimal getMulta();
+    }
 }
@@ -0,0 +1,21 @@
+package com.biblioteca.api.repository;
+
+import com.biblioteca.api.entity.RevisionVencimientos;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface RevisionVencimientosRepository extends JpaRepository<RevisionVencimientos, String> {
+
+    // Bloquea el punto de control durante el bloque: si hay varias instancias, se turnan los
+    // bloques de la misma pasada en lugar de repetirlos
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from RevisionVencimientos r where r.nombre = :nombre")
+    Optional<RevisionVencimientos> findParaActualizar(@Param("nombre") String nombre);
+}
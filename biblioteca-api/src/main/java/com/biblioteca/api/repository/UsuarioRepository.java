@@ -1,13 +1,49 @@
 package com.biblioteca.api.repository;
 
+import com.biblioteca.api.dto.UsuarioDTO;
 import com.biblioteca.api.entity.Usuario;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+
+    // Proyección directa a UsuarioDTO: usuario y perfil en una sola fila, sin entidades gestionadas
+    String SELECT_USUARIO_DTO = "select new com.biblioteca.api.dto.UsuarioDTO("
+            + "u.id, u.nombre, u.email, u.telefono, u.fechaRegistro, "
+            + "p.id, p.direccion, p.ciudad, p.codigoPostal, p.preferenciasLectura) "
+            + "from Usuario u left join u.perfil p ";
+
     Optional<Usuario> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    @Query(SELECT_USUARIO_DTO + "order by u.id")
+    List<UsuarioDTO> findAllDTO();
+
+    @Query(SELECT_USUARIO_DTO + "where u.id = :id")
+    Optional<UsuarioDTO> findDTOById(@Param("id") Long id);
+
+    // Paginación por cursor (keyset) sobre el id
+    @Query(SELECT_USUARIO_DTO + "where u.id > :id order by u.id")
+    List<UsuarioDTO> findDTOByIdGreaterThan(@Param("id") Long id, Limit limit);
+
+    @Query("select u.nombre from Usuario u where u.id = :id")
+    Optional<String> findNombreById(@Param("id") Long id);
+
+    // Versiones del usuario y de su perfil, para responder peticiones condicionales sin cargarlos
+    @Query("select u.version as version, p.id as perfilId, p.version as versionPerfil "
+            + "from Usuario u left join u.perfil p where u.id = :id")
+    Optional<VersionUsuario> findVersionById(@Param("id") Long id);
+
+    interface VersionUsuario {
+        Long getVersion();
+        Long getPerfilId();
+        Long getVersionPerfil();
+    }
 }
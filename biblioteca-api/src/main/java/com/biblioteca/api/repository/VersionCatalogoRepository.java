@@ -0,0 +1,24 @@
+package com.biblioteca.api.repository;
+
+import com.biblioteca.api.entity.VersionCatalogo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface VersionCatalogoRepository extends JpaRepository<VersionCatalogo, String> {
+
+    String LIBROS = "libros";
+
+    // Versión para el ETag de la lista de libros
+    @Query("select v.version from VersionCatalogo v where v.nombre = '" + LIBROS + "'")
+    long findVersionLibros();
+
+    // Última sentencia de cada transacción que modifica libros. El flush previo escribe antes los
+    // libros, así que la fila del contador, que comparten todas esas transacciones, se bloquea
+    // siempre después de las de libros y sólo hasta la confirmación
+    @Modifying(flushAutomatically = true)
+    @Query("update VersionCatalogo v set v.version = v.version + 1 where v.nombre = '" + LIBROS + "'")
+    int incrementarLibros();
+}
@@ -0,0 +1,59 @@
+package com.biblioteca.api.salida;
+
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.entity.EventoSalida;
+import com.biblioteca.api.entity.EventoSalida.TipoEvento;
+import com.biblioteca.api.entity.Prestamo;
+import com.biblioteca.api.entity.Prestamo.EstadoPrestamo;
+import com.biblioteca.api.repository.EventoSalidaRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Guarda en la bandeja de salida los eventos de préstamos y libros. Se exige una transacción
+ * en curso: el evento se confirma o se descarta junto con el cambio que describe, y el envío
+ * a otros sistemas lo hace después PublicadorEventos sin alargar la petición.
+ */
+@Component
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class BandejaSalida {
+
+    private final EventoSalidaRepository eventoSalidaRepository;
+    private final ObjectMapper objectMapper;
+
+    public void registrarPrestamo(TipoEvento tipo, Prestamo prestamo) {
+        // getId() de las referencias perezosas no las carga
+        registrar(tipo, prestamo.getId(), new DatosPrestamo(prestamo.getId(), prestamo.getUsuario().getId(),
+                prestamo.getLibro().getId(), prestamo.getEstado(), prestamo.getFechaVencimiento(), prestamo.getMulta()));
+    }
+
+    // En una eliminación libro es null y sólo se informa el id
+    public void registrarLibro(TipoEvento tipo, Long libroId, LibroDTO libro) {
+        registrar(tipo, libroId, libro == null
+                ? new DatosLibro(libroId, null, null, null, null)
+                : new DatosLibro(libroId, libro.getIsbn(), libro.getTitulo(), libro.getGenero(), libro.getDisponible()));
+    }
+
+    private void registrar(TipoEvento tipo, Long agregadoId, Object datos) {
+        try {
+            eventoSalidaRepository.save(new EventoSalida(tipo, agregadoId, objectMapper.writeValueAsString(datos)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento " + tipo, e);
+        }
+    }
+
+    record DatosPrestamo(Long prestamoId, Long usuarioId, Long libroId, EstadoPrestamo estado,
+                         LocalDate fechaVencimiento, BigDecimal multa) {
+    }
+
+    record DatosLibro(Long libroId, String isbn, String titulo, String genero, Boolean disponible) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.biblioteca.api.salida;
+
+import com.biblioteca.api.entity.EventoSalida;
+
+import java.util.List;
+
+/**
+ * Sistema al que se envían los eventos de la bandeja de salida (un broker de mensajes, un
+ * servicio de notificaciones...). Un bean propio de este tipo sustituye a los destinos
+ * locales configurados en biblioteca.salida-eventos.destino.
+ *
+ * <p>Si {@link #publicar} termina sin excepción, el lote se da por entregado y se borra de la
+ * bandeja; si falla, se reintentará entero más adelante, así que un mismo evento puede
+ * llegar más de una vez (el id del evento permite descartar repetidos).
+ */
+public interface DestinoEventos {
+
+    void publicar(List<EventoSalida> eventos) throws Exception;
+}
@@ -0,0 +1,42 @@
+package com.biblioteca.api.salida;
+
+import com.biblioteca.api.entity.EventoSalida;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+// Añade cada lote a un fichero NDJSON (un evento por línea); para desarrollo y pruebas locales
+public class DestinoEventosArchivo implements DestinoEventos {
+
+    private final Path archivo;
+    private final ObjectMapper objectMapper;
+
+    public DestinoEventosArchivo(Path archivo, ObjectMapper objectMapper) {
+        this.archivo = archivo;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publicar(List<EventoSalida> eventos) throws IOException {
+        StringBuilder lineas = new StringBuilder(eventos.size() * 200);
+        for (EventoSalida evento : eventos) {
+            lineas.append(objectMapper.writeValueAsString(new Linea(evento.getId(), evento.getTipo().name(),
+                    evento.getAgregadoId(), evento.getCreado(), evento.getDatos()))).append('\n');
+        }
+        try (Writer writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(lineas.toString());
+        }
+    }
+
+    private record Linea(Long id, String tipo, Long agregadoId, Instant creado, @JsonRawValue String datos) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.biblioteca.api.salida;
+
+import com.biblioteca.api.entity.EventoSalida;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// Conserva los últimos eventos publicados; para desarrollo y pruebas
+public class DestinoEventosMemoria implements DestinoEventos {
+
+    private final int capacidad;
+    private final Deque<EventoSalida> eventos = new ArrayDeque<>();
+
+    public DestinoEventosMemoria(int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    @Override
+    public synchronized void publicar(List<EventoSalida> lote) {
+        for (EventoSalida evento : lote) {
+            if (eventos.size() == capacidad) {
+                eventos.removeFirst();
+            }
+            eventos.addLast(evento);
+        }
+    }
+
+    public synchronized List<EventoSalida> eventos() {
+        return new ArrayList<>(eventos);
+    }
+
+    public synchronized void limpiar() {
+        eventos.clear();
+    }
+}
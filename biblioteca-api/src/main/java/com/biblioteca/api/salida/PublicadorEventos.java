@@ -0,0 +1,129 @@
+package com.biblioteca.api.salida;
+
+import com.biblioteca.api.config.SalidaEventosProperties;
+import com.biblioteca.api.entity.EventoSalida;
+import com.biblioteca.api.repository.EventoSalidaRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vacía la bandeja de salida en lotes. Cada lote se reserva con FOR UPDATE SKIP LOCKED, se
+ * envía al destino y se borra en la misma transacción: varias instancias pueden publicar a la
+ * vez sin repetir eventos, y si el envío falla o la instancia cae, las filas se liberan y las
+ * publica la siguiente pasada.
+ *
+ * <p>Los eventos salen por id, que no es el orden de creación: cada instancia reserva bloques de
+ * 50 ids de la secuencia, así que los de instancias distintas se intercalan por bloque, y una
+ * transacción que confirma tarde deja ids menores que otros ya publicados. Para ordenarlos, cada
+ * evento lleva su fecha de creación.
+ */
+@Slf4j
+@Service
+public class PublicadorEventos implements MeterBinder {
+
+    private final EventoSalidaRepository eventoSalidaRepository;
+    private final DestinoEventos destino;
+    private final SalidaEventosProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong publicados = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong nanosEnLotes = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    // Antigüedad del evento más antiguo del último lote (el de menor fecha de creación, que no
+    // tiene por qué ser el primero por id): lo que tarda un evento en salir
+    private volatile Duration retraso = Duration.ZERO;
+
+    public PublicadorEventos(EventoSalidaRepository eventoSalidaRepository, DestinoEventos destino,
+                             SalidaEventosProperties properties, PlatformTransactionManager transactionManager) {
+        this.eventoSalidaRepository = eventoSalidaRepository;
+        this.destino = destino;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(Math.toIntExact(Math.max(properties.getTiempoMaximoLote().toSeconds(), 1)));
+    }
+
+    @Scheduled(fixedDelayString = "${biblioteca.salida-eventos.espera:PT1S}")
+    public void publicarProgramada() {
+        if (properties.isPublicacionHabilitada()) {
+            publicar();
+        }
+    }
+
+    // Publica lotes hasta vaciar la bandeja o hasta que falle un envío; devuelve los publicados
+    public int publicar() {
+        int tamanoLote = properties.getTamanoLote();
+        int total = 0;
+        int enLote;
+        do {
+            long inicio = System.nanoTime();
+            try {
+                enLote = transactionTemplate.execute(estado -> publicarLote(tamanoLote));
+            } catch (RuntimeException e) {
+                fallos.incrementAndGet();
+                log.warn("No se pudo publicar un lote de eventos; se reintentará: {}", e.getMessage());
+                return total;
+            }
+            if (enLote > 0) {
+                lotes.incrementAndGet();
+                nanosEnLotes.addAndGet(System.nanoTime() - inicio);
+                publicados.addAndGet(enLote);
+                total += enLote;
+            }
+        } while (enLote == tamanoLote);
+        return total;
+    }
+
+    private int publicarLote(int tamanoLote) {
+        List<EventoSalida> eventos = eventoSalidaRepository.reservarPendientes(tamanoLote);
+        if (eventos.isEmpty()) {
+            retraso = Duration.ZERO;
+            return 0;
+        }
+        Instant masAntiguo = eventos.stream().map(EventoSalida::getCreado).min(Comparator.naturalOrder()).orElseThrow();
+        retraso = Duration.between(masAntiguo, Instant.now());
+        try {
+            destino.publicar(eventos);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        eventoSalidaRepository.borrarPublicados(eventos.stream().map(EventoSalida::getId).toList());
+        return eventos.size();
+    }
+
+    // Eventos publicados por segundo, duración de cada lote y retraso
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("biblioteca.salida.publicados", publicados, AtomicLong::get)
+                .description("Eventos enviados al destino")
+                .register(registry);
+        FunctionTimer.builder("biblioteca.salida.lotes", this,
+                        publicador -> publicador.lotes.get(), publicador -> publicador.nanosEnLotes.get(), TimeUnit.NANOSECONDS)
+                .description("Transacciones de publicación de la bandeja de salida")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.salida.fallos", fallos, AtomicLong::get)
+                .description("Lotes que no se pudieron enviar y quedan para reintentar")
+                .register(registry);
+        Gauge.builder("biblioteca.salida.retraso", this, publicador -> publicador.retraso.toNanos() / 1e9)
+                .description("Antigüedad del evento más antiguo del último lote publicado")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+}
@@ -0,0 +1,80 @@
+package com.biblioteca.api.service;
+
+import com.biblioteca.api.dto.EstadisticaGeneroDTO;
+import com.biblioteca.api.dto.EstadisticaUsuarioDTO;
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.dto.LibroMasPrestadoDTO;
+import com.biblioteca.api.estadisticas.EstadisticasPrestamos;
+import com.biblioteca.api.exception.BadRequestException;
+import com.biblioteca.api.exception.ResourceNotFoundException;
+import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.repository.PrestamoRepository;
+import com.biblioteca.api.repository.UsuarioRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Estadísticas de préstamos. Se responden con los contadores de {@link EstadisticasPrestamos};
+ * mientras no están calculados (al arrancar o si se deshabilitan) se agregan en la base de datos.
+ */
+@Service
+@Timed(value = "biblioteca.servicio", description = "Tiempo de ejecución de los métodos de servicio")
+@RequiredArgsConstructor
+public class EstadisticasService {
+
+    private final EstadisticasPrestamos estadisticas;
+    private final PrestamoRepository prestamoRepository;
+    private final LibroRepository libroRepository;
+    private final UsuarioRepository usuarioRepository;
+
+    @Transactional(readOnly = true)
+    public List<LibroMasPrestadoDTO> obtenerLibrosMasPrestados(int limite) {
+        if (limite < 1 || limite > estadisticas.tamanoPodio()) {
+            throw new BadRequestException("El límite debe estar entre 1 y " + estadisticas.tamanoPodio());
+        }
+        List<LibroMasPrestadoDTO> masPrestados = estadisticas.listo()
+                ? estadisticas.masPrestados(limite)
+                : prestamoRepository.findMasPrestados(Limit.of(limite)).stream()
+                        .map(agregado -> new LibroMasPrestadoDTO(agregado.getClave(), null, agregado.getPrestamos()))
+                        .collect(Collectors.toList());
+
+        // Los títulos se leen aparte: como mucho tamanoPodio libros por su clave primaria
+        Map<Long, String> titulos = libroRepository.findDTOByIdIn(
+                        masPrestados.stream().map(LibroMasPrestadoDTO::getLibroId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(LibroDTO::getId, LibroDTO::getTitulo));
+        masPrestados.forEach(libro -> libro.setTitulo(titulos.get(libro.getLibroId())));
+        return masPrestados;
+    }
+
+    @Transactional(readOnly = true)
+    public List<EstadisticaGeneroDTO> obtenerEstadisticasPorGenero() {
+        if (estadisticas.listo()) {
+            return estadisticas.porGenero();
+        }
+        return prestamoRepository.findPrestamosPorGenero().stream()
+                .map(agregado -> new EstadisticaGeneroDTO(agregado.getClave(), agregado.getPrestamos(),
+                        agregado.getPendientes()))
+                .sorted(Comparator.comparing(EstadisticaGeneroDTO::getGenero))
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public EstadisticaUsuarioDTO obtenerEstadisticasDeUsuario(Long usuarioId) {
+        if (!usuarioRepository.existsById(usuarioId)) {
+            throw new ResourceNotFoundException("Usuario no encontrado con id: " + usuarioId);
+        }
+        long pendientes = estadisticas.listo()
+                ? estadisticas.pendientesDeUsuario(usuarioId)
+                : prestamoRepository.countPendientesByUsuarioId(usuarioId);
+        return new EstadisticaUsuarioDTO(usuarioId, pendientes);
+    }
+}
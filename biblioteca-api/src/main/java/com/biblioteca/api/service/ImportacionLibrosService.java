@@ -0,0 +1,276 @@
+package com.biblioteca.api.service;
+
+import com.biblioteca.api.config.ImportacionProperties;
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.dto.ResultadoImportacionDTO;
+import com.biblioteca.api.dto.ResultadoImportacionDTO.FilaRechazada;
+import com.biblioteca.api.entity.EventoSalida.TipoEvento;
+import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.event.LibroCambiadoEvent;
+import com.biblioteca.api.exception.BadRequestException;
+import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.repository.VersionCatalogoRepository;
+import com.biblioteca.api.salida.BandejaSalida;
+import com.biblioteca.api.util.CsvUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva del catálogo. El archivo se lee línea a línea y se procesa en lotes:
+ * cada lote comprueba sus ISBN con una única consulta IN y se inserta en su propia
+ * transacción con INSERT agrupados. En memoria sólo hay un lote de filas y los ISBN ya leídos,
+ * que se guardan todos para detectar los repetidos en el archivo (unas decenas de bytes por fila).
+ */
+@Slf4j
+@Service
+@Timed(value = "biblioteca.servicio", description = "Tiempo de ejecución de los métodos de servicio")
+public class ImportacionLibrosService {
+
+    public enum FormatoImportacion {
+        CSV,
+        NDJSON
+    }
+
+    private static final List<String> COLUMNAS_CSV = List.of("titulo", "isbn", "autor", "anioPublicacion", "genero");
+
+    private final LibroRepository libroRepository;
+    private final VersionCatalogoRepository versionCatalogoRepository;
+    private final LibroService libroService;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ImportacionProperties properties;
+    private final BandejaSalida bandejaSalida;
+
+    public ImportacionLibrosService(LibroRepository libroRepository,
+                                    VersionCatalogoRepository versionCatalogoRepository,
+                                    LibroService libroService,
+                                    EntityManager entityManager,
+                                    ApplicationEventPublisher eventPublisher,
+                                    Validator validator,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager,
+                                    ImportacionProperties properties,
+                                    BandejaSalida bandejaSalida) {
+        this.libroRepository = libroRepository;
+        this.versionCatalogoRepository = versionCatalogoRepository;
+        this.libroService = libroService;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.bandejaSalida = bandejaSalida;
+    }
+
+    public ResultadoImportacionDTO importar(InputStream entrada, FormatoImportacion formato) throws IOException {
+        long inicio = System.nanoTime();
+        Informe informe = new Informe(properties.getMaxRechazosInformados());
+        Set<String> isbnsVistos = new HashSet<>();
+        List<FilaLibro> lote = new ArrayList<>(properties.getTamanoLote());
+
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            Map<String, Integer> columnas = null;
+            long numeroLinea = 0;
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                numeroLinea++;
+                if (linea.isBlank()) {
+                    continue;
+                }
+                if (formato == FormatoImportacion.CSV && columnas == null) {
+                    columnas = leerCabecera(linea);
+                    continue;
+                }
+
+                informe.filasLeidas++;
+                LibroDTO libro;
+                try {
+                    libro = formato == FormatoImportacion.CSV ? leerCsv(linea, columnas) : leerNdjson(linea);
+                } catch (IllegalArgumentException e) {
+                    informe.rechazar(numeroLinea, null, e.getMessage());
+                    continue;
+                }
+
+                String errores = validar(libro);
+                if (errores != null) {
+                    informe.rechazar(numeroLinea, libro.getIsbn(), errores);
+                } else if (!isbnsVistos.add(libro.getIsbn())) {
+                    informe.rechazar(numeroLinea, libro.getIsbn(), "ISBN repetido en el archivo");
+                } else {
+                    lote.add(new FilaLibro(numeroLinea, libro));
+                    if (lote.size() >= properties.getTamanoLote()) {
+                        insertarLote(lote, informe);
+                        lote.clear();
+                    }
+                }
+            }
+        }
+        if (!lote.isEmpty()) {
+            insertarLote(lote, informe);
+        }
+
+        long duracionMs = Math.max((System.nanoTime() - inicio) / 1_000_000, 1);
+        double filasPorSegundo = informe.filasLeidas * 1000.0 / duracionMs;
+        log.info("Importación de libros: {} filas leídas, {} insertadas, {} rechazadas en {} ms ({} filas/s)",
+                informe.filasLeidas, informe.insertados, informe.rechazados, duracionMs, Math.round(filasPorSegundo));
+        return new ResultadoImportacionDTO(informe.filasLeidas, informe.insertados, informe.rechazados,
+                duracionMs, filasPorSegundo, informe.detalle);
+    }
+
+    private void insertarLote(List<FilaLibro> lote, Informe informe) {
+        List<FilaLibro> duplicadas = new ArrayList<>();
+        try {
+            int insertados = transactionTemplate.execute(estado -> {
+                Set<String> existentes = libroRepository.findIsbnsExistentes(
+                        lote.stream().map(fila -> fila.libro().getIsbn()).collect(Collectors.toList()));
+
+                List<Libro> nuevos = new ArrayList<>(lote.size());
+                for (FilaLibro fila : lote) {
+                    if (existentes.contains(fila.libro().getIsbn())) {
+                        duplicadas.add(fila);
+                    } else {
+                        nuevos.add(libroService.convertirAEntidad(fila.libro()));
+                    }
+                }
+
+                libroRepository.saveAll(nuevos);
+                List<LibroDTO> creados = nuevos.stream().map(libroService::convertirADTO).collect(Collectors.toList());
+                // Los eventos de salida se insertan en el mismo flush que los libros
+                for (LibroDTO libro : creados) {
+                    bandejaSalida.registrarLibro(TipoEvento.LIBRO_CREADO, libro.getId(), libro);
+                }
+                libroRepository.flush();
+                if (!nuevos.isEmpty()) {
+                    versionCatalogoRepository.incrementarLibros();
+                }
+                for (LibroDTO libro : creados) {
+                    eventPublisher.publishEvent(new LibroCambiadoEvent(libro.getId(), null, libro));
+                }
+                entityManager.clear();
+                return nuevos.size();
+            });
+            informe.insertados += insertados;
+            for (FilaLibro fila : duplicadas) {
+                informe.rechazar(fila.linea(), fila.libro().getIsbn(),
+                        "Ya existe un libro con el ISBN: " + fila.libro().getIsbn());
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Otra petición ha dado de alta alguno de estos ISBN mientras tanto: se descarta el lote
+            for (FilaLibro fila : lote) {
+                informe.rechazar(fila.linea(), fila.libro().getIsbn(),
+                        "Conflicto al insertar el lote; vuelva a importar estas filas");
+            }
+        }
+    }
+
+    private Map<String, Integer> leerCabecera(String linea) {
+        Map<String, Integer> columnas = new HashMap<>();
+        List<String> nombres = CsvUtil.separar(linea);
+        for (int i = 0; i < nombres.size(); i++) {
+            columnas.put(nombres.get(i).toLowerCase(Locale.ROOT), i);
+        }
+        for (String columna : COLUMNAS_CSV) {
+            if (!columnas.containsKey(columna.toLowerCase(Locale.ROOT))) {
+                throw new BadRequestException("Falta la columna '" + columna + "' en la cabecera del CSV");
+            }
+        }
+        return columnas;
+    }
+
+    private LibroDTO leerCsv(String linea, Map<String, Integer> columnas) {
+        List<String> campos = CsvUtil.separar(linea);
+        LibroDTO libro = new LibroDTO();
+        libro.setTitulo(campo(campos, columnas, "titulo"));
+        libro.setIsbn(campo(campos, columnas, "isbn"));
+        libro.setAutor(campo(campos, columnas, "autor"));
+        libro.setGenero(campo(campos, columnas, "genero"));
+        String anio = campo(campos, columnas, "aniopublicacion");
+        if (anio != null && !anio.isEmpty()) {
+            try {
+                libro.setAnioPublicacion(Integer.valueOf(anio));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Año de publicación no numérico: " + anio);
+            }
+        }
+        libro.setDisponible(true);
+        return libro;
+    }
+
+    private String campo(List<String> campos, Map<String, Integer> columnas, String nombre) {
+        int indice = columnas.get(nombre);
+        return indice < campos.size() ? campos.get(indice) : null;
+    }
+
+    private LibroDTO leerNdjson(String linea) {
+        try {
+            LibroDTO libro = objectMapper.readValue(linea, LibroDTO.class);
+            libro.setId(null);
+            libro.setDisponible(true);
+            return libro;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+
+    private String validar(LibroDTO libro) {
+        Set<ConstraintViolation<LibroDTO>> violaciones = validator.validate(libro);
+        if (violaciones.isEmpty()) {
+            return null;
+        }
+        return violaciones.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private record FilaLibro(long linea, LibroDTO libro) {
+    }
+
+    // Acumula el resultado; sólo guarda el detalle de las primeras filas rechazadas
+    private static class Informe {
+        private final int maxDetalle;
+        private final List<FilaRechazada> detalle = new ArrayList<>();
+        private long filasLeidas;
+        private long insertados;
+        private long rechazados;
+
+        Informe(int maxDetalle) {
+            this.maxDetalle = maxDetalle;
+        }
+
+        void rechazar(long linea, String isbn, String motivo) {
+            rechazados++;
+            if (detalle.size() < maxDetalle) {
+                detalle.add(new FilaRechazada(linea, isbn, motivo));
+            }
+        }
+    }
+}
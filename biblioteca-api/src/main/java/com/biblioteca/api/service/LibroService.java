@@ -1,30 +1,81 @@
 package com.biblioteca.api.service;
 
+import com.biblioteca.api.busqueda.IndiceBusquedaLibros;
+import com.biblioteca.api.busqueda.IndiceFiltrosLibros;
+import com.biblioteca.api.coalescencia.Coalescente;
 import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.dto.PaginaDTO;
+import com.biblioteca.api.entity.EventoSalida.TipoEvento;
 import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.event.LibroCambiadoEvent;
 import com.biblioteca.api.exception.BadRequestException;
 import com.biblioteca.api.exception.ResourceNotFoundException;
 import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.repository.VersionCatalogoRepository;
+import com.biblioteca.api.salida.BandejaSalida;
+import com.biblioteca.api.util.CursorUtil;
+import com.biblioteca.api.util.EtagUtil;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "biblioteca.servicio", description = "Tiempo de ejecución de los métodos de servicio")
 @RequiredArgsConstructor
 public class LibroService {
 
+    // Ids por consulta al cargar los resultados del índice de filtros (límite práctico de "in")
+    private static final int TAMANO_LOTE_IDS = 1000;
+
     private final LibroRepository libroRepository;
+    private final VersionCatalogoRepository versionCatalogoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IndiceBusquedaLibros indiceBusqueda;
+    private final IndiceFiltrosLibros indiceFiltros;
+    private final BandejaSalida bandejaSalida;
 
     @Transactional(readOnly = true)
     public List<LibroDTO> obtenerTodosLosLibros() {
-        return libroRepository.findAll().stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+        return libroRepository.findAllDTO();
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaDTO<LibroDTO> obtenerLibrosPaginados(String cursor, int limite) {
+        CursorUtil.validarLimite(limite);
+        long despuesDe = CursorUtil.decodificar(cursor);
+        List<LibroDTO> resultados = libroRepository.findDTOByIdGreaterThan(despuesDe, Limit.of(limite + 1));
+        return CursorUtil.construirPagina(resultados, limite, LibroDTO::getId);
+    }
+
+    // ETags de las peticiones condicionales: sólo se consultan versiones, nunca los libros
+
+    @Coalescente
+    @Transactional(readOnly = true)
+    public String obtenerEtagCatalogo() {
+        return EtagUtil.fuerte("libros", versionCatalogoRepository.findVersionLibros());
     }
 
+    @Coalescente
+    @Transactional(readOnly = true)
+    public String obtenerEtagLibro(Long id) {
+        Long version = libroRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Libro no encontrado con id: " + id));
+        return EtagUtil.fuerte("libro", id, "v" + version);
+    }
+
+    @Coalescente
     @Transactional(readOnly = true)
     public LibroDTO obtenerLibroPorId(Long id) {
         Libro libro = libroRepository.findById(id)
@@ -32,17 +83,50 @@ public class LibroService {
         return convertirADTO(libro);
     }
 
+    // Los filtros se resuelven con el índice en memoria; hasta que esté construido, con consultas
+
+    @Coalescente
     @Transactional(readOnly = true)
     public List<LibroDTO> obtenerLibrosDisponibles() {
-        return libroRepository.findByDisponible(true).stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+        if (!indiceFiltros.listo()) {
+            return libroRepository.findDTOByDisponible(true);
+        }
+        return cargarPorIds(indiceFiltros.disponibles(), libro -> Boolean.TRUE.equals(libro.getDisponible()));
     }
 
+    @Coalescente
     @Transactional(readOnly = true)
     public List<LibroDTO> obtenerLibrosPorGenero(String genero) {
-        return libroRepository.findByGenero(genero).stream()
-                .map(this::convertirADTO)
+        if (!indiceFiltros.listo()) {
+            return libroRepository.findDTOByGenero(genero);
+        }
+        return cargarPorIds(indiceFiltros.porGenero(genero), libro -> genero.equals(libro.getGenero()));
+    }
+
+    @Coalescente
+    @Transactional(readOnly = true)
+    public List<LibroDTO> obtenerLibrosDisponiblesPorGenero(String genero) {
+        Predicate<LibroDTO> filtro = libro -> Boolean.TRUE.equals(libro.getDisponible()) && genero.equals(libro.getGenero());
+        if (!indiceFiltros.listo()) {
+            return libroRepository.findDTOByGenero(genero).stream().filter(filtro).collect(Collectors.toList());
+        }
+        return cargarPorIds(indiceFiltros.disponiblesPorGenero(genero), filtro);
+    }
+
+    @Transactional(readOnly = true)
+    public List<LibroDTO> buscarLibros(String consulta, int limite) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new BadRequestException("El texto de búsqueda es obligatorio");
+        }
+        CursorUtil.validarLimite(limite);
+
+        // El índice devuelve los ids ordenados por relevancia; se cargan todos en una consulta
+        List<Long> ids = indiceBusqueda.buscar(consulta, limite);
+        Map<Long, LibroDTO> libros = libroRepository.findDTOByIdIn(ids).stream()
+                .collect(Collectors.toMap(LibroDTO::getId, Function.identity()));
+        return ids.stream()
+                .map(libros::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
@@ -55,7 +139,11 @@ public class LibroService {
         Libro libro = convertirAEntidad(libroDTO);
         libro.setDisponible(true);
         Libro libroGuardado = libroRepository.save(libro);
-        return convertirADTO(libroGuardado);
+        LibroDTO resultado = convertirADTO(libroGuardado);
+        bandejaSalida.registrarLibro(TipoEvento.LIBRO_CREADO, resultado.getId(), resultado);
+        versionCatalogoRepository.incrementarLibros();
+        eventPublisher.publishEvent(new LibroCambiadoEvent(resultado.getId(), null, resultado));
+        return resultado;
     }
 
     @Transactional
@@ -69,6 +157,7 @@ public class LibroService {
             throw new BadRequestException("Ya existe un libro con el ISBN: " + libroDTO.getIsbn());
         }
 
+        LibroDTO anterior = convertirADTO(libro);
         libro.setTitulo(libroDTO.getTitulo());
         libro.setIsbn(libroDTO.getIsbn());
         libro.setAutor(libroDTO.getAutor());
@@ -77,7 +166,11 @@ public class LibroService {
         libro.setDisponible(libroDTO.getDisponible());
 
         Libro libroActualizado = libroRepository.save(libro);
-        return convertirADTO(libroActualizado);
+        LibroDTO resultado = convertirADTO(libroActualizado);
+        bandejaSalida.registrarLibro(TipoEvento.LIBRO_ACTUALIZADO, id, resultado);
+        versionCatalogoRepository.incrementarLibros();
+        eventPublisher.publishEvent(new LibroCambiadoEvent(id, anterior, resultado));
+        return resultado;
     }
 
     @Transactional
@@ -86,10 +179,29 @@ public class LibroService {
             throw new ResourceNotFoundException("Libro no encontrado con id: " + id);
         }
         libroRepository.deleteById(id);
+        bandejaSalida.registrarLibro(TipoEvento.LIBRO_ELIMINADO, id, null);
+        versionCatalogoRepository.incrementarLibros();
+        eventPublisher.publishEvent(new LibroCambiadoEvent(id, null, null));
+    }
+
+    /**
+     * Carga por id, en lotes, los libros que ha devuelto el índice. Se vuelve a aplicar el
+     * filtro sobre lo leído por si el índice aún no ha recibido un cambio recién confirmado.
+     */
+    private List<LibroDTO> cargarPorIds(List<Long> ids, Predicate<LibroDTO> filtro) {
+        List<LibroDTO> libros = new ArrayList<>(ids.size());
+        for (int desde = 0; desde < ids.size(); desde += TAMANO_LOTE_IDS) {
+            List<Long> lote = ids.subList(desde, Math.min(desde + TAMANO_LOTE_IDS, ids.size()));
+            libroRepository.findDTOByIdIn(lote).stream()
+                    .filter(filtro)
+                    .sorted(Comparator.comparing(LibroDTO::getId))
+                    .forEach(libros::add);
+        }
+        return libros;
     }
 
     // Métodos auxiliares de conversión
-    private LibroDTO convertirADTO(Libro libro) {
+    LibroDTO convertirADTO(Libro libro) {
         LibroDTO dto = new LibroDTO();
         dto.setId(libro.getId());
         dto.setTitulo(libro.getTitulo());
@@ -101,7 +213,7 @@ public class LibroService {
         return dto;
     }
 
-    private Libro convertirAEntidad(LibroDTO dto) {
+    Libro convertirAEntidad(LibroDTO dto) {
         Libro libro = new Libro();
         libro.setTitulo(dto.getTitulo());
         libro.setIsbn(dto.getIsbn());
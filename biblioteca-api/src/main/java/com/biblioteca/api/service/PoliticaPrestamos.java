@@ -0,0 +1,32 @@
+package com.biblioteca.api.service;
+
+import com.biblioteca.api.config.VencimientosProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+// Plazo de los préstamos y cálculo de multas, comunes al alta, la devolución y la revisión de vencimientos
+@Component
+@RequiredArgsConstructor
+public class PoliticaPrestamos {
+
+    private final VencimientosProperties properties;
+
+    public LocalDate fechaVencimiento(LocalDate fechaPrestamo) {
+        return fechaPrestamo.plusDays(properties.getDiasPrestamo());
+    }
+
+    // Multa acumulada en la fecha indicada; null si todavía no hay retraso
+    public BigDecimal multa(LocalDate fechaVencimiento, LocalDate fecha) {
+        long diasRetraso = ChronoUnit.DAYS.between(fechaVencimiento, fecha);
+        if (diasRetraso <= 0) {
+            return null;
+        }
+        BigDecimal multa = properties.getMultaDiaria().multiply(BigDecimal.valueOf(diasRetraso));
+        return multa.min(properties.getMultaMaxima()).setScale(2, RoundingMode.HALF_UP);
+    }
+}
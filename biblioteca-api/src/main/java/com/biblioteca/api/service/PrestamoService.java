@@ -1,43 +1,88 @@
 package com.biblioteca.api.service;
 
+import com.biblioteca.api.coalescencia.Coalescente;
+import com.biblioteca.api.dto.PaginaDTO;
 import com.biblioteca.api.dto.PrestamoDTO;
+import com.biblioteca.api.dto.PrestamoLoteDTO;
+import com.biblioteca.api.dto.ResultadoLoteDTO;
+import com.biblioteca.api.entity.EventoSalida.TipoEvento;
 import com.biblioteca.api.entity.Libro;
 import com.biblioteca.api.entity.Prestamo;
 import com.biblioteca.api.entity.Prestamo.EstadoPrestamo;
 import com.biblioteca.api.entity.Usuario;
+import com.biblioteca.api.event.DisponibilidadCambiadaEvent;
+import com.biblioteca.api.event.PrestamoCambiadoEvent;
 import com.biblioteca.api.exception.BadRequestException;
 import com.biblioteca.api.exception.ResourceNotFoundException;
 import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.repository.LibroRepository.EstadoLibro;
 import com.biblioteca.api.repository.PrestamoRepository;
 import com.biblioteca.api.repository.UsuarioRepository;
+import com.biblioteca.api.repository.VersionCatalogoRepository;
+import com.biblioteca.api.salida.BandejaSalida;
+import com.biblioteca.api.util.CursorUtil;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "biblioteca.servicio", description = "Tiempo de ejecución de los métodos de servicio")
 @RequiredArgsConstructor
 public class PrestamoService {
 
     private final PrestamoRepository prestamoRepository;
     private final UsuarioRepository usuarioRepository;
     private final LibroRepository libroRepository;
+    private final VersionCatalogoRepository versionCatalogoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PoliticaPrestamos politicaPrestamos;
+    private final BandejaSalida bandejaSalida;
 
     @Transactional(readOnly = true)
     public List<PrestamoDTO> obtenerTodosLosPrestamos() {
-        return prestamoRepository.findAll().stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+        return prestamoRepository.findAllDTO();
     }
 
+    @Transactional(readOnly = true)
+    public PaginaDTO<PrestamoDTO> obtenerPrestamosPaginados(String cursor, int limite) {
+        CursorUtil.validarLimite(limite);
+        long despuesDe = CursorUtil.decodificar(cursor);
+        List<PrestamoDTO> resultados = prestamoRepository.findDTOByIdGreaterThan(despuesDe, Limit.of(limite + 1));
+        return CursorUtil.construirPagina(resultados, limite, PrestamoDTO::getId);
+    }
+
+    /**
+     * Recorre todo el historial de préstamos sin materializarlo en memoria: las filas llegan
+     * en bloques desde la base de datos ya proyectadas a DTO.
+     */
+    @Transactional(readOnly = true)
+    public void exportarPrestamos(Consumer<PrestamoDTO> destino) {
+        try (Stream<PrestamoDTO> prestamos = prestamoRepository.streamDTO()) {
+            prestamos.forEach(destino);
+        }
+    }
+
+    @Coalescente
     @Transactional(readOnly = true)
     public PrestamoDTO obtenerPrestamoPorId(Long id) {
-        Prestamo prestamo = prestamoRepository.findById(id)
+        return prestamoRepository.findDTOById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Préstamo no encontrado con id: " + id));
-        return convertirADTO(prestamo);
     }
 
     @Transactional(readOnly = true)
@@ -45,39 +90,117 @@ public class PrestamoService {
         if (!usuarioRepository.existsById(usuarioId)) {
             throw new ResourceNotFoundException("Usuario no encontrado con id: " + usuarioId);
         }
-        return prestamoRepository.findByUsuarioIdAndEstado(usuarioId, EstadoPrestamo.ACTIVO).stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+        // Los vencidos siguen pendientes de devolución
+        return prestamoRepository.findDTOPendientesByUsuarioId(usuarioId);
     }
 
     @Transactional
     public PrestamoDTO crearPrestamo(PrestamoDTO prestamoDTO) {
         // Validar que existe el usuario
-        Usuario usuario = usuarioRepository.findById(prestamoDTO.getUsuarioId())
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con id: " + prestamoDTO.getUsuarioId()));
-
-        // Validar que existe el libro
-        Libro libro = libroRepository.findById(prestamoDTO.getLibroId())
-                .orElseThrow(() -> new ResourceNotFoundException("Libro no encontrado con id: " + prestamoDTO.getLibroId()));
+        Long usuarioId = prestamoDTO.getUsuarioId();
+        String nombreUsuario = usuarioRepository.findNombreById(usuarioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con id: " + usuarioId));
 
-        // Validar que el libro está disponible
-        if (!libro.getDisponible()) {
+        // Reservar el libro con un UPDATE condicional: sin lecturas previas ni bloqueos pesimistas.
+        // Otra petición por el mismo libro espera al bloqueo de la fila hasta el commit y ve 0 filas
+        Long libroId = prestamoDTO.getLibroId();
+        if (libroRepository.marcarComoPrestado(libroId) == 0) {
+            if (!libroRepository.existsById(libroId)) {
+                throw new ResourceNotFoundException("Libro no encontrado con id: " + libroId);
+            }
             throw new BadRequestException("El libro no está disponible para préstamo");
         }
+        Libro libro = libroRepository.getReferenceById(libroId);
 
         // Crear el préstamo
+        LocalDate hoy = LocalDate.now();
         Prestamo prestamo = new Prestamo();
-        prestamo.setUsuario(usuario);
+        prestamo.setUsuario(usuarioRepository.getReferenceById(usuarioId));
         prestamo.setLibro(libro);
-        prestamo.setFechaPrestamo(LocalDate.now());
+        prestamo.setFechaPrestamo(hoy);
+        prestamo.setFechaVencimiento(politicaPrestamos.fechaVencimiento(hoy));
         prestamo.setEstado(EstadoPrestamo.ACTIVO);
 
-        // Marcar el libro como no disponible
-        libro.setDisponible(false);
-        libroRepository.save(libro);
-
         Prestamo prestamoGuardado = prestamoRepository.save(prestamo);
-        return convertirADTO(prestamoGuardado);
+        bandejaSalida.registrarPrestamo(TipoEvento.PRESTAMO_CREADO, prestamoGuardado);
+        versionCatalogoRepository.incrementarLibros();
+        eventPublisher.publishEvent(new DisponibilidadCambiadaEvent(libroId, libro.getGenero(), false));
+        eventPublisher.publishEvent(PrestamoCambiadoEvent.creado(libroId, usuarioId, libro.getGenero()));
+        return new PrestamoDTO(prestamoGuardado.getId(), hoy, prestamoGuardado.getFechaVencimiento(), null,
+                EstadoPrestamo.ACTIVO, null, usuarioId, libroId, nombreUsuario, libro.getTitulo());
+    }
+
+    /**
+     * Presta varios libros a un usuario de una vez: la disponibilidad se comprueba con una
+     * consulta que bloquea las filas, se marca con un único UPDATE y los préstamos se insertan en
+     * lotes JDBC. Los libros que no existen o no están disponibles se informan sin abortar el
+     * resto; un préstamo simultáneo del mismo libro espera al final del lote y lo ve prestado.
+     */
+    @Transactional
+    public ResultadoLoteDTO crearPrestamosEnLote(PrestamoLoteDTO loteDTO) {
+        Long usuarioId = loteDTO.getUsuarioId();
+        String nombreUsuario = usuarioRepository.findNombreById(usuarioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con id: " + usuarioId));
+
+        Set<Long> ids = new LinkedHashSet<>(loteDTO.getLibroIds());
+        Map<Long, EstadoLibro> estados = libroRepository.findEstadosParaPrestar(ids).stream()
+                .collect(Collectors.toMap(EstadoLibro::getId, Function.identity()));
+
+        Map<Long, ResultadoLoteDTO.Item> resultados = new LinkedHashMap<>();
+        List<EstadoLibro> aPrestar = new ArrayList<>();
+        for (Long libroId : ids) {
+            EstadoLibro estado = estados.get(libroId);
+            if (estado == null) {
+                resultados.put(libroId, fallo(libroId, "Libro no encontrado con id: " + libroId));
+            } else if (!estado.getDisponible()) {
+                resultados.put(libroId, fallo(libroId, "El libro no está disponible para préstamo"));
+            } else {
+                aPrestar.add(estado);
+                resultados.put(libroId, null);
+            }
+        }
+
+        if (!aPrestar.isEmpty()) {
+            List<Long> idsAPrestar = aPrestar.stream().map(EstadoLibro::getId).collect(Collectors.toList());
+            // Las filas siguen bloqueadas desde la consulta: si aun así no cambian todas, se deshace el lote
+            if (libroRepository.marcarComoPrestados(idsAPrestar) != idsAPrestar.size()) {
+                throw new OptimisticLockingFailureException("Algún libro del lote cambió durante el préstamo");
+            }
+
+            Usuario usuario = usuarioRepository.getReferenceById(usuarioId);
+            LocalDate hoy = LocalDate.now();
+            LocalDate vencimiento = politicaPrestamos.fechaVencimiento(hoy);
+            List<Prestamo> prestamos = new ArrayList<>();
+            for (EstadoLibro estado : aPrestar) {
+                Prestamo prestamo = new Prestamo();
+                prestamo.setUsuario(usuario);
+                prestamo.setLibro(libroRepository.getReferenceById(estado.getId()));
+                prestamo.setFechaPrestamo(hoy);
+                prestamo.setFechaVencimiento(vencimiento);
+                prestamo.setEstado(EstadoPrestamo.ACTIVO);
+                prestamos.add(prestamo);
+            }
+            prestamoRepository.saveAll(prestamos);
+            for (Prestamo prestamo : prestamos) {
+                bandejaSalida.registrarPrestamo(TipoEvento.PRESTAMO_CREADO, prestamo);
+            }
+            prestamoRepository.flush();
+            versionCatalogoRepository.incrementarLibros();
+
+            for (int i = 0; i < aPrestar.size(); i++) {
+                EstadoLibro estado = aPrestar.get(i);
+                Prestamo prestamo = prestamos.get(i);
+                PrestamoDTO dto = new PrestamoDTO(prestamo.getId(), hoy, vencimiento, null, EstadoPrestamo.ACTIVO,
+                        null, usuarioId, estado.getId(), nombreUsuario, estado.getTitulo());
+                resultados.put(estado.getId(), new ResultadoLoteDTO.Item(estado.getId(), true, null, dto));
+                eventPublisher.publishEvent(new DisponibilidadCambiadaEvent(estado.getId(), estado.getGenero(), false));
+                eventPublisher.publishEvent(PrestamoCambiadoEvent.creado(estado.getId(), usuarioId, estado.getGenero()));
+            }
+        }
+
+        List<ResultadoLoteDTO.Item> items = new ArrayList<>(resultados.values());
+        int exitosos = aPrestar.size();
+        return new ResultadoLoteDTO(exitosos, items.size() - exitosos, items);
     }
 
     @Transactional
@@ -89,16 +212,23 @@ public class PrestamoService {
             throw new BadRequestException("Este préstamo ya ha sido devuelto");
         }
 
-        // Actualizar el préstamo
+        // Actualizar el préstamo; la multa queda fijada con la fecha real de devolución
+        LocalDate hoy = LocalDate.now();
         prestamo.setEstado(EstadoPrestamo.DEVUELTO);
-        prestamo.setFechaDevolucion(LocalDate.now());
+        prestamo.setFechaDevolucion(hoy);
+        prestamo.setMulta(politicaPrestamos.multa(prestamo.getFechaVencimiento(), hoy));
 
         // Marcar el libro como disponible
         Libro libro = prestamo.getLibro();
-        libro.setDisponible(true);
-        libroRepository.save(libro);
+        libroRepository.marcarComoDisponible(libro.getId());
+        eventPublisher.publishEvent(new DisponibilidadCambiadaEvent(libro.getId(), libro.getGenero(), true));
 
-        Prestamo prestamoActualizado = prestamoRepository.save(prestamo);
+        // La versión del préstamo impide que dos devoluciones simultáneas se confirmen ambas
+        Prestamo prestamoActualizado = prestamoRepository.saveAndFlush(prestamo);
+        bandejaSalida.registrarPrestamo(TipoEvento.PRESTAMO_DEVUELTO, prestamoActualizado);
+        versionCatalogoRepository.incrementarLibros();
+        eventPublisher.publishEvent(PrestamoCambiadoEvent.devuelto(libro.getId(), prestamo.getUsuario().getId(),
+                libro.getGenero()));
         return convertirADTO(prestamoActualizado);
     }
 
@@ -107,23 +237,36 @@ public class PrestamoService {
         Prestamo prestamo = prestamoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Préstamo no encontrado con id: " + id));
 
-        // Si el préstamo está activo, devolver el libro antes de eliminar
-        if (prestamo.getEstado() == EstadoPrestamo.ACTIVO) {
+        // Si el préstamo sigue pendiente (activo o vencido), devolver el libro antes de eliminar
+        boolean pendiente = prestamo.getEstado() != EstadoPrestamo.DEVUELTO;
+        if (pendiente) {
             Libro libro = prestamo.getLibro();
-            libro.setDisponible(true);
-            libroRepository.save(libro);
+            libroRepository.marcarComoDisponible(libro.getId());
+            eventPublisher.publishEvent(new DisponibilidadCambiadaEvent(libro.getId(), libro.getGenero(), true));
         }
 
-        prestamoRepository.deleteById(id);
+        bandejaSalida.registrarPrestamo(TipoEvento.PRESTAMO_ELIMINADO, prestamo);
+        eventPublisher.publishEvent(PrestamoCambiadoEvent.eliminado(prestamo.getLibro().getId(),
+                prestamo.getUsuario().getId(), prestamo.getLibro().getGenero(), pendiente));
+        prestamoRepository.delete(prestamo);
+        if (pendiente) {
+            versionCatalogoRepository.incrementarLibros();
+        }
     }
 
     // Métodos auxiliares
-    private PrestamoDTO convertirADTO(Prestamo prestamo) {
+    private ResultadoLoteDTO.Item fallo(Long libroId, String mensaje) {
+        return new ResultadoLoteDTO.Item(libroId, false, mensaje, null);
+    }
+
+    PrestamoDTO convertirADTO(Prestamo prestamo) {
         PrestamoDTO dto = new PrestamoDTO();
         dto.setId(prestamo.getId());
         dto.setFechaPrestamo(prestamo.getFechaPrestamo());
+        dto.setFechaVencimiento(prestamo.getFechaVencimiento());
         dto.setFechaDevolucion(prestamo.getFechaDevolucion());
         dto.setEstado(prestamo.getEstado());
+        dto.setMulta(prestamo.getMulta());
         dto.setUsuarioId(prestamo.getUsuario().getId());
         dto.setLibroId(prestamo.getLibro().getId());
         dto.setNombreUsuario(prestamo.getUsuario().getNombre());
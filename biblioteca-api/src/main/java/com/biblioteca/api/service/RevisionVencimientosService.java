@@ -0,0 +1,154 @@
+package com.biblioteca.api.service;
+
+import com.biblioteca.api.config.VencimientosProperties;
+import com.biblioteca.api.entity.Prestamo.EstadoPrestamo;
+import com.biblioteca.api.entity.RevisionVencimientos;
+import com.biblioteca.api.repository.PrestamoRepository;
+import com.biblioteca.api.repository.PrestamoRepository.PrestamoVencido;
+import com.biblioteca.api.repository.RevisionVencimientosRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Revisión diaria de vencimientos: marca como VENCIDO cada préstamo pendiente cuya fecha de
+ * vencimiento ya ha pasado y actualiza su multa.
+ *
+ * <p>Los préstamos se recorren por id en bloques de tamaño fijo, cada uno en su propia
+ * transacción con tiempo máximo, así que la memoria no depende del número de préstamos y
+ * nunca se mantiene abierta una transacción larga. Cada bloque sólo bloquea las filas de los
+ * préstamos vencidos que modifica (que ningún alta de préstamo toca) y el punto de control,
+ * que avanza en la misma transacción: si la pasada se interrumpe, la siguiente ejecución la
+ * reanuda desde el último bloque confirmado.
+ */
+@Slf4j
+@Service
+public class RevisionVencimientosService implements MeterBinder {
+
+    static final String REVISION_PRESTAMOS = "prestamos";
+
+    private final PrestamoRepository prestamoRepository;
+    private final RevisionVencimientosRepository revisionRepository;
+    private final PoliticaPrestamos politicaPrestamos;
+    private final VencimientosProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong revisados = new AtomicLong();
+    private final AtomicLong actualizados = new AtomicLong();
+    private final AtomicLong bloques = new AtomicLong();
+    private final AtomicLong nanosEnBloques = new AtomicLong();
+
+    public RevisionVencimientosService(PrestamoRepository prestamoRepository,
+                                       RevisionVencimientosRepository revisionRepository,
+                                       PoliticaPrestamos politicaPrestamos,
+                                       VencimientosProperties properties,
+                                       PlatformTransactionManager transactionManager) {
+        this.prestamoRepository = prestamoRepository;
+        this.revisionRepository = revisionRepository;
+        this.politicaPrestamos = politicaPrestamos;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(Math.toIntExact(Math.max(properties.getTiempoMaximoBloque().toSeconds(), 1)));
+    }
+
+    @Scheduled(fixedDelayString = "${biblioteca.vencimientos.intervalo:PT1H}", initialDelayString = "PT1M")
+    public void revisarProgramada() {
+        if (properties.isRevisionHabilitada()) {
+            revisar(LocalDate.now());
+        }
+    }
+
+    // Completa la pasada del día indicado; si ya estaba completada no hace nada
+    public void revisar(LocalDate hoy) {
+        long inicio = System.nanoTime();
+        int revisadosEnPasada = 0;
+        int actualizadosEnPasada = 0;
+        Bloque bloque;
+        do {
+            long inicioBloque = System.nanoTime();
+            bloque = transactionTemplate.execute(estado -> procesarBloque(hoy));
+            if (bloque.revisados() > 0) {
+                bloques.incrementAndGet();
+                nanosEnBloques.addAndGet(System.nanoTime() - inicioBloque);
+                revisados.addAndGet(bloque.revisados());
+                actualizados.addAndGet(bloque.actualizados());
+                revisadosEnPasada += bloque.revisados();
+                actualizadosEnPasada += bloque.actualizados();
+            }
+        } while (!bloque.ultimo());
+
+        if (revisadosEnPasada > 0) {
+            long duracionMs = Math.max((System.nanoTime() - inicio) / 1_000_000, 1);
+            log.info("Revisión de vencimientos: {} préstamos vencidos revisados, {} actualizados en {} ms ({} préstamos/s)",
+                    revisadosEnPasada, actualizadosEnPasada, duracionMs, Math.round(revisadosEnPasada * 1000.0 / duracionMs));
+        }
+    }
+
+    private Bloque procesarBloque(LocalDate hoy) {
+        RevisionVencimientos revision = revisionRepository.findParaActualizar(REVISION_PRESTAMOS)
+                .orElseThrow(() -> new IllegalStateException("Falta el punto de control de la revisión de vencimientos"));
+        if (!hoy.equals(revision.getFecha())) {
+            revision.iniciar(hoy);
+        } else if (revision.isCompletada()) {
+            return new Bloque(0, 0, true);
+        }
+
+        int tamanoBloque = properties.getTamanoBloque();
+        List<PrestamoVencido> vencidos = prestamoRepository.findVencidosDespuesDe(
+                revision.getUltimoId(), hoy, Limit.of(tamanoBloque));
+
+        // Un UPDATE por cada importe distinto: los préstamos que vencieron el mismo día comparten multa
+        Map<BigDecimal, List<Long>> idsPorMulta = new HashMap<>();
+        for (PrestamoVencido prestamo : vencidos) {
+            BigDecimal multa = politicaPrestamos.multa(prestamo.getFechaVencimiento(), hoy);
+            boolean sinCambios = prestamo.getEstado() == EstadoPrestamo.VENCIDO
+                    && prestamo.getMulta() != null && prestamo.getMulta().compareTo(multa) == 0;
+            if (!sinCambios) {
+                idsPorMulta.computeIfAbsent(multa, m -> new ArrayList<>()).add(prestamo.getId());
+            }
+        }
+        int actualizadosEnBloque = 0;
+        for (Map.Entry<BigDecimal, List<Long>> grupo : idsPorMulta.entrySet()) {
+            actualizadosEnBloque += prestamoRepository.marcarComoVencidos(grupo.getValue(), grupo.getKey());
+        }
+
+        boolean ultimo = vencidos.size() < tamanoBloque;
+        Long hastaId = vencidos.isEmpty() ? null : vencidos.get(vencidos.size() - 1).getId();
+        revision.avanzar(hastaId, vencidos.size(), actualizadosEnBloque, ultimo);
+        return new Bloque(vencidos.size(), actualizadosEnBloque, ultimo);
+    }
+
+    // Ritmo de la revisión: préstamos por segundo y duración media de cada bloque
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("biblioteca.vencimientos.revisados", revisados, AtomicLong::get)
+                .description("Préstamos vencidos revisados")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.vencimientos.actualizados", actualizados, AtomicLong::get)
+                .description("Préstamos marcados como vencidos o con la multa actualizada")
+                .register(registry);
+        FunctionTimer.builder("biblioteca.vencimientos.bloques", this,
+                        revision -> revision.bloques.get(), revision -> revision.nanosEnBloques.get(), TimeUnit.NANOSECONDS)
+                .description("Transacciones de la revisión de vencimientos")
+                .register(registry);
+    }
+
+    private record Bloque(int revisados, int actualizados, boolean ultimo) {
+    }
+}
@@ -1,5 +1,7 @@
 package com.biblioteca.api.service;
 
+import com.biblioteca.api.coalescencia.Coalescente;
+import com.biblioteca.api.dto.PaginaDTO;
 import com.biblioteca.api.dto.PerfilDTO;
 import com.biblioteca.api.dto.UsuarioDTO;
 import com.biblioteca.api.entity.Perfil;
@@ -7,15 +9,20 @@ import com.biblioteca.api.entity.Usuario;
 import com.biblioteca.api.exception.BadRequestException;
 import com.biblioteca.api.exception.ResourceNotFoundException;
 import com.biblioteca.api.repository.UsuarioRepository;
+import com.biblioteca.api.repository.UsuarioRepository.VersionUsuario;
+import com.biblioteca.api.util.CursorUtil;
+import com.biblioteca.api.util.EtagUtil;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "biblioteca.servicio", description = "Tiempo de ejecución de los métodos de servicio")
 @RequiredArgsConstructor
 public class UsuarioService {
 
@@ -23,16 +30,34 @@ public class UsuarioService {
 
     @Transactional(readOnly = true)
     public List<UsuarioDTO> obtenerTodosLosUsuarios() {
-        return usuarioRepository.findAll().stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+        return usuarioRepository.findAllDTO();
     }
 
+    @Transactional(readOnly = true)
+    public PaginaDTO<UsuarioDTO> obtenerUsuariosPaginados(String cursor, int limite) {
+        CursorUtil.validarLimite(limite);
+        long despuesDe = CursorUtil.decodificar(cursor);
+        List<UsuarioDTO> resultados = usuarioRepository.findDTOByIdGreaterThan(despuesDe, Limit.of(limite + 1));
+        return CursorUtil.construirPagina(resultados, limite, UsuarioDTO::getId);
+    }
+
+    // El ETag cambia tanto si se modifica el usuario como si se crea o modifica su perfil
+    @Transactional(readOnly = true)
+    public String obtenerEtagUsuario(Long id) {
+        VersionUsuario version = usuarioRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con id: " + id));
+        if (version.getPerfilId() == null) {
+            return EtagUtil.fuerte("usuario", id, "v" + version.getVersion());
+        }
+        return EtagUtil.fuerte("usuario", id, "v" + version.getVersion(),
+                "p" + version.getPerfilId(), "v" + version.getVersionPerfil());
+    }
+
+    @Coalescente
     @Transactional(readOnly = true)
     public UsuarioDTO obtenerUsuarioPorId(Long id) {
-        Usuario usuario = usuarioRepository.findById(id)
+        return usuarioRepository.findDTOById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con id: " + id));
-        return convertirADTO(usuario);
     }
 
     @Transactional
@@ -94,7 +119,7 @@ public class UsuarioService {
     }
 
     // Métodos auxiliares
-    private UsuarioDTO convertirADTO(Usuario usuario) {
+    UsuarioDTO convertirADTO(Usuario usuario) {
         UsuarioDTO dto = new UsuarioDTO();
         dto.setId(usuario.getId());
         dto.setNombre(usuario.getNombre());
@@ -0,0 +1,62 @@
+package com.biblioteca.api.util;
+
+import com.biblioteca.api.dto.PaginaDTO;
+import com.biblioteca.api.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Utilidades para la paginación por cursor (keyset). El cursor codifica el último id
+ * devuelto, de forma que cada página se resuelve con un "WHERE id > ? ORDER BY id LIMIT ?"
+ * y su coste no depende de la profundidad.
+ */
+public final class CursorUtil {
+
+    public static final int LIMITE_MAXIMO = 100;
+
+    private static final String PREFIJO = "id:";
+
+    private CursorUtil() {
+    }
+
+    public static String codificar(Long id) {
+        String valor = PREFIJO + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Devuelve el id a partir del cual buscar; sin cursor se empieza desde el principio
+    public static long decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!valor.startsWith(PREFIJO)) {
+                throw new BadRequestException("Cursor de paginación inválido");
+            }
+            return Long.parseLong(valor.substring(PREFIJO.length()));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Cursor de paginación inválido");
+        }
+    }
+
+    public static void validarLimite(int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new BadRequestException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+    }
+
+    /**
+     * Construye la página a partir de los resultados de una consulta que pidió limite + 1 filas:
+     * la fila extra sólo indica que hay más resultados y no se devuelve.
+     */
+    public static <T> PaginaDTO<T> construirPagina(List<T> resultados, int limite, Function<T, Long> obtenerId) {
+        boolean hayMas = resultados.size() > limite;
+        List<T> contenido = hayMas ? resultados.subList(0, limite) : resultados;
+        String siguiente = hayMas ? codificar(obtenerId.apply(contenido.get(contenido.size() - 1))) : null;
+        return new PaginaDTO<>(contenido, siguiente, limite);
+    }
+}
@@ -0,0 +1,28 @@
+package com.biblioteca.api.util;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Construcción de ETags fuertes a partir de las versiones de las entidades. Como la versión
+ * se consulta sin cargar la entidad, una petición condicional que no ha cambiado se responde
+ * con 304 sin consultar ni serializar el recurso.
+ *
+ * <p>La versión debe leerse antes que el cuerpo: si el recurso cambia entre ambas lecturas,
+ * el cliente recibe un cuerpo más nuevo que su ETag y simplemente lo volverá a descargar. Lo
+ * contrario (un cuerpo antiguo con el ETag nuevo) dejaría al cliente con el antiguo para siempre,
+ * así que un cuerpo cacheado debe guardarse bajo la clave de su ETag, no sólo la del recurso.
+ */
+public final class EtagUtil {
+
+    private EtagUtil() {
+    }
+
+    // Une las partes con guiones: fuerte("libro", 7, "v3") -> "libro-7-v3" (entre comillas)
+    public static String fuerte(String recurso, Object... partes) {
+        String valor = Arrays.stream(partes)
+                .map(String::valueOf)
+                .collect(Collectors.joining("-", recurso + "-", ""));
+        return "\"" + valor + "\"";
+    }
+}
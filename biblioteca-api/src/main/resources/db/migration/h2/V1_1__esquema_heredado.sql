@@ -0,0 +1,31 @@
+-- Completa el esquema de las bases de datos anteriores a Flyway (registradas en la versión 1 sin
+-- ejecutarla), que Hibernate creó con ids IDENTITY y sin columnas de versión. En una base de datos
+-- creada por V1 no cambia nada.
+
+-- Secuencias de los ids. Se sitúan después del mayor id existente: con la reserva de bloques de 50,
+-- el primer bloque termina en el valor de la secuencia y empieza 49 ids antes
+create sequence if not exists libros_seq start with 1 increment by 50;
+create sequence if not exists prestamos_seq start with 1 increment by 50;
+alter sequence libros_seq restart with (select coalesce(max(id), 0) + 50 from libros);
+alter sequence prestamos_seq restart with (select coalesce(max(id), 0) + 50 from prestamos);
+
+-- Bloqueo optimista
+alter table libros add column if not exists version bigint;
+alter table usuarios add column if not exists version bigint;
+alter table perfiles add column if not exists version bigint;
+alter table prestamos add column if not exists version bigint;
+-- Las filas existentes empiezan en la versión 0, como las que inserta Hibernate
+update libros set version = 0 where version is null;
+update usuarios set version = 0 where version is null;
+update perfiles set version = 0 where version is null;
+update prestamos set version = 0 where version is null;
+
+-- Hibernate declaraba la restricción del estado dentro de la columna y H2 le puso un nombre
+-- generado; V3 la sustituye por su nombre. Se rehace la columna para que se llame igual en todas
+alter table prestamos drop constraint if exists ck_prestamos_estado;
+alter table prestamos add column estado_nuevo varchar(255);
+update prestamos set estado_nuevo = estado;
+alter table prestamos drop column estado;
+alter table prestamos alter column estado_nuevo rename to estado;
+alter table prestamos alter column estado set not null;
+alter table prestamos add constraint ck_prestamos_estado check (estado in ('ACTIVO', 'DEVUELTO'));
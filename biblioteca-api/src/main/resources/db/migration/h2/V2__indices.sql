@@ -0,0 +1,15 @@
+-- Índices de las consultas frecuentes. Mismo diseño que en PostgreSQL salvo que H2 no admite
+-- índices parciales: los préstamos activos se resuelven con el compuesto (usuario_id, estado)
+-- y los libros disponibles con un índice normal sobre la columna.
+
+-- Préstamos de un usuario por estado
+create index if not exists ix_prestamos_usuario_estado on prestamos (usuario_id, estado);
+
+-- Préstamos de un libro
+create index if not exists ix_prestamos_libro on prestamos (libro_id);
+
+-- Catálogo por género, ordenado por id
+create index if not exists ix_libros_genero on libros (genero, id);
+
+-- Libros disponibles
+create index if not exists ix_libros_disponible on libros (disponible, id);
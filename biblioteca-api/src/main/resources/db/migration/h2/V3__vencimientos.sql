@@ -0,0 +1,27 @@
+-- Fecha de vencimiento y multa de los préstamos, y estado VENCIDO.
+-- Los préstamos existentes vencen a los 14 días, el plazo por defecto.
+alter table prestamos add column fecha_vencimiento date;
+alter table prestamos add column multa numeric(10, 2);
+update prestamos set fecha_vencimiento = dateadd(day, 14, fecha_prestamo);
+alter table prestamos alter column fecha_vencimiento set not null;
+
+alter table prestamos drop constraint ck_prestamos_estado;
+alter table prestamos add constraint ck_prestamos_estado check (estado in ('ACTIVO', 'VENCIDO', 'DEVUELTO'));
+
+-- Punto de control de la revisión de vencimientos: la pasada del día se reanuda desde
+-- ultimo_id si se interrumpe. La fila se crea aquí para que nunca haya que insertarla
+-- (dos instancias podrían intentarlo a la vez); con una fecha pasada, la primera revisión
+-- empieza una pasada nueva.
+create table revisiones_vencimiento (
+    nombre varchar(50) not null,
+    fecha date not null,
+    ultimo_id bigint not null,
+    revisados bigint not null,
+    actualizados bigint not null,
+    completada boolean not null,
+    actualizada timestamp not null,
+    constraint pk_revisiones_vencimiento primary key (nombre)
+);
+
+insert into revisiones_vencimiento (nombre, fecha, ultimo_id, revisados, actualizados, completada, actualizada)
+values ('prestamos', date '2000-01-01', 0, 0, 0, true, current_timestamp);
@@ -0,0 +1,12 @@
+-- Bandeja de salida de eventos: los servicios insertan aquí, en la misma transacción que el
+-- cambio, lo que deben saber otros sistemas; el publicador las envía en lotes y las borra.
+create sequence eventos_salida_seq start with 1 increment by 50;
+
+create table eventos_salida (
+    id bigint not null,
+    tipo varchar(40) not null,
+    agregado_id bigint not null,
+    datos varchar(1000) not null,
+    creado timestamp not null,
+    constraint pk_eventos_salida primary key (id)
+);
@@ -0,0 +1,58 @@
+-- Esquema inicial de las entidades, con ids de secuencia y columnas de versión.
+-- Las bases de datos ya existentes se registran en esta versión (baseline) sin ejecutarla;
+-- V1_1 les añade lo que les falta respecto a este esquema.
+
+-- Secuencias con reserva de bloques de 50 (allocationSize de las entidades)
+create sequence libros_seq start with 1 increment by 50;
+create sequence prestamos_seq start with 1 increment by 50;
+
+create table libros (
+    id bigint not null,
+    titulo varchar(255) not null,
+    isbn varchar(255) not null,
+    autor varchar(255) not null,
+    anio_publicacion integer,
+    genero varchar(255) not null,
+    disponible boolean not null,
+    version bigint,
+    constraint pk_libros primary key (id),
+    constraint uk_libros_isbn unique (isbn)
+);
+
+create table usuarios (
+    id bigint generated by default as identity,
+    nombre varchar(255) not null,
+    email varchar(255) not null,
+    telefono varchar(255) not null,
+    fecha_registro date not null,
+    version bigint,
+    constraint pk_usuarios primary key (id),
+    constraint uk_usuarios_email unique (email)
+);
+
+create table perfiles (
+    id bigint generated by default as identity,
+    usuario_id bigint not null,
+    direccion varchar(255) not null,
+    ciudad varchar(255) not null,
+    codigo_postal varchar(255) not null,
+    preferencias_lectura varchar(255),
+    version bigint,
+    constraint pk_perfiles primary key (id),
+    constraint uk_perfiles_usuario unique (usuario_id),
+    constraint fk_perfiles_usuario foreign key (usuario_id) references usuarios (id)
+);
+
+create table prestamos (
+    id bigint not null,
+    fecha_prestamo date not null,
+    fecha_devolucion date,
+    estado varchar(255) not null,
+    usuario_id bigint not null,
+    libro_id bigint not null,
+    version bigint,
+    constraint pk_prestamos primary key (id),
+    constraint ck_prestamos_estado check (estado in ('ACTIVO', 'DEVUELTO')),
+    constraint fk_prestamos_usuario foreign key (usuario_id) references usuarios (id),
+    constraint fk_prestamos_libro foreign key (libro_id) references libros (id)
+);
@@ -0,0 +1,18 @@
+-- Índices de las consultas frecuentes. PostgreSQL no indexa por sí solo las claves ajenas.
+
+-- Préstamos de un usuario por estado (también cubre la clave ajena usuario_id)
+create index if not exists ix_prestamos_usuario_estado on prestamos (usuario_id, estado);
+
+-- Préstamos activos de un usuario: la mayoría de préstamos acaban devueltos, así que el
+-- índice parcial es mucho más pequeño que el compuesto y ya viene ordenado por id
+create index if not exists ix_prestamos_activos on prestamos (usuario_id, id) where estado = 'ACTIVO';
+
+-- Préstamos de un libro (clave ajena libro_id: borrado de libros)
+create index if not exists ix_prestamos_libro on prestamos (libro_id);
+
+-- Catálogo por género, ordenado por id
+create index if not exists ix_libros_genero on libros (genero, id);
+
+-- Libros disponibles ordenados por id. Un índice sobre un booleano apenas filtra; el parcial
+-- sólo contiene los disponibles y evita ordenar el resultado
+create index if not exists ix_libros_disponibles on libros (id) where disponible;
@@ -0,0 +1,9 @@
+-- Contador de cambios del catálogo, del que sale el ETag de la lista de libros. Cada transacción
+-- que modifica libros lo incrementa; la fila se crea aquí para que nunca haya que insertarla.
+create table versiones_catalogo (
+    nombre varchar(50) not null,
+    version bigint not null,
+    constraint pk_versiones_catalogo primary key (nombre)
+);
+
+insert into versiones_catalogo (nombre, version) values ('libros', 0);
@@ -0,0 +1,175 @@
+package com.biblioteca.api.bd;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Cada base de datos H2 en memoria tiene una tabla que dice cuál es
+class EnrutadorLecturaDataSourceTest {
+
+    private static final String URL_REPLICA_CAIDA = "jdbc:h2:mem:replica-caida;DB_CLOSE_DELAY=-1";
+
+    private final DataSource principal = baseDeDatos("principal");
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private ReplicasLectura replicas;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate escritura;
+    private TransactionTemplate lectura;
+
+    @Test
+    void testEscrituraEnPrincipalYLecturaEnReplica() {
+        // Arrange
+        enrutar(Duration.ZERO, Map.of("replica-1", baseDeDatos("replica-1")));
+
+        // Act
+        String origenEscritura = escritura.execute(estado -> {
+            jdbcTemplate.update("update origen set lecturas = lecturas + 1");
+            return origen();
+        });
+        String origenLectura = lectura.execute(estado -> origen());
+
+        // Assert
+        assertEquals("principal", origenEscritura);
+        assertEquals("replica-1", origenLectura);
+        assertEquals(1, lecturas("replica"));
+        assertEquals(0, lecturas("principal"));
+    }
+
+    @Test
+    void testLecturas_TurnoRotatorioEntreReplicas() {
+        // Arrange
+        Map<String, DataSource> dosReplicas = new LinkedHashMap<>();
+        dosReplicas.put("replica-1", baseDeDatos("replica-1"));
+        dosReplicas.put("replica-2", baseDeDatos("replica-2"));
+        enrutar(Duration.ZERO, dosReplicas);
+
+        // Act
+        List<String> origenes = List.of(
+                lectura.execute(estado -> origen()),
+                lectura.execute(estado -> origen()),
+                lectura.execute(estado -> origen()),
+                lectura.execute(estado -> origen()));
+
+        // Assert
+        assertEquals(List.of("replica-1", "replica-2", "replica-1", "replica-2"), origenes);
+    }
+
+    @Test
+    void testReplicaCaida_LeeDeLaPrincipalHastaQueVuelve() {
+        // Arrange: la réplica todavía no existe
+        JdbcDataSource caida = new JdbcDataSource();
+        caida.setURL(URL_REPLICA_CAIDA + ";IFEXISTS=TRUE");
+        enrutar(Duration.ZERO, Map.of("replica-caida", caida));
+
+        // Act
+        String primeraLectura = lectura.execute(estado -> origen());
+        String segundaLectura = lectura.execute(estado -> origen());
+        double disponiblesTrasLaCaida = disponibles();
+        baseDeDatos(URL_REPLICA_CAIDA, "replica-caida");
+        replicas.verificar();
+        String lecturaTrasVolver = lectura.execute(estado -> origen());
+
+        // Assert
+        assertEquals("principal", primeraLectura);
+        assertEquals("principal", segundaLectura);
+        assertEquals(0, disponiblesTrasLaCaida);
+        assertEquals(1, registry.get("biblioteca.bd.replicas.caidas").functionCounter().count());
+        assertEquals("replica-caida", lecturaTrasVolver);
+        assertEquals(1, disponibles());
+    }
+
+    @Test
+    void testVentanaLecturaPropia_SoloParaElClienteQueEscribe() {
+        // Arrange
+        enrutar(Duration.ofMinutes(1), Map.of("replica-1", baseDeDatos("replica-1")));
+        EnrutadorLecturaDataSource.establecerCliente("escritor");
+        try {
+            String lecturaAntes = lectura.execute(estado -> origen());
+            escritura.executeWithoutResult(estado -> jdbcTemplate.update("update origen set lecturas = lecturas + 1"));
+
+            // Act
+            String lecturaDelEscritor = lectura.execute(estado -> origen());
+            EnrutadorLecturaDataSource.establecerCliente("lector");
+            String lecturaDeOtroCliente = lectura.execute(estado -> origen());
+
+            // Assert
+            assertEquals("replica-1", lecturaAntes);
+            assertEquals("principal", lecturaDelEscritor);
+            assertEquals("replica-1", lecturaDeOtroCliente);
+        } finally {
+            EnrutadorLecturaDataSource.limpiarCliente();
+        }
+    }
+
+    @Test
+    void testEscrituraRevertida_NoAbreLaVentana() {
+        // Arrange
+        enrutar(Duration.ofMinutes(1), Map.of("replica-1", baseDeDatos("replica-1")));
+        EnrutadorLecturaDataSource.establecerCliente("escritor");
+        try {
+            escritura.executeWithoutResult(estado -> {
+                jdbcTemplate.update("update origen set lecturas = lecturas + 1");
+                estado.setRollbackOnly();
+            });
+
+            // Act
+            String lectura = this.lectura.execute(estado -> origen());
+
+            // Assert
+            assertEquals("replica-1", lectura);
+        } finally {
+            EnrutadorLecturaDataSource.limpiarCliente();
+        }
+    }
+
+    private void enrutar(Duration ventanaLecturaPropia, Map<String, DataSource> replicasPorNombre) {
+        replicas = new ReplicasLectura(replicasPorNombre);
+        replicas.bindTo(registry);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(
+                new EnrutadorLecturaDataSource(principal, replicas, ventanaLecturaPropia));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        escritura = new TransactionTemplate(transactionManager);
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+    }
+
+    private double lecturas(String destino) {
+        return registry.get("biblioteca.bd.lecturas").tag("destino", destino).functionCounter().count();
+    }
+
+    private double disponibles() {
+        return registry.get("biblioteca.bd.replicas.disponibles").gauge().value();
+    }
+
+    private String origen() {
+        return jdbcTemplate.queryForObject("select nombre from origen", String.class);
+    }
+
+    private static DataSource baseDeDatos(String nombre) {
+        return baseDeDatos("jdbc:h2:mem:" + nombre + ";DB_CLOSE_DELAY=-1", nombre);
+    }
+
+    private static DataSource baseDeDatos(String url, String nombre) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL(url);
+        JdbcTemplate jdbc = new JdbcTemplate(h2);
+        jdbc.execute("create table if not exists origen (nombre varchar(20), lecturas int)");
+        jdbc.update("delete from origen");
+        jdbc.update("insert into origen values (?, 0)", nombre);
+        return h2;
+    }
+}
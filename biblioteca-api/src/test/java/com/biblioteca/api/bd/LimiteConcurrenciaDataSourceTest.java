@@ -0,0 +1,51 @@
+package com.biblioteca.api.bd;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimiteConcurrenciaDataSourceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private LimiteConcurrenciaDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:limite;DB_CLOSE_DELAY=-1");
+        dataSource = new LimiteConcurrenciaDataSource(h2, 2, Duration.ofMillis(50));
+        dataSource.bindTo(registry);
+    }
+
+    @Test
+    void testLimiteAlcanzado_FallaTrasLaEspera() throws Exception {
+        try (Connection primera = dataSource.getConnection(); Connection segunda = dataSource.getConnection()) {
+            assertEquals(0, permisosDisponibles());
+            assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+        }
+        assertEquals(2, permisosDisponibles());
+    }
+
+    @Test
+    void testCerrarDosVeces_DevuelveUnSoloPermiso() throws Exception {
+        Connection conexion = dataSource.getConnection();
+        conexion.close();
+        conexion.close();
+
+        assertEquals(2, permisosDisponibles());
+        try (Connection otra = dataSource.getConnection()) {
+            assertTrue(otra.isValid(1));
+        }
+    }
+
+    private double permisosDisponibles() {
+        return registry.get("biblioteca.bd.permisos.disponibles").gauge().value();
+    }
+}
@@ -0,0 +1,113 @@
+package com.biblioteca.api.bd;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Aplica las migraciones de H2 a una base de datos creada por la versión anterior a Flyway (el
+ * esquema que generaba Hibernate con ddl-auto, con datos) y a una vacía, como al arrancar.
+ */
+class MigracionesTest {
+
+    // Tal y como lo dejaba Hibernate: ids IDENTITY, sin versiones y restricciones con nombre generado
+    private static final String ESQUEMA_HEREDADO = """
+            create table libros (id bigint generated by default as identity, anio_publicacion integer,
+                autor varchar(255) not null, disponible boolean not null, genero varchar(255) not null,
+                isbn varchar(255) not null, titulo varchar(255) not null, primary key (id));
+            create table usuarios (id bigint generated by default as identity, email varchar(255) not null,
+                fecha_registro date not null, nombre varchar(255) not null, telefono varchar(255) not null,
+                primary key (id));
+            create table perfiles (id bigint generated by default as identity, ciudad varchar(255) not null,
+                codigo_postal varchar(255) not null, direccion varchar(255) not null,
+                preferencias_lectura varchar(255), usuario_id bigint not null unique, primary key (id));
+            create table prestamos (id bigint generated by default as identity,
+                estado varchar(255) not null check (estado in ('ACTIVO','DEVUELTO')), fecha_devolucion date,
+                fecha_prestamo date not null, libro_id bigint not null, usuario_id bigint not null, primary key (id));
+            alter table libros add constraint UK_278ekmuxh4b6i98mqypvacdcu unique (isbn);
+            alter table usuarios add constraint UK_kfsp0s1tflm1cwlj8iqhsad0 unique (email);
+            alter table perfiles add constraint FKowo6q4m6x5tklwmure6pp4dae foreign key (usuario_id) references usuarios;
+            alter table prestamos add constraint FKqwwlmlxm19mwwnpng9945iy3 foreign key (libro_id) references libros;
+            alter table prestamos add constraint FKeqd1t799y0x5ck9mdeltepy1w foreign key (usuario_id) references usuarios;
+            """;
+
+    @Test
+    void testBaseDeDatosHeredada_SeCompletaYConservaLosDatos() {
+        // Arrange
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource("heredada"));
+        jdbc.execute(ESQUEMA_HEREDADO);
+        jdbc.update("insert into usuarios (nombre, email, telefono, fecha_registro) values ('Ana', 'ana@x.com', '600', date '2024-01-01')");
+        for (int i = 1; i <= 70; i++) {
+            jdbc.update("insert into libros (titulo, isbn, autor, genero, disponible) values (?, ?, 'Autor', 'Novela', true)",
+                    "Libro " + i, "isbn-" + i);
+        }
+        jdbc.update("insert into prestamos (fecha_prestamo, estado, usuario_id, libro_id) values (date '2024-02-01', 'ACTIVO', 1, 1)");
+
+        // Act
+        migrar(jdbc.getDataSource());
+
+        // Assert: el primer bloque de 50 ids de cada secuencia empieza después de los existentes
+        assertEquals(70, jdbc.queryForObject("select count(*) from libros", Integer.class));
+        long libros = jdbc.queryForObject("select next value for libros_seq", Long.class);
+        long prestamos = jdbc.queryForObject("select next value for prestamos_seq", Long.class);
+        assertTrue(libros - 49 > 70, "libros_seq = " + libros);
+        assertTrue(prestamos - 49 > 1, "prestamos_seq = " + prestamos);
+        assertEquals(LocalDate.of(2024, 2, 15), jdbc.queryForObject("select fecha_vencimiento from prestamos where id = 1", LocalDate.class));
+        assertEquals(0, jdbc.queryForObject("select count(*) from libros where version is null", Integer.class));
+        assertEquals(1, jdbc.update("update prestamos set estado = 'VENCIDO', version = version + 1 where id = 1 and version = 0"));
+        assertThrows(Exception.class, () -> jdbc.update("update prestamos set estado = 'PERDIDO' where id = 1"));
+    }
+
+    @Test
+    void testBaseDeDatosHeredada_QuedaIgualQueUnaNueva() {
+        // Arrange
+        JdbcTemplate heredada = new JdbcTemplate(dataSource("comparada-heredada"));
+        heredada.execute(ESQUEMA_HEREDADO);
+        JdbcTemplate nueva = new JdbcTemplate(dataSource("comparada-nueva"));
+
+        // Act
+        migrar(heredada.getDataSource());
+        migrar(nueva.getDataSource());
+
+        // Assert: mismas columnas, tipos y nulabilidad, que es lo que valida Hibernate al arrancar
+        assertEquals(columnas(nueva), columnas(heredada));
+        assertEquals(secuencias(nueva), secuencias(heredada));
+    }
+
+    private static DataSource dataSource(String nombre) {
+        return new DriverManagerDataSource("jdbc:h2:mem:migraciones-" + nombre + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    // Misma configuración que spring.flyway.* en application.properties
+    private static void migrar(DataSource dataSource) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/h2")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+
+    private static List<Map<String, Object>> columnas(JdbcTemplate jdbc) {
+        return jdbc.queryForList("""
+                select table_name, column_name, data_type, character_maximum_length, is_nullable
+                from information_schema.columns
+                where table_schema = 'PUBLIC' and table_name in ('LIBROS', 'USUARIOS', 'PERFILES', 'PRESTAMOS')
+                order by table_name, column_name""");
+    }
+
+    private static List<Map<String, Object>> secuencias(JdbcTemplate jdbc) {
+        return jdbc.queryForList("""
+                select sequence_name, increment from information_schema.sequences
+                where sequence_schema = 'PUBLIC' order by sequence_name""");
+    }
+}
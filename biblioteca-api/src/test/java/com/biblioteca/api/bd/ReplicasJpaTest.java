@@ -0,0 +1,142 @@
+package com.biblioteca.api.bd;
+
+import com.biblioteca.api.cache.CacheRespuestas;
+import com.biblioteca.api.cache.ClavesCache;
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.formato.FormatoRespuesta;
+import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.service.LibroService;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Enrutado a réplicas con el JpaTransactionManager de la aplicación. La "réplica" es otra base
+ * de datos H2 con el mismo esquema en la que el libro conserva su título anterior, como una
+ * réplica con retraso.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:principal-replicas;DB_CLOSE_DELAY=-1",
+        "biblioteca.replicas.urls=" + ReplicasJpaTest.URL_REPLICA,
+        "biblioteca.replicas.usuario=sa",
+        "biblioteca.replicas.contrasena="
+})
+class ReplicasJpaTest {
+
+    static final String URL_REPLICA = "jdbc:h2:mem:replica-jpa;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate REPLICA = new JdbcTemplate(new DriverManagerDataSource(URL_REPLICA, "sa", ""));
+
+    // La réplica necesita el esquema antes de que arranque el contexto
+    static {
+        Flyway.configure().dataSource(REPLICA.getDataSource()).locations("classpath:db/migration/h2").load().migrate();
+    }
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private LibroService libroService;
+
+    @Autowired
+    private CacheRespuestas cacheRespuestas;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private TransactionTemplate escritura;
+    private TransactionTemplate lectura;
+    private Long libroId;
+
+    @BeforeEach
+    void setUp() {
+        escritura = new TransactionTemplate(transactionManager);
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+
+        Libro libro = new Libro();
+        libro.setTitulo("Título nuevo");
+        libro.setIsbn("isbn-replica-" + System.nanoTime());
+        libro.setAutor("Autor");
+        libro.setAnioPublicacion(2020);
+        libro.setGenero("Ensayo");
+        libro.setDisponible(true);
+        libroId = libroRepository.save(libro).getId();
+        REPLICA.update("insert into libros (id, titulo, isbn, autor, anio_publicacion, genero, disponible, version) "
+                + "values (?, 'Título anterior', ?, 'Autor', 2020, 'Ensayo', true, 0)", libroId, libro.getIsbn());
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void testJpa_SoloLecturaEnReplicaYEscrituraEnPrincipal() {
+        // Act
+        String enLectura = lectura.execute(estado -> titulo(libroRepository.findDTOByIdIn(List.of(libroId))));
+        String enEscritura = escritura.execute(estado -> titulo(libroRepository.findDTOByIdIn(List.of(libroId))));
+
+        // Assert
+        assertInstanceOf(JpaTransactionManager.class, transactionManager);
+        assertEquals("Título anterior", enLectura);
+        assertEquals("Título nuevo", enEscritura);
+    }
+
+    @Test
+    void testCacheSegundoNivel_NoGuardaLoLeidoDeLaReplica() {
+        // Arrange
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        // Act
+        String enReplica = lectura.execute(estado -> {
+            libroRepository.findDTOByGenero("Ensayo");
+            return libroRepository.findById(libroId).orElseThrow().getTitulo();
+        });
+        boolean cacheadoTrasReplica = entityManagerFactory.getCache().contains(Libro.class, libroId);
+        String enPrincipal = escritura.execute(estado -> {
+            libroRepository.findDTOByGenero("Ensayo");
+            return libroRepository.findById(libroId).orElseThrow().getTitulo();
+        });
+
+        // Assert
+        assertEquals("Título anterior", enReplica);
+        assertFalse(cacheadoTrasReplica);
+        assertEquals(0, estadisticas.getQueryCacheHitCount());
+        assertEquals("Título nuevo", enPrincipal);
+        assertTrue(entityManagerFactory.getCache().contains(Libro.class, libroId));
+    }
+
+    @Test
+    void testCacheRespuestas_SeRellenaDesdeLaPrincipal() {
+        // Act
+        byte[] json = cacheRespuestas.obtener(ClavesCache.libro(libroId, "\"libro-" + libroId + "-v0\""),
+                FormatoRespuesta.JSON, () -> libroService.obtenerLibroPorId(libroId));
+        entityManagerFactory.getCache().evictAll();
+        LibroDTO sinCache = lectura.execute(estado -> libroService.obtenerLibroPorId(libroId));
+
+        // Assert: la misma lectura fuera de la caché sí va a la réplica
+        assertTrue(new String(json, StandardCharsets.UTF_8).contains("Título nuevo"));
+        assertEquals("Título anterior", sinCache.getTitulo());
+    }
+
+    private static String titulo(List<LibroDTO> libros) {
+        return libros.get(0).getTitulo();
+    }
+}
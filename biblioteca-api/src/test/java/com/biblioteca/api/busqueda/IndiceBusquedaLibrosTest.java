@@ -0,0 +1,72 @@
+package com.biblioteca.api.busqueda;
+
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.event.LibroCambiadoEvent;
+import com.biblioteca.api.repository.LibroRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class IndiceBusquedaLibrosTest {
+
+    private IndiceBusquedaLibros indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceBusquedaLibros(mock(LibroRepository.class));
+        indice.indexar(1L, "Cien años de soledad", "Gabriel García Márquez");
+        indice.indexar(2L, "El amor en los tiempos del cólera", "Gabriel García Márquez");
+        indice.indexar(3L, "La familia de Pascual Duarte", "Camilo José Cela");
+        indice.indexar(4L, "Márquez y su época", "Ana Soler");
+    }
+
+    @Test
+    void testBuscar_IgnoraTildesYMayusculas() {
+        assertEquals(List.of(2L), indice.buscar("COLERA", 10));
+        assertEquals(List.of(3L), indice.buscar("jose cela", 10));
+    }
+
+    @Test
+    void testBuscar_ExigeTodosLosTerminos() {
+        assertEquals(List.of(1L), indice.buscar("soledad garcia", 10));
+        assertTrue(indice.buscar("soledad cela", 10).isEmpty());
+    }
+
+    @Test
+    void testBuscar_UltimoTerminoComoPrefijo() {
+        assertEquals(List.of(3L), indice.buscar("pascual dua", 10));
+    }
+
+    @Test
+    void testBuscar_TituloPuntuaMasQueAutor() {
+        List<Long> resultado = indice.buscar("marquez", 10);
+
+        assertEquals(3, resultado.size());
+        assertEquals(4L, resultado.get(0));
+    }
+
+    @Test
+    void testBuscar_RespetaElLimite() {
+        assertEquals(2, indice.buscar("gabriel", 2).size());
+        assertEquals(1, indice.buscar("gabriel", 1).size());
+    }
+
+    @Test
+    void testCambiosDeLibro_ActualizanElIndice() {
+        // Act
+        LibroDTO actualizado = new LibroDTO(1L, "Crónica de una muerte anunciada", "isbn", "Gabriel García Márquez",
+                1981, "Novela", true);
+        indice.alCambiarLibro(new LibroCambiadoEvent(1L, null, actualizado));
+        indice.alCambiarLibro(new LibroCambiadoEvent(3L, null, null));
+
+        // Assert
+        assertTrue(indice.buscar("soledad", 10).isEmpty());
+        assertEquals(List.of(1L), indice.buscar("cronica", 10));
+        assertTrue(indice.buscar("cela", 10).isEmpty());
+        assertEquals(3, indice.tamano());
+    }
+}
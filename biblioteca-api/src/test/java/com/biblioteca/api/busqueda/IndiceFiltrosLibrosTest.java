@@ -0,0 +1,146 @@
+package com.biblioteca.api.busqueda;
+
+import com.biblioteca.api.config.IndiceFiltrosProperties;
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.event.DisponibilidadCambiadaEvent;
+import com.biblioteca.api.event.LibroCambiadoEvent;
+import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.repository.LibroRepository.FiltroLibro;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IndiceFiltrosLibrosTest {
+
+    private LibroRepository libroRepository;
+    private IndiceFiltrosProperties properties;
+    private List<FiltroLibro> catalogo;
+    private IndiceFiltrosLibros indice;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        libroRepository = mock(LibroRepository.class);
+        properties = new IndiceFiltrosProperties();
+        catalogo = new ArrayList<>(List.of(
+                new Filtro(1L, "Novela", true),
+                new Filtro(2L, "Novela", false),
+                new Filtro(3L, "Poesía", true),
+                new Filtro(4L, "Novela", true),
+                new Filtro(5L, "Ensayo", false)));
+        when(libroRepository.streamFiltros()).thenAnswer(invocacion -> new ArrayList<>(catalogo).stream());
+        indice = new IndiceFiltrosLibros(libroRepository, properties);
+        indice.bindTo(registry);
+    }
+
+    @Test
+    void testConstruir_FiltrosPorInterseccion() {
+        // Act
+        indice.construir();
+
+        // Assert
+        assertTrue(indice.listo());
+        assertEquals(List.of(1L, 3L, 4L), indice.disponibles());
+        assertEquals(List.of(1L, 2L, 4L), indice.porGenero("Novela"));
+        assertEquals(List.of(1L, 4L), indice.disponiblesPorGenero("Novela"));
+        assertTrue(indice.disponiblesPorGenero("Ensayo").isEmpty());
+        assertTrue(indice.porGenero("Teatro").isEmpty());
+    }
+
+    @Test
+    void testEventos_ActualizanElIndice() {
+        // Arrange
+        indice.construir();
+
+        // Act
+        indice.alCambiarDisponibilidad(new DisponibilidadCambiadaEvent(1L, "Novela", false));
+        indice.alCambiarDisponibilidad(new DisponibilidadCambiadaEvent(5L, "Ensayo", true));
+        indice.alCambiarLibro(new LibroCambiadoEvent(4L, libro(4L, "Novela", true), libro(4L, "Poesía", true)));
+        indice.alCambiarLibro(new LibroCambiadoEvent(6L, null, libro(6L, "Teatro", true)));
+        indice.alCambiarLibro(new LibroCambiadoEvent(3L, null, null));
+
+        // Assert
+        assertEquals(List.of(4L, 5L, 6L), indice.disponibles());
+        assertEquals(List.of(1L, 2L), indice.porGenero("Novela"));
+        assertTrue(indice.disponiblesPorGenero("Novela").isEmpty());
+        assertEquals(List.of(4L), indice.disponiblesPorGenero("Poesía"));
+        assertEquals(List.of(6L), indice.disponiblesPorGenero("Teatro"));
+        assertEquals(List.of(5L), indice.disponiblesPorGenero("Ensayo"));
+    }
+
+    @Test
+    void testVerificar_CorrigeLasDiferenciasConLaBaseDeDatos() {
+        // Arrange
+        indice.construir();
+        // Cambios hechos en la base de datos sin pasar por los servicios
+        catalogo.set(1, new Filtro(2L, "Novela", true));
+        catalogo.add(new Filtro(6L, "Teatro", true));
+
+        // Act
+        indice.verificar();
+
+        // Assert
+        assertEquals(3, registry.get("biblioteca.indice.filtros.discrepancias").functionCounter().count());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 6L), indice.disponibles());
+        assertEquals(List.of(6L), indice.porGenero("Teatro"));
+    }
+
+    @Test
+    void testVerificar_SinDiferenciasNoCuentaDiscrepancias() {
+        // Arrange
+        indice.construir();
+        indice.alCambiarDisponibilidad(new DisponibilidadCambiadaEvent(2L, "Novela", true));
+        catalogo.set(1, new Filtro(2L, "Novela", true));
+
+        // Act
+        indice.verificar();
+
+        // Assert
+        assertEquals(0, registry.get("biblioteca.indice.filtros.discrepancias").functionCounter().count());
+        assertEquals(List.of(1L, 2L, 4L), indice.disponiblesPorGenero("Novela"));
+    }
+
+    @Test
+    void testDeshabilitado_NoSeConstruye() {
+        // Arrange
+        properties.setHabilitado(false);
+
+        // Act
+        indice.construir();
+
+        // Assert
+        assertFalse(indice.listo());
+        verify(libroRepository, never()).streamFiltros();
+    }
+
+    private LibroDTO libro(Long id, String genero, boolean disponible) {
+        return new LibroDTO(id, "Libro " + id, "isbn-" + id, "Autor", 2000, genero, disponible);
+    }
+
+    private record Filtro(Long id, String genero, Boolean disponible) implements FiltroLibro {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getGenero() {
+            return genero;
+        }
+
+        @Override
+        public Boolean getDisponible() {
+            return disponible;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.biblioteca.api.cache;
+
+import com.biblioteca.api.config.CacheRespuestasProperties;
+import com.biblioteca.api.exception.ResourceNotFoundException;
+import com.biblioteca.api.formato.FormatoRespuesta;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheRespuestasTest {
+
+    private CacheRespuestasProperties properties;
+    private AtomicInteger consultas;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CacheRespuestasProperties();
+        consultas = new AtomicInteger();
+    }
+
+    @Test
+    void testObtener_SegundaLecturaEsAcierto() {
+        // Arrange
+        CacheRespuestas cache = new CacheRespuestas(properties, new ObjectMapper());
+
+        // Act
+        byte[] primera = cache.obtener(ClavesCache.LIBROS_DISPONIBLES, FormatoRespuesta.JSON, this::consultar);
+        byte[] segunda = cache.obtener(ClavesCache.LIBROS_DISPONIBLES, FormatoRespuesta.JSON, this::consultar);
+
+        // Assert
+        assertEquals("[\"Rayuela\"]", new String(primera, StandardCharsets.UTF_8));
+        assertSame(primera, segunda);
+        assertEquals(1, consultas.get());
+        assertEquals(1, cache.estadisticas().hitCount());
+        assertEquals(1, cache.estadisticas().missCount());
+    }
+
+    @Test
+    void testInvalidarPorPrefijo_SoloBorraLasClavesDelPrefijo() {
+        // Arrange
+        CacheRespuestas cache = new CacheRespuestas(properties, new ObjectMapper());
+        cache.obtener(ClavesCache.genero("Novela"), FormatoRespuesta.JSON, this::consultar);
+        cache.obtener(ClavesCache.genero("Poesía"), FormatoRespuesta.JSON, this::consultar);
+        cache.obtener(ClavesCache.libro(1L, "\"libro-1-v0\""), FormatoRespuesta.JSON, this::consultar);
+
+        // Act
+        cache.invalidarPorPrefijo(ClavesCache.PREFIJO_GENERO);
+        cache.obtener(ClavesCache.libro(1L, "\"libro-1-v0\""), FormatoRespuesta.JSON, this::consultar);
+        cache.obtener(ClavesCache.genero("Novela"), FormatoRespuesta.JSON, this::consultar);
+
+        // Assert
+        assertEquals(4, consultas.get());
+    }
+
+    @Test
+    void testFormatos_EntradasSeparadasQueSeInvalidanJuntas() throws Exception {
+        // Arrange
+        CacheRespuestas cache = new CacheRespuestas(properties, new ObjectMapper());
+        cache.obtener(ClavesCache.libro(1L, "\"libro-1-v0\""), FormatoRespuesta.JSON, this::consultar);
+        byte[] cbor = cache.obtener(ClavesCache.libro(1L, "\"libro-1-v0\""), FormatoRespuesta.CBOR, this::consultar);
+
+        // Act
+        cache.invalidar(ClavesCache.libro(1L, "\"libro-1-v0\""));
+        cache.obtener(ClavesCache.libro(1L, "\"libro-1-v0\""), FormatoRespuesta.JSON, this::consultar);
+        cache.obtener(ClavesCache.libro(1L, "\"libro-1-v0\""), FormatoRespuesta.CBOR, this::consultar);
+
+        // Assert
+        assertEquals(List.of("Rayuela"), new ObjectMapper(new CBORFactory()).readValue(cbor, List.class));
+        assertEquals(4, consultas.get());
+    }
+
+    @Test
+    void testDeshabilitada_SiempreConsulta() {
+        // Arrange
+        properties.setHabilitada(false);
+        CacheRespuestas cache = new CacheRespuestas(properties, new ObjectMapper());
+
+        // Act
+        cache.obtener(ClavesCache.libro(1L, "\"libro-1-v0\""), FormatoRespuesta.JSON, this::consultar);
+        cache.obtener(ClavesCache.libro(1L, "\"libro-1-v0\""), FormatoRespuesta.JSON, this::consultar);
+
+        // Assert
+        assertEquals(2, consultas.get());
+        assertEquals(0, cache.entradas());
+    }
+
+    @Test
+    void testConsultaFallida_SePropagaYNoSeCachea() {
+        // Arrange
+        CacheRespuestas cache = new CacheRespuestas(properties, new ObjectMapper());
+
+        // Act
+        assertThrows(ResourceNotFoundException.class, () -> cache.obtener(ClavesCache.libro(99L, "\"libro-99-v0\""), FormatoRespuesta.JSON, () -> {
+            consultas.incrementAndGet();
+            throw new ResourceNotFoundException("Libro no encontrado con id: 99");
+        }));
+        byte[] json = cache.obtener(ClavesCache.libro(99L, "\"libro-99-v0\""), FormatoRespuesta.JSON, this::consultar);
+
+        // Assert
+        assertEquals("[\"Rayuela\"]", new String(json, StandardCharsets.UTF_8));
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    void testInvalidar_NoEsperaALaConsultaEnCursoNiGuardaSuResultado() throws Exception {
+        // Arrange: una lectura de la clave se queda a mitad de su consulta
+        CacheRespuestas cache = new CacheRespuestas(properties, new ObjectMapper());
+        CountDownLatch enConsulta = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+        CompletableFuture<byte[]> lectura = CompletableFuture.supplyAsync(() ->
+                cache.obtener(ClavesCache.LIBROS_DISPONIBLES, FormatoRespuesta.JSON, () -> {
+                    enConsulta.countDown();
+                    esperar(continuar);
+                    return consultar();
+                }));
+        assertTrue(enConsulta.await(5, TimeUnit.SECONDS));
+
+        // Act: la invalidación tras un commit no puede esperar a la consulta (se agotaba el pool)
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> cache.invalidar(ClavesCache.LIBROS_DISPONIBLES));
+        continuar.countDown();
+        lectura.get(5, TimeUnit.SECONDS);
+        cache.obtener(ClavesCache.LIBROS_DISPONIBLES, FormatoRespuesta.JSON, this::consultar);
+
+        // Assert: la respuesta de la consulta invalidada no se guardó
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    void testLecturasSimultaneas_CompartenUnaConsulta() throws Exception {
+        // Arrange
+        CacheRespuestas cache = new CacheRespuestas(properties, new ObjectMapper());
+        CountDownLatch enConsulta = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+        CompletableFuture<byte[]> primera = CompletableFuture.supplyAsync(() ->
+                cache.obtener(ClavesCache.LIBROS_DISPONIBLES, FormatoRespuesta.JSON, () -> {
+                    enConsulta.countDown();
+                    esperar(continuar);
+                    return consultar();
+                }));
+        assertTrue(enConsulta.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<byte[]> segunda = CompletableFuture.supplyAsync(() ->
+                cache.obtener(ClavesCache.LIBROS_DISPONIBLES, FormatoRespuesta.JSON, this::consultar));
+        continuar.countDown();
+
+        // Assert
+        assertSame(primera.get(5, TimeUnit.SECONDS), segunda.get(5, TimeUnit.SECONDS));
+        assertEquals(1, consultas.get());
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<String> consultar() {
+        consultas.incrementAndGet();
+        return List.of("Rayuela");
+    }
+}
@@ -0,0 +1,139 @@
+package com.biblioteca.api.cache;
+
+import com.biblioteca.api.dto.EstadisticasRegionCacheDTO;
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.service.LibroService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class CacheSegundoNivelTest {
+
+    @Autowired
+    private LibroService libroService;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EstadisticasCacheSegundoNivel estadisticasCacheSegundoNivel;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+    private String genero;
+
+    @BeforeEach
+    void setUp() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        genero = "Género " + System.nanoTime();
+    }
+
+    @Test
+    void testObtenerLibroPorId_SegundaLecturaSinConsultas() {
+        // Arrange
+        Long id = crearLibro("Rayuela").getId();
+        libroService.obtenerLibroPorId(id);
+        estadisticas.clear();
+
+        // Act
+        LibroDTO libro = libroService.obtenerLibroPorId(id);
+
+        // Assert
+        assertEquals("Rayuela", libro.getTitulo());
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+        assertEquals(1, estadisticas.getCacheRegionStatistics("libros").getHitCount());
+    }
+
+    @Test
+    void testActualizarLibro_InvalidaLaEntradaCacheada() {
+        // Arrange
+        Libro guardado = crearLibro("Título provisional");
+        libroService.obtenerLibroPorId(guardado.getId());
+        LibroDTO cambios = libroService.obtenerLibroPorId(guardado.getId());
+        cambios.setTitulo("Título definitivo");
+
+        // Act
+        libroService.actualizarLibro(guardado.getId(), cambios);
+
+        // Assert
+        assertEquals("Título definitivo", libroService.obtenerLibroPorId(guardado.getId()).getTitulo());
+    }
+
+    @Test
+    void testActualizacionMasiva_InvalidaLaRegion() {
+        // Arrange
+        Long id = crearLibro("El Aleph").getId();
+        assertTrue(libroService.obtenerLibroPorId(id).getDisponible());
+
+        // Act
+        transactionTemplate.executeWithoutResult(estado -> libroRepository.marcarComoPrestado(id));
+
+        // Assert
+        assertFalse(libroService.obtenerLibroPorId(id).getDisponible());
+    }
+
+    // El servicio filtra por género con el índice en memoria; la consulta cacheada queda para
+    // cuando el índice no está disponible
+    @Test
+    void testConsultaPorGenero_CacheDeConsultasSeInvalidaAlInsertar() {
+        // Arrange
+        crearLibro("Ficciones");
+        libroRepository.findDTOByGenero(genero);
+        estadisticas.clear();
+
+        // Act
+        List<LibroDTO> cacheados = libroRepository.findDTOByGenero(genero);
+        long aciertosConsulta = estadisticas.getQueryCacheHitCount();
+        crearLibro("Pedro Páramo");
+        List<LibroDTO> trasInsertar = libroRepository.findDTOByGenero(genero);
+
+        // Assert
+        assertEquals(1, aciertosConsulta);
+        assertEquals(1, cacheados.size());
+        assertEquals(2, trasInsertar.size());
+    }
+
+    @Test
+    void testEstadisticasPorRegion_IncluyeEntidadesYConsultas() {
+        // Arrange
+        Long id = crearLibro("Niebla").getId();
+        libroService.obtenerLibroPorId(id);
+
+        // Act
+        List<String> regiones = estadisticasCacheSegundoNivel.porRegion().stream()
+                .map(EstadisticasRegionCacheDTO::getRegion)
+                .toList();
+
+        // Assert
+        assertTrue(regiones.containsAll(List.of("libros", "usuarios", "perfiles", "default-query-results-region")),
+                "Regiones: " + regiones);
+    }
+
+    private Libro crearLibro(String titulo) {
+        Libro libro = new Libro();
+        libro.setTitulo(titulo);
+        libro.setIsbn("isbn-l2-" + System.nanoTime());
+        libro.setAutor("Autor");
+        libro.setAnioPublicacion(1950);
+        libro.setGenero(genero);
+        libro.setDisponible(true);
+        return libroRepository.save(libro);
+    }
+}
@@ -0,0 +1,272 @@
+package com.biblioteca.api.carga;
+
+import com.biblioteca.api.busqueda.IndiceFiltrosLibros;
+import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.repository.PrestamoRepository;
+import com.biblioteca.api.repository.UsuarioRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Carga mixta de extremo a extremo (navegación del catálogo, préstamos y devoluciones) a tasa
+ * de llegada fija. La latencia se mide desde el instante en que la petición debía salir, así
+ * que un servidor saturado no oculta su cola (omisión coordinada). Falla si p50, p99,
+ * rendimiento o tasa de errores se salen del presupuesto; los histogramas HDR quedan en
+ * target/carga. Se ejecuta con: mvn test -Pcarga
+ */
+@Tag("carga")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:carga-mixta;DB_CLOSE_DELAY=-1",
+        "logging.level.root=WARN",
+        // Se mide la capacidad del servidor, no los límites por cliente: toda la carga sale de una IP
+        "biblioteca.limite-trafico.habilitado=false"
+})
+class CargaMixtaTest {
+
+    private static final String TOTAL = "total";
+    private static final Path DIRECTORIO_INFORMES = Path.of("target", "carga");
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private IndiceFiltrosLibros indiceFiltros;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient cliente = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final ConcurrentLinkedQueue<Long> librosDisponibles = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<long[]> prestamosActivos = new ConcurrentLinkedQueue<>();
+    private List<Long> libroIds;
+    private List<Long> usuarioIds;
+
+    @Test
+    void testCargaMixta_DentroDelPresupuesto() throws Exception {
+        PresupuestoCarga presupuesto = PresupuestoCarga.desdePropiedades();
+        sembrar();
+
+        // Calentamiento: mismas operaciones, resultados descartados
+        ejecutar(presupuesto, presupuesto.calentamiento());
+        Resultado resultado = ejecutar(presupuesto, presupuesto.duracion());
+
+        informar(resultado, presupuesto);
+        Histogram total = resultado.histogramas().get(TOTAL);
+        double p50 = total.getValueAtPercentile(50) / 1000.0;
+        double p99 = total.getValueAtPercentile(99) / 1000.0;
+        double rendimiento = total.getTotalCount() / (resultado.duracionNanos() / 1e9);
+        double fraccionErrores = (double) resultado.errores() / Math.max(1, total.getTotalCount());
+
+        assertAll(
+                () -> assertTrue(p50 <= presupuesto.p50Ms(),
+                        String.format("p50 %.2f ms supera el presupuesto de %.2f ms", p50, presupuesto.p50Ms())),
+                () -> assertTrue(p99 <= presupuesto.p99Ms(),
+                        String.format("p99 %.2f ms supera el presupuesto de %.2f ms", p99, presupuesto.p99Ms())),
+                () -> assertTrue(rendimiento >= presupuesto.tasa() * presupuesto.fraccionRendimientoMinima(),
+                        String.format("Rendimiento %.1f pet/s por debajo del %.0f%% de %.1f pet/s", rendimiento,
+                                presupuesto.fraccionRendimientoMinima() * 100, presupuesto.tasa())),
+                () -> assertTrue(fraccionErrores <= presupuesto.fraccionErroresMaxima(),
+                        String.format("%d errores (%.2f%%), el máximo es %.2f%%", resultado.errores(),
+                                fraccionErrores * 100, presupuesto.fraccionErroresMaxima() * 100)));
+    }
+
+    private void sembrar() {
+        SembradorCatalogo sembrador = new SembradorCatalogo(libroRepository, usuarioRepository, prestamoRepository);
+        sembrador.sembrar(
+                Integer.getInteger("carga.libros", 5000),
+                Integer.getInteger("carga.usuarios", 1000),
+                Integer.getInteger("carga.prestamos-historicos", 10000),
+                0.1);
+        // La siembra escribe directamente en los repositorios, sin publicar eventos
+        indiceFiltros.construir();
+        libroIds = sembrador.libroIds;
+        usuarioIds = sembrador.usuarioIds;
+        librosDisponibles.addAll(sembrador.librosDisponibles);
+        List<Long> activos = sembrador.prestamosActivos;
+        // Los préstamos activos sembrados corresponden, en orden, a los primeros libros del catálogo
+        for (int i = 0; i < activos.size(); i++) {
+            prestamosActivos.add(new long[]{activos.get(i), libroIds.get(i)});
+        }
+    }
+
+    /**
+     * Modelo abierto: la petición i sale en inicio + i/tasa, tarde lo que tarde la anterior.
+     */
+    private Resultado ejecutar(PresupuestoCarga presupuesto, Duration duracion) throws InterruptedException {
+        Map<String, Histogram> histogramas = new LinkedHashMap<>();
+        histogramas.put(TOTAL, nuevoHistograma());
+        presupuesto.mezcla().keySet().forEach(operacion -> histogramas.put(operacion, nuevoHistograma()));
+        List<String> ruleta = new ArrayList<>();
+        presupuesto.mezcla().forEach((operacion, peso) -> {
+            for (int i = 0; i < peso; i++) {
+                ruleta.add(operacion);
+            }
+        });
+
+        AtomicLong errores = new AtomicLong();
+        long intervaloNanos = (long) (1_000_000_000L / presupuesto.tasa());
+        long total = duracion.toNanos() / intervaloNanos;
+        long inicio = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long previsto = inicio + i * intervaloNanos;
+                long espera = previsto - System.nanoTime();
+                if (espera > 0) {
+                    LockSupport.parkNanos(espera);
+                }
+                String operacion = ruleta.get(ThreadLocalRandom.current().nextInt(ruleta.size()));
+                executor.execute(() -> {
+                    boolean correcta;
+                    try {
+                        correcta = ejecutarOperacion(operacion);
+                    } catch (Exception e) {
+                        correcta = false;
+                    }
+                    long latenciaMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - previsto);
+                    histogramas.get(operacion).recordValue(latenciaMicros);
+                    histogramas.get(TOTAL).recordValue(latenciaMicros);
+                    if (!correcta) {
+                        errores.incrementAndGet();
+                    }
+                });
+            }
+        }
+        return new Resultado(histogramas, errores.get(), System.nanoTime() - inicio);
+    }
+
+    private boolean ejecutarOperacion(String operacion) throws IOException, InterruptedException {
+        return switch (operacion) {
+            case "catalogo" -> navegarCatalogo();
+            case "prestamo" -> prestar();
+            case "devolucion" -> devolver();
+            default -> throw new IllegalArgumentException("Operación desconocida: " + operacion);
+        };
+    }
+
+    private boolean navegarCatalogo() throws IOException, InterruptedException {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        String ruta = switch (aleatorio.nextInt(4)) {
+            case 0 -> "/api/libros?limit=20";
+            case 1 -> "/api/libros/" + libroIds.get(aleatorio.nextInt(libroIds.size()));
+            case 2 -> "/api/libros/genero/" + SembradorCatalogo.GENEROS[aleatorio.nextInt(SembradorCatalogo.GENEROS.length)]
+                    .replace(" ", "%20");
+            default -> "/api/libros/buscar?q=" + SembradorCatalogo.PALABRAS[aleatorio.nextInt(SembradorCatalogo.PALABRAS.length)];
+        };
+        return enviar(HttpRequest.newBuilder(uri(ruta)).GET()).statusCode() == 200;
+    }
+
+    private boolean prestar() throws IOException, InterruptedException {
+        Long libroId = librosDisponibles.poll();
+        if (libroId == null) {
+            return devolver();
+        }
+        Long usuarioId = usuarioIds.get(ThreadLocalRandom.current().nextInt(usuarioIds.size()));
+        String cuerpo = "{\"estado\":\"ACTIVO\",\"usuarioId\":" + usuarioId + ",\"libroId\":" + libroId + "}";
+        HttpResponse<String> respuesta = enviar(HttpRequest.newBuilder(uri("/api/prestamos"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo)));
+        if (respuesta.statusCode() != 201) {
+            librosDisponibles.add(libroId);
+            return false;
+        }
+        JsonNode prestamo = objectMapper.readTree(respuesta.body());
+        prestamosActivos.add(new long[]{prestamo.get("id").asLong(), libroId});
+        return true;
+    }
+
+    private boolean devolver() throws IOException, InterruptedException {
+        long[] prestamo = prestamosActivos.poll();
+        if (prestamo == null) {
+            return prestar();
+        }
+        HttpResponse<String> respuesta = enviar(HttpRequest.newBuilder(uri("/api/prestamos/" + prestamo[0] + "/devolver"))
+                .PUT(HttpRequest.BodyPublishers.noBody()));
+        if (respuesta.statusCode() != 200) {
+            prestamosActivos.add(prestamo);
+            return false;
+        }
+        librosDisponibles.add(prestamo[1]);
+        return true;
+    }
+
+    private HttpResponse<String> enviar(HttpRequest.Builder peticion) throws IOException, InterruptedException {
+        return cliente.send(peticion.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String ruta) {
+        return URI.create("http://localhost:" + puerto + ruta);
+    }
+
+    private void informar(Resultado resultado, PresupuestoCarga presupuesto) throws IOException {
+        Files.createDirectories(DIRECTORIO_INFORMES);
+        double segundos = resultado.duracionNanos() / 1e9;
+        System.out.printf("Carga mixta a %.1f pet/s durante %.1f s (errores: %d)%n",
+                presupuesto.tasa(), segundos, resultado.errores());
+        for (Map.Entry<String, Histogram> entrada : resultado.histogramas().entrySet()) {
+            Histogram histograma = entrada.getValue();
+            System.out.printf("  %-10s %7d pet  %8.1f pet/s  p50 %8.2f ms  p90 %8.2f ms  p99 %8.2f ms  max %8.2f ms%n",
+                    entrada.getKey(), histograma.getTotalCount(), histograma.getTotalCount() / segundos,
+                    histograma.getValueAtPercentile(50) / 1000.0, histograma.getValueAtPercentile(90) / 1000.0,
+                    histograma.getValueAtPercentile(99) / 1000.0, histograma.getMaxValue() / 1000.0);
+            try (PrintStream salida = new PrintStream(
+                    Files.newOutputStream(DIRECTORIO_INFORMES.resolve(entrada.getKey() + ".hgrm")))) {
+                // Valores en milisegundos, formato legible por HdrHistogram Plotter
+                histograma.outputPercentileDistribution(salida, 1000.0);
+            }
+        }
+    }
+
+    // Microsegundos, 3 cifras significativas; el rango inicial es de 1 minuto y crece si alguna
+    // petición tarda más, en lugar de lanzar la excepción dentro de la tarea del ejecutor
+    private static Histogram nuevoHistograma() {
+        Histogram histograma = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+        histograma.setAutoResize(true);
+        return histograma;
+    }
+
+    private record Resultado(Map<String, Histogram> histogramas, long errores, long duracionNanos) {
+    }
+}
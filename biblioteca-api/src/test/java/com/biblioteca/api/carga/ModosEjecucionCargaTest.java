@@ -0,0 +1,142 @@
+package com.biblioteca.api.carga;
+
+import com.biblioteca.api.BibliotecaApiApplication;
+import com.biblioteca.api.busqueda.IndiceFiltrosLibros;
+import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.repository.LibroRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara el modo de hilos de plataforma con el de hilos virtuales bajo la misma ráfaga
+ * de peticiones. Se ejecuta con: mvn test -Pcarga
+ */
+@Tag("carga")
+class ModosEjecucionCargaTest {
+
+    private static final int PETICIONES = Integer.getInteger("carga.peticiones", 4000);
+    private static final int CONCURRENCIA = Integer.getInteger("carga.concurrencia", 400);
+    private static final int LIBROS = 200;
+
+    @Test
+    void testCompararModosDeEjecucion() throws Exception {
+        Resultado plataforma = medir(false);
+        Resultado virtuales = medir(true);
+
+        System.out.println(plataforma);
+        System.out.println(virtuales);
+
+        assertEquals(0, plataforma.errores());
+        assertEquals(0, virtuales.errores());
+    }
+
+    private Resultado medir(boolean hilosVirtuales) throws Exception {
+        try (ConfigurableApplicationContext contexto = arrancar(hilosVirtuales)) {
+            sembrar(contexto.getBean(LibroRepository.class));
+            contexto.getBean(IndiceFiltrosLibros.class).construir();
+            int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + puerto + "/api/libros/disponibles");
+
+            HttpClient cliente = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+            // Calentamiento
+            for (int i = 0; i < 200; i++) {
+                cliente.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding());
+            }
+
+            Semaphore enVuelo = new Semaphore(CONCURRENCIA);
+            long[] latencias = new long[PETICIONES];
+            List<Future<Integer>> respuestas = new ArrayList<>(PETICIONES);
+            long inicio = System.nanoTime();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < PETICIONES; i++) {
+                    int indice = i;
+                    respuestas.add(executor.submit(() -> {
+                        enVuelo.acquire();
+                        long t0 = System.nanoTime();
+                        try {
+                            return cliente.send(HttpRequest.newBuilder(uri).build(),
+                                    HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } finally {
+                            latencias[indice] = System.nanoTime() - t0;
+                            enVuelo.release();
+                        }
+                    }));
+                }
+            }
+            long duracion = System.nanoTime() - inicio;
+
+            int errores = 0;
+            for (Future<Integer> respuesta : respuestas) {
+                try {
+                    if (respuesta.get() != 200) {
+                        errores++;
+                    }
+                } catch (Exception e) {
+                    errores++;
+                }
+            }
+            Arrays.sort(latencias);
+            return new Resultado(hilosVirtuales ? "virtuales" : "plataforma",
+                    PETICIONES * 1_000_000_000.0 / duracion,
+                    percentil(latencias, 0.50), percentil(latencias, 0.99), errores);
+        }
+    }
+
+    private ConfigurableApplicationContext arrancar(boolean hilosVirtuales) {
+        return new SpringApplicationBuilder(BibliotecaApiApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + hilosVirtuales,
+                "--spring.datasource.url=jdbc:h2:mem:carga-" + hilosVirtuales + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--biblioteca.limite-trafico.habilitado=false",
+                // Sin caché de respuestas, cada petición llega a la base de datos
+                "--biblioteca.cache-respuestas.habilitada=false",
+                "--server.tomcat.threads.max=50",
+                "--spring.datasource.hikari.maximum-pool-size=10");
+    }
+
+    private void sembrar(LibroRepository libroRepository) {
+        List<Libro> libros = new ArrayList<>();
+        for (int i = 0; i < LIBROS; i++) {
+            Libro libro = new Libro();
+            libro.setTitulo("Libro de carga " + i);
+            libro.setIsbn("carga-" + i);
+            libro.setAutor("Autor " + (i % 20));
+            libro.setAnioPublicacion(1950 + i % 70);
+            libro.setGenero("Género " + (i % 10));
+            libro.setDisponible(true);
+            libros.add(libro);
+        }
+        libroRepository.saveAll(libros);
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        return ordenadas[(int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1)] / 1_000_000.0;
+    }
+
+    private record Resultado(String modo, double peticionesPorSegundo, double p50Ms, double p99Ms, int errores) {
+        @Override
+        public String toString() {
+            return String.format("Modo %-10s: %8.1f pet/s, p50 %7.2f ms, p99 %7.2f ms, errores %d",
+                    modo, peticionesPorSegundo, p50Ms, p99Ms, errores);
+        }
+    }
+}
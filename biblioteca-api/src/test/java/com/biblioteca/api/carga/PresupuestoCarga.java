@@ -0,0 +1,42 @@
+package com.biblioteca.api.carga;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parámetros de la carga y presupuestos de latencia/rendimiento. Todos se pueden ajustar con
+ * propiedades de sistema, p. ej.: mvn test -Pcarga -Dcarga.tasa=300 -Dcarga.p99-ms=150
+ */
+record PresupuestoCarga(
+        double tasa,
+        Duration calentamiento,
+        Duration duracion,
+        Map<String, Integer> mezcla,
+        double p50Ms,
+        double p99Ms,
+        double fraccionRendimientoMinima,
+        double fraccionErroresMaxima) {
+
+    static PresupuestoCarga desdePropiedades() {
+        return new PresupuestoCarga(
+                Double.parseDouble(System.getProperty("carga.tasa", "100")),
+                Duration.parse(System.getProperty("carga.calentamiento", "PT10S")),
+                Duration.parse(System.getProperty("carga.duracion", "PT30S")),
+                mezcla(System.getProperty("carga.mezcla", "catalogo=80,prestamo=10,devolucion=10")),
+                Double.parseDouble(System.getProperty("carga.p50-ms", "50")),
+                Double.parseDouble(System.getProperty("carga.p99-ms", "500")),
+                Double.parseDouble(System.getProperty("carga.rendimiento-minimo", "0.95")),
+                Double.parseDouble(System.getProperty("carga.errores-maximos", "0.01")));
+    }
+
+    // Formato: operacion=peso,operacion=peso
+    private static Map<String, Integer> mezcla(String valor) {
+        Map<String, Integer> pesos = new LinkedHashMap<>();
+        for (String parte : valor.split(",")) {
+            String[] claveValor = parte.trim().split("=");
+            pesos.put(claveValor[0].trim(), Integer.parseInt(claveValor[1].trim()));
+        }
+        return pesos;
+    }
+}
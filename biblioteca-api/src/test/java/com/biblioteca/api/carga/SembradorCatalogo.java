@@ -0,0 +1,155 @@
+package com.biblioteca.api.carga;
+
+import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.entity.Perfil;
+import com.biblioteca.api.entity.Prestamo;
+import com.biblioteca.api.entity.Prestamo.EstadoPrestamo;
+import com.biblioteca.api.entity.Usuario;
+import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.repository.PrestamoRepository;
+import com.biblioteca.api.repository.UsuarioRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Siembra un catálogo con aspecto real: títulos y autores combinados a partir de listas de
+ * palabras, usuarios con perfil e historial de préstamos ya devueltos. Una fracción de los
+ * libros queda prestada para que haya devoluciones desde el primer segundo.
+ */
+class SembradorCatalogo {
+
+    static final String[] GENEROS = {"Novela", "Ensayo", "Poesía", "Ciencia ficción", "Fantasía", "Historia",
+            "Biografía", "Policiaca", "Infantil", "Filosofía", "Ciencia", "Teatro"};
+
+    static final String[] PALABRAS = {"sombra", "viento", "ciudad", "memoria", "silencio", "jardín", "noche",
+            "mar", "tiempo", "camino", "fuego", "espejo", "río", "invierno", "isla", "reino", "carta", "puerta"};
+
+    private static final String[] NOMBRES = {"Ana", "Luis", "Marta", "Javier", "Lucía", "Pablo", "Elena", "Carlos"};
+    private static final String[] APELLIDOS = {"García", "Martínez", "López", "Sánchez", "Pérez", "Gómez", "Ruiz"};
+    private static final String[] CIUDADES = {"Castellón", "Valencia", "Madrid", "Barcelona", "Sevilla", "Bilbao"};
+
+    private static final int LOTE = 500;
+
+    private final LibroRepository libroRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final PrestamoRepository prestamoRepository;
+    private final Random aleatorio = new Random(42);
+
+    // Resultado de la siembra, punto de partida de la carga
+    final List<Long> librosDisponibles = new ArrayList<>();
+    final List<Long> prestamosActivos = new ArrayList<>();
+    final List<Long> libroIds = new ArrayList<>();
+    final List<Long> usuarioIds = new ArrayList<>();
+
+    SembradorCatalogo(LibroRepository libroRepository, UsuarioRepository usuarioRepository,
+                      PrestamoRepository prestamoRepository) {
+        this.libroRepository = libroRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.prestamoRepository = prestamoRepository;
+    }
+
+    void sembrar(int libros, int usuarios, int prestamosHistoricos, double fraccionPrestada) {
+        List<Libro> catalogo = new ArrayList<>(libros);
+        for (int i = 0; i < libros; i++) {
+            catalogo.add(libro(i));
+        }
+        catalogo = guardarPorLotes(catalogo, libroRepository::saveAll);
+        catalogo.forEach(libro -> libroIds.add(libro.getId()));
+
+        List<Usuario> lectores = new ArrayList<>(usuarios);
+        for (int i = 0; i < usuarios; i++) {
+            lectores.add(usuario(i));
+        }
+        lectores = guardarPorLotes(lectores, usuarioRepository::saveAll);
+        lectores.forEach(usuario -> usuarioIds.add(usuario.getId()));
+
+        List<Prestamo> historial = new ArrayList<>(prestamosHistoricos);
+        for (int i = 0; i < prestamosHistoricos; i++) {
+            LocalDate inicio = LocalDate.now().minusDays(30 + aleatorio.nextInt(700));
+            historial.add(prestamo(elegir(lectores), elegir(catalogo), inicio, inicio.plusDays(7 + aleatorio.nextInt(21)),
+                    EstadoPrestamo.DEVUELTO));
+        }
+
+        // Los préstamos activos marcan su libro como no disponible
+        int prestados = (int) (libros * fraccionPrestada);
+        List<Libro> aActualizar = new ArrayList<>(prestados);
+        List<Prestamo> activos = new ArrayList<>(prestados);
+        for (int i = 0; i < catalogo.size(); i++) {
+            Libro libro = catalogo.get(i);
+            if (i < prestados) {
+                libro.setDisponible(false);
+                aActualizar.add(libro);
+                activos.add(prestamo(elegir(lectores), libro, LocalDate.now().minusDays(aleatorio.nextInt(14)), null,
+                        EstadoPrestamo.ACTIVO));
+            } else {
+                librosDisponibles.add(libro.getId());
+            }
+        }
+        guardarPorLotes(aActualizar, libroRepository::saveAll);
+        guardarPorLotes(historial, prestamoRepository::saveAll);
+        guardarPorLotes(activos, prestamoRepository::saveAll).forEach(prestamo -> prestamosActivos.add(prestamo.getId()));
+    }
+
+    private Libro libro(int i) {
+        Libro libro = new Libro();
+        libro.setTitulo(capitalizar(elegir(PALABRAS)) + " de " + elegir(PALABRAS) + " y " + elegir(PALABRAS));
+        libro.setIsbn(String.format("978-84-%07d", i));
+        libro.setAutor(elegir(NOMBRES) + " " + elegir(APELLIDOS));
+        libro.setAnioPublicacion(1900 + aleatorio.nextInt(125));
+        libro.setGenero(elegir(GENEROS));
+        libro.setDisponible(true);
+        return libro;
+    }
+
+    private Usuario usuario(int i) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre(elegir(NOMBRES) + " " + elegir(APELLIDOS));
+        usuario.setEmail("lector-" + i + "@biblioteca.com");
+        usuario.setTelefono(String.format("6%08d", i));
+        usuario.setFechaRegistro(LocalDate.now().minusDays(aleatorio.nextInt(1500)));
+
+        Perfil perfil = new Perfil();
+        perfil.setDireccion("Calle " + capitalizar(elegir(PALABRAS)) + " " + (1 + aleatorio.nextInt(200)));
+        perfil.setCiudad(elegir(CIUDADES));
+        perfil.setCodigoPostal(String.format("%05d", 1000 + aleatorio.nextInt(50000)));
+        perfil.setPreferenciasLectura(elegir(GENEROS) + ", " + elegir(GENEROS));
+        perfil.setUsuario(usuario);
+        usuario.setPerfil(perfil);
+        return usuario;
+    }
+
+    private Prestamo prestamo(Usuario usuario, Libro libro, LocalDate inicio, LocalDate fin, EstadoPrestamo estado) {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setUsuario(usuario);
+        prestamo.setLibro(libro);
+        prestamo.setFechaPrestamo(inicio);
+        prestamo.setFechaVencimiento(inicio.plusDays(14));
+        prestamo.setFechaDevolucion(fin);
+        prestamo.setEstado(estado);
+        return prestamo;
+    }
+
+    private <T> List<T> guardarPorLotes(List<T> entidades, Function<List<T>, List<T>> guardar) {
+        List<T> guardadas = new ArrayList<>(entidades.size());
+        for (int i = 0; i < entidades.size(); i += LOTE) {
+            guardadas.addAll(guardar.apply(entidades.subList(i, Math.min(i + LOTE, entidades.size()))));
+        }
+        return guardadas;
+    }
+
+    private <T> T elegir(List<T> opciones) {
+        return opciones.get(aleatorio.nextInt(opciones.size()));
+    }
+
+    private String elegir(String[] opciones) {
+        return opciones[aleatorio.nextInt(opciones.length)];
+    }
+
+    private static String capitalizar(String palabra) {
+        return Character.toUpperCase(palabra.charAt(0)) + palabra.substring(1);
+    }
+}
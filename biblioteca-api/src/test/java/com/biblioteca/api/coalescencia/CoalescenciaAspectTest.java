@@ -0,0 +1,189 @@
+package com.biblioteca.api.coalescencia;
+
+import com.biblioteca.api.config.CoalescenciaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.transaction.TransactionExecution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CoalescenciaAspectTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private CoalescenciaAspect aspecto;
+    private Catalogo destino;
+    private Catalogo catalogo;
+    private final List<Thread> hilos = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        aspecto = new CoalescenciaAspect(new CoalescenciaProperties());
+        aspecto.bindTo(registry);
+        destino = new Catalogo();
+        AspectJProxyFactory fabrica = new AspectJProxyFactory(destino);
+        fabrica.setProxyTargetClass(true);
+        fabrica.addAspect(aspecto);
+        catalogo = fabrica.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        catalogo.soltar();
+        hilos.forEach(Thread::interrupt);
+    }
+
+    @Test
+    void testLlamadasSimultaneas_CompartenUnaEjecucion() throws Exception {
+        // Arrange
+        FutureTask<String> primera = lanzar(() -> catalogo.buscar(1L));
+        catalogo.esperarPrimeraLlamada();
+        FutureTask<String> segunda = lanzar(() -> catalogo.buscar(1L));
+        FutureTask<String> tercera = lanzar(() -> catalogo.buscar(1L));
+        esperarBloqueados();
+
+        // Act
+        catalogo.soltar();
+
+        // Assert
+        assertEquals("libro-1#1", primera.get(5, TimeUnit.SECONDS));
+        assertEquals("libro-1#1", segunda.get(5, TimeUnit.SECONDS));
+        assertEquals("libro-1#1", tercera.get(5, TimeUnit.SECONDS));
+        assertEquals(1, destino.llamadas.get());
+        assertEquals(1, llamadas("ejecutada"));
+        assertEquals(2, llamadas("compartida"));
+        assertEquals(0, registry.get("biblioteca.coalescencia.vuelos").gauge().value());
+    }
+
+    @Test
+    void testEscrituraConfirmada_NoSeUneAlVueloAnterior() throws Exception {
+        // Arrange: los mocks se crean antes para no consumir el plazo del vuelo
+        TransactionExecution lectura = transaccion(true);
+        TransactionExecution escritura = transaccion(false);
+        FutureTask<String> anterior = lanzar(() -> catalogo.buscar(1L));
+        catalogo.esperarPrimeraLlamada();
+
+        // Act: una lectura y luego una escritura confirmadas mientras la primera llamada sigue en curso
+        aspecto.afterCommit(lectura, null);
+        FutureTask<String> trasLectura = lanzar(() -> catalogo.buscar(1L));
+        esperarBloqueados();
+        aspecto.afterCommit(escritura, null);
+        String trasEscritura = catalogo.buscar(1L);
+        catalogo.soltar();
+
+        // Assert: las transacciones de sólo lectura no cuentan como escritura
+        assertEquals("libro-1#1", anterior.get(5, TimeUnit.SECONDS));
+        assertEquals("libro-1#1", trasLectura.get(5, TimeUnit.SECONDS));
+        assertEquals("libro-1#2", trasEscritura);
+        assertEquals(2, destino.llamadas.get());
+    }
+
+    @Test
+    void testPlazoVencido_QuienEsperaEjecutaElMetodo() throws Exception {
+        // Arrange
+        FutureTask<String> lenta = lanzar(() -> catalogo.buscarConPlazo(1L));
+        catalogo.esperarPrimeraLlamada();
+
+        // Act
+        String propia = catalogo.buscarConPlazo(1L);
+        catalogo.soltar();
+
+        // Assert
+        assertEquals("libro-1#2", propia);
+        assertEquals("libro-1#1", lenta.get(5, TimeUnit.SECONDS));
+        assertEquals(1, registry.get("biblioteca.coalescencia.esperas.agotadas").functionCounter().count());
+        assertEquals(2, llamadas("ejecutada"));
+    }
+
+    @Test
+    void testArgumentosDistintos_NoSeUnen() {
+        // Act
+        catalogo.soltar();
+        catalogo.buscar(1L);
+        catalogo.buscar(2L);
+
+        // Assert
+        assertEquals(2, destino.llamadas.get());
+        assertEquals(0, llamadas("compartida"));
+    }
+
+    private double llamadas(String resultado) {
+        return registry.get("biblioteca.coalescencia.llamadas").tag("resultado", resultado).functionCounter().count();
+    }
+
+    private FutureTask<String> lanzar(Callable<String> llamada) {
+        FutureTask<String> tarea = new FutureTask<>(llamada);
+        Thread hilo = new Thread(tarea);
+        hilos.add(hilo);
+        hilo.start();
+        return tarea;
+    }
+
+    // Todos los hilos salvo el primero, que está dentro del método, esperan el resultado compartido
+    private void esperarBloqueados() throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (Thread hilo : hilos.subList(1, hilos.size())) {
+            while (hilo.getState() != Thread.State.TIMED_WAITING) {
+                assertTrue(System.nanoTime() < limite, "El hilo no llegó a esperar: " + hilo.getState());
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    private static TransactionExecution transaccion(boolean soloLectura) {
+        TransactionExecution transaccion = mock(TransactionExecution.class);
+        when(transaccion.isReadOnly()).thenReturn(soloLectura);
+        return transaccion;
+    }
+
+    // La primera llamada se queda dentro del método hasta que el test la suelta
+    static class Catalogo {
+
+        private final AtomicInteger llamadas = new AtomicInteger();
+        private final CountDownLatch dentro = new CountDownLatch(1);
+        private final CountDownLatch salida = new CountDownLatch(1);
+
+        @Coalescente
+        public String buscar(Long id) {
+            return ejecutar(id);
+        }
+
+        @Coalescente(esperaMaximaMs = 50)
+        public String buscarConPlazo(Long id) {
+            return ejecutar(id);
+        }
+
+        void esperarPrimeraLlamada() throws InterruptedException {
+            assertTrue(dentro.await(5, TimeUnit.SECONDS));
+        }
+
+        void soltar() {
+            salida.countDown();
+        }
+
+        private String ejecutar(Long id) {
+            int llamada = llamadas.incrementAndGet();
+            if (llamada == 1) {
+                dentro.countDown();
+                try {
+                    salida.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "libro-" + id + "#" + llamada;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.biblioteca.api.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+class MetricasConfigTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void testEndpointPrometheus_ExponeMetricasDeLaAplicacion() {
+        // Arrange
+        restTemplate.getForEntity("/api/libros", String.class);
+        restTemplate.getForEntity("/api/prestamos", String.class);
+
+        // Act
+        ResponseEntity<String> respuesta = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        // Assert
+        assertEquals(HttpStatus.OK, respuesta.getStatusCode());
+        String metricas = respuesta.getBody();
+        assertNotNull(metricas);
+        assertTrue(metricas.contains("http_server_requests_seconds_bucket{"), "Falta el histograma HTTP");
+        assertTrue(metricas.contains("uri=\"/api/libros\""));
+        assertTrue(metricas.contains("biblioteca_servicio_seconds_count{"), "Faltan los temporizadores de servicio");
+        assertTrue(metricas.contains("method=\"obtenerTodosLosLibros\""));
+        assertTrue(metricas.contains("spring_data_repository_invocations_seconds_count{"));
+        assertTrue(metricas.contains("hikaricp_connections_pending"));
+        assertTrue(metricas.contains("hibernate_statements_total"));
+        assertTrue(metricas.contains("cache_gets_total{"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.biblioteca.api.controller;
+
+import com.biblioteca.api.dto.ResultadoImportacionDTO;
+import com.biblioteca.api.dto.ResultadoImportacionDTO.FilaRechazada;
+import com.biblioteca.api.exception.BadRequestException;
+import com.biblioteca.api.service.ImportacionLibrosService;
+import com.biblioteca.api.service.ImportacionLibrosService.FormatoImportacion;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = ImportacionLibrosController.class)
+class ImportacionLibrosControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ImportacionLibrosService importacionLibrosService;
+
+    @Test
+    void testImportarCsv_PasaElCuerpoAlServicioYDevuelveElInforme() throws Exception {
+        // Arrange
+        String csv = "titulo,isbn,autor,anioPublicacion,genero\nRayuela,978-8437604572,Julio Cortázar,1963,Novela\n";
+        AtomicReference<String> recibido = new AtomicReference<>();
+        when(importacionLibrosService.importar(any(InputStream.class), eq(FormatoImportacion.CSV))).thenAnswer(invocacion -> {
+            recibido.set(new String(invocacion.<InputStream>getArgument(0).readAllBytes(), StandardCharsets.UTF_8));
+            return new ResultadoImportacionDTO(2, 1, 1, 4, 500.0,
+                    List.of(new FilaRechazada(3, "978-0", "ISBN repetido en el archivo")));
+        });
+
+        // Act & Assert
+        mockMvc.perform(post("/api/libros/importar")
+                        .contentType("text/csv;charset=UTF-8")
+                        .content(csv.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.filasLeidas").value(2))
+                .andExpect(jsonPath("$.insertados").value(1))
+                .andExpect(jsonPath("$.rechazados").value(1))
+                .andExpect(jsonPath("$.filasPorSegundo").value(500.0))
+                .andExpect(jsonPath("$.filasRechazadas[0].linea").value(3))
+                .andExpect(jsonPath("$.filasRechazadas[0].motivo").value("ISBN repetido en el archivo"));
+        assertEquals(csv, recibido.get());
+    }
+
+    @Test
+    void testImportarNdjson_UsaElFormatoNdjson() throws Exception {
+        // Arrange
+        when(importacionLibrosService.importar(any(InputStream.class), any(FormatoImportacion.class)))
+                .thenReturn(new ResultadoImportacionDTO(0, 0, 0, 1, 0.0, List.of()));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/libros/importar")
+                        .contentType("application/x-ndjson")
+                        .content("{\"titulo\":\"Ficciones\"}\n"))
+                .andExpect(status().isOk());
+        verify(importacionLibrosService).importar(any(InputStream.class), eq(FormatoImportacion.NDJSON));
+    }
+
+    @Test
+    void testImportarCsv_CabeceraIncompleta() throws Exception {
+        // Arrange
+        when(importacionLibrosService.importar(any(InputStream.class), eq(FormatoImportacion.CSV)))
+                .thenThrow(new BadRequestException("Falta la columna 'genero' en la cabecera del CSV"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/libros/importar")
+                        .contentType("text/csv")
+                        .content("titulo,isbn\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Falta la columna 'genero' en la cabecera del CSV"));
+    }
+}
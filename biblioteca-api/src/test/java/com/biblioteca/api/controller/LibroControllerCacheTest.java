@@ -0,0 +1,57 @@
+package com.biblioteca.api.controller;
+
+import com.biblioteca.api.cache.CacheRespuestas;
+import com.biblioteca.api.config.CacheRespuestasProperties;
+import com.biblioteca.api.config.FormatosBinariosConfig;
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.formato.NegociadorFormato;
+import com.biblioteca.api.service.LibroService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Con la caché de respuestas habilitada: el cuerpo de un libro tiene que corresponder a su ETag
+@WebMvcTest(controllers = LibroController.class, properties = "biblioteca.cache-respuestas.habilitada=true")
+@Import({CacheRespuestas.class, NegociadorFormato.class, FormatosBinariosConfig.class})
+@EnableConfigurationProperties(CacheRespuestasProperties.class)
+class LibroControllerCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LibroService libroService;
+
+    @Test
+    void testObtenerLibroPorId_VersionNuevaSinInvalidarNoDevuelveElCuerpoAntiguo() throws Exception {
+        // Arrange: la versión 0 queda cacheada
+        when(libroService.obtenerEtagLibro(1L)).thenReturn("\"libro-1-v0\"");
+        when(libroService.obtenerLibroPorId(1L)).thenReturn(libro("Rayuela"));
+        mockMvc.perform(get("/api/libros/1")).andExpect(jsonPath("$.titulo").value("Rayuela"));
+
+        // Act: se confirma la versión 1 y llega una lectura antes de la invalidación
+        when(libroService.obtenerEtagLibro(1L)).thenReturn("\"libro-1-v1\"");
+        when(libroService.obtenerLibroPorId(1L)).thenReturn(libro("Rayuela (edición revisada)"));
+
+        // Assert
+        mockMvc.perform(get("/api/libros/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"libro-1-v1\""))
+                .andExpect(jsonPath("$.titulo").value("Rayuela (edición revisada)"));
+        mockMvc.perform(get("/api/libros/1"))
+                .andExpect(jsonPath("$.titulo").value("Rayuela (edición revisada)"));
+        verify(libroService, times(2)).obtenerLibroPorId(1L);
+    }
+
+    private LibroDTO libro(String titulo) {
+        return new LibroDTO(1L, titulo, "978-8437604572", "Julio Cortázar", 1963, "Novela", true);
+    }
+}
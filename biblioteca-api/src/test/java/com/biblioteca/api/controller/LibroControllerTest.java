@@ -1,27 +1,41 @@
 package com.biblioteca.api.controller;
 
+import com.biblioteca.api.cache.CacheRespuestas;
+import com.biblioteca.api.config.CacheRespuestasProperties;
+import com.biblioteca.api.config.FormatosBinariosConfig;
 import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.dto.PaginaDTO;
+import com.biblioteca.api.formato.NegociadorFormato;
 import com.biblioteca.api.service.LibroService;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Arrays;
 import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(LibroController.class)
+@WebMvcTest(controllers = LibroController.class, properties = "biblioteca.cache-respuestas.habilitada=false")
+@Import({CacheRespuestas.class, NegociadorFormato.class, FormatosBinariosConfig.class})
+@EnableConfigurationProperties(CacheRespuestasProperties.class)
 class LibroControllerTest {
 
     @Autowired
@@ -51,12 +65,14 @@ class LibroControllerTest {
     void testObtenerTodosLosLibros() throws Exception {
         // Arrange
         List<LibroDTO> libros = Arrays.asList(libroDTO);
+        when(libroService.obtenerEtagCatalogo()).thenReturn("\"libros-1-0-1\"");
         when(libroService.obtenerTodosLosLibros()).thenReturn(libros);
 
         // Act & Assert
         mockMvc.perform(get("/api/libros"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("ETag", "W/\"libros-1-0-1\""))
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].titulo").value("Don Quijote de la Mancha"))
                 .andExpect(jsonPath("$[0].autor").value("Miguel de Cervantes"));
@@ -67,18 +83,84 @@ class LibroControllerTest {
     @Test
     void testObtenerLibroPorId() throws Exception {
         // Arrange
+        when(libroService.obtenerEtagLibro(1L)).thenReturn("\"libro-1-v0\"");
         when(libroService.obtenerLibroPorId(1L)).thenReturn(libroDTO);
 
         // Act & Assert
         mockMvc.perform(get("/api/libros/1"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("ETag", "W/\"libro-1-v0\""))
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.titulo").value("Don Quijote de la Mancha"));
 
         verify(libroService, times(1)).obtenerLibroPorId(1L);
     }
 
+    @Test
+    void testObtenerLibroPorId_NoModificado() throws Exception {
+        // Arrange
+        when(libroService.obtenerEtagLibro(1L)).thenReturn("\"libro-1-v0\"");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/libros/1").header("If-None-Match", "\"libro-1-v0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"libro-1-v0\""))
+                .andExpect(content().string(""));
+
+        verify(libroService, never()).obtenerLibroPorId(anyLong());
+    }
+
+    @Test
+    void testObtenerTodosLosLibros_Cbor() throws Exception {
+        // Arrange
+        when(libroService.obtenerEtagCatalogo()).thenReturn("\"libros-1-0-1\"");
+        when(libroService.obtenerTodosLosLibros()).thenReturn(Arrays.asList(libroDTO));
+
+        // Act
+        MvcResult resultado = mockMvc.perform(get("/api/libros").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(header().string("ETag", "\"libros-1-0-1-cbor\""))
+                .andReturn();
+
+        // Assert
+        List<LibroDTO> libros = new ObjectMapper(new CBORFactory()).readValue(
+                resultado.getResponse().getContentAsByteArray(), new TypeReference<List<LibroDTO>>() { });
+        assertEquals(libroDTO, libros.get(0));
+    }
+
+    @Test
+    void testObtenerLibrosPorGenero_SmileDesdeLaCache() throws Exception {
+        // Arrange
+        when(libroService.obtenerLibrosPorGenero("Novela")).thenReturn(Arrays.asList(libroDTO));
+
+        // Act
+        MvcResult resultado = mockMvc.perform(get("/api/libros/genero/Novela")
+                        .header("Accept", "application/json;q=0.5, application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn();
+
+        // Assert
+        List<LibroDTO> libros = new ObjectMapper(new SmileFactory()).readValue(
+                resultado.getResponse().getContentAsByteArray(), new TypeReference<List<LibroDTO>>() { });
+        assertEquals("Don Quijote de la Mancha", libros.get(0).getTitulo());
+    }
+
+    @Test
+    void testObtenerTodosLosLibros_CatalogoCambiado() throws Exception {
+        // Arrange
+        when(libroService.obtenerEtagCatalogo()).thenReturn("\"libros-2-1-2\"");
+        when(libroService.obtenerTodosLosLibros()).thenReturn(Arrays.asList(libroDTO));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/libros").header("If-None-Match", "\"libros-1-0-1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"libros-2-1-2\""))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
     @Test
     void testCrearLibro() throws Exception {
         // Arrange
@@ -152,6 +234,21 @@ class LibroControllerTest {
         verify(libroService, times(1)).obtenerLibrosDisponibles();
     }
 
+    @Test
+    void testObtenerLibrosDisponiblesPorGenero() throws Exception {
+        // Arrange
+        when(libroService.obtenerLibrosDisponiblesPorGenero("Novela")).thenReturn(Arrays.asList(libroDTO));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/libros/disponibles").param("genero", "Novela"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].genero").value("Novela"));
+
+        verify(libroService, times(1)).obtenerLibrosDisponiblesPorGenero("Novela");
+        verify(libroService, never()).obtenerLibrosDisponibles();
+    }
+
     @Test
     void testObtenerLibrosPorGenero() throws Exception {
         // Arrange
@@ -166,4 +263,21 @@ class LibroControllerTest {
 
         verify(libroService, times(1)).obtenerLibrosPorGenero("Novela");
     }
+
+    @Test
+    void testObtenerLibrosPaginados() throws Exception {
+        // Arrange
+        PaginaDTO<LibroDTO> pagina = new PaginaDTO<>(Arrays.asList(libroDTO), "aWQ6MQ", 1);
+        when(libroService.obtenerLibrosPaginados(null, 1)).thenReturn(pagina);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/libros").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contenido", hasSize(1)))
+                .andExpect(jsonPath("$.contenido[0].titulo").value("Don Quijote de la Mancha"))
+                .andExpect(jsonPath("$.siguiente").value("aWQ6MQ"));
+
+        verify(libroService, times(1)).obtenerLibrosPaginados(null, 1);
+        verify(libroService, never()).obtenerTodosLosLibros();
+    }
 }
@@ -0,0 +1,146 @@
+package com.biblioteca.api.controller;
+
+import com.biblioteca.api.dto.PrestamoDTO;
+import com.biblioteca.api.dto.PrestamoLoteDTO;
+import com.biblioteca.api.dto.ResultadoLoteDTO;
+import com.biblioteca.api.entity.Prestamo.EstadoPrestamo;
+import com.biblioteca.api.service.PrestamoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = PrestamoController.class)
+class PrestamoControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private PrestamoService prestamoService;
+
+    @Test
+    void testExportarPrestamos_UnObjetoJsonPorLinea() throws Exception {
+        // Arrange
+        PrestamoDTO activo = new PrestamoDTO(1L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 15), null,
+                EstadoPrestamo.ACTIVO, null, 1L, 10L, "Ana", "Rayuela");
+        PrestamoDTO devuelto = new PrestamoDTO(2L, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 15),
+                LocalDate.of(2024, 2, 10), EstadoPrestamo.DEVUELTO, null, 2L, 11L, "Luis", "Ficciones");
+        doAnswer(invocacion -> {
+            Consumer<PrestamoDTO> destino = invocacion.getArgument(0);
+            destino.accept(activo);
+            destino.accept(devuelto);
+            return null;
+        }).when(prestamoService).exportarPrestamos(any());
+
+        // Act
+        MvcResult inicio = mockMvc.perform(get("/api/prestamos/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult resultado = mockMvc.perform(asyncDispatch(inicio))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn();
+
+        // Assert
+        String cuerpo = resultado.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(cuerpo.endsWith("\n"));
+        List<String> lineas = cuerpo.lines().toList();
+        assertEquals(2, lineas.size());
+        assertEquals(activo, objectMapper.readValue(lineas.get(0), PrestamoDTO.class));
+        assertEquals(devuelto, objectMapper.readValue(lineas.get(1), PrestamoDTO.class));
+    }
+
+    @Test
+    void testExportarPrestamos_HistorialVacio() throws Exception {
+        // Act
+        MvcResult inicio = mockMvc.perform(get("/api/prestamos/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(inicio))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(""));
+        verify(prestamoService).exportarPrestamos(any());
+    }
+
+    @Test
+    void testCrearPrestamosEnLote_ResultadoPorLibro() throws Exception {
+        // Arrange
+        PrestamoDTO prestamo = new PrestamoDTO(7L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 15), null,
+                EstadoPrestamo.ACTIVO, null, 1L, 10L, "Ana", "Rayuela");
+        when(prestamoService.crearPrestamosEnLote(new PrestamoLoteDTO(1L, List.of(10L, 11L)))).thenReturn(
+                new ResultadoLoteDTO(1, 1, List.of(
+                        new ResultadoLoteDTO.Item(10L, true, null, prestamo),
+                        new ResultadoLoteDTO.Item(11L, false, "El libro no está disponible para préstamo", null))));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/prestamos/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usuarioId\":1,\"libroIds\":[10,11]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.exitosos").value(1))
+                .andExpect(jsonPath("$.fallidos").value(1))
+                .andExpect(jsonPath("$.resultados[0].exito").value(true))
+                .andExpect(jsonPath("$.resultados[0].prestamo.id").value(7))
+                .andExpect(jsonPath("$.resultados[1].exito").value(false))
+                .andExpect(jsonPath("$.resultados[1].mensaje").value("El libro no está disponible para préstamo"));
+    }
+
+    @Test
+    void testCrearPrestamosEnLote_PeticionInvalida() throws Exception {
+        // Arrange
+        String ciento1 = LongStream.rangeClosed(1, 101).mapToObj(Long::toString).collect(Collectors.joining(","));
+
+        // Act & Assert
+        for (String cuerpo : List.of(
+                "{\"libroIds\":[1]}",
+                "{\"usuarioId\":1,\"libroIds\":[]}",
+                "{\"usuarioId\":1,\"libroIds\":[1,null]}",
+                "{\"usuarioId\":1,\"libroIds\":[" + ciento1 + "]}")) {
+            mockMvc.perform(post("/api/prestamos/lote")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(cuerpo))
+                    .andExpect(status().isBadRequest());
+        }
+        verifyNoInteractions(prestamoService);
+    }
+
+    @Test
+    void testCrearPrestamosEnLote_PrestamoSimultaneo() throws Exception {
+        // Arrange
+        when(prestamoService.crearPrestamosEnLote(any(PrestamoLoteDTO.class)))
+                .thenThrow(new OptimisticLockingFailureException("Algún libro del lote cambió durante el préstamo"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/prestamos/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usuarioId\":1,\"libroIds\":[10,11]}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("El recurso ha sido modificado por otra operación; vuelva a intentarlo"));
+    }
+}
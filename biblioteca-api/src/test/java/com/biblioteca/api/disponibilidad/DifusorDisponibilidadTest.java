@@ -0,0 +1,254 @@
+package com.biblioteca.api.disponibilidad;
+
+import com.biblioteca.api.config.DisponibilidadStreamProperties;
+import com.biblioteca.api.dto.CambioDisponibilidadDTO;
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.event.DisponibilidadCambiadaEvent;
+import com.biblioteca.api.event.LibroCambiadoEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Las tareas de envío se acumulan y se ejecutan a mano, como si los clientes leyeran más tarde
+class DifusorDisponibilidadTest {
+
+    private final List<Runnable> tareas = new ArrayList<>();
+    private DisponibilidadStreamProperties properties;
+    private DifusorDisponibilidad difusor;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        properties = new DisponibilidadStreamProperties();
+        properties.setHistorial(4);
+        properties.setCapacidadSuscriptor(2);
+        difusor = new DifusorDisponibilidad(properties, tareas::add);
+        difusor.bindTo(registry);
+    }
+
+    @Test
+    void testCambios_SoloLlegaLoQueInteresaACadaSuscriptor() {
+        // Arrange
+        Emisor todos = suscribir(Set.of(), Set.of(), null);
+        Emisor poesia = suscribir(Set.of("Poesía"), Set.of(), null);
+        Emisor libro = suscribir(Set.of(), Set.of(1L), null);
+
+        // Act
+        difusor.alCambiarDisponibilidad(new DisponibilidadCambiadaEvent(1L, "Novela", false));
+        difusor.alCambiarDisponibilidad(new DisponibilidadCambiadaEvent(2L, "Poesía", false));
+        enviar();
+
+        // Assert
+        assertEquals(List.of("inicio", "1=false", "2=false"), todos.eventos);
+        assertEquals(List.of("inicio", "2=false"), poesia.eventos);
+        assertEquals(List.of("inicio", "1=false"), libro.eventos);
+        assertEquals(3, registry.get("biblioteca.disponibilidad.suscriptores").gauge().value());
+        assertEquals(2, contador("biblioteca.disponibilidad.cambios"));
+    }
+
+    @Test
+    void testActualizarLibro_SoloSiCambiaLaDisponibilidad() {
+        // Arrange
+        Emisor emisor = suscribir(Set.of(), Set.of(), null);
+
+        // Act
+        difusor.alCambiarLibro(new LibroCambiadoEvent(1L, libro(1L, true), libro(1L, false)));
+        difusor.alCambiarLibro(new LibroCambiadoEvent(2L, libro(2L, true), libro(2L, true)));
+        difusor.alCambiarLibro(new LibroCambiadoEvent(3L, null, libro(3L, true)));
+        difusor.alCambiarLibro(new LibroCambiadoEvent(4L, null, null));
+        enviar();
+
+        // Assert
+        assertEquals(List.of("inicio", "1=false"), emisor.eventos);
+    }
+
+    @Test
+    void testReconexion_ReenviaLosCambiosPerdidos() {
+        // Arrange
+        Emisor primero = suscribir(Set.of(), Set.of(), null);
+        difusor.alCambiarDisponibilidad(new DisponibilidadCambiadaEvent(1L, "Novela", false));
+        enviar();
+        String ultimoId = primero.ids.get(primero.ids.size() - 1);
+        difusor.alCambiarDisponibilidad(new DisponibilidadCambiadaEvent(2L, "Novela", false));
+        difusor.alCambiarDisponibilidad(new DisponibilidadCambiadaEvent(3L, "Poesía", false));
+
+        // Act
+        Emisor reconectado = suscribir(Set.of("Novela"), Set.of(), ultimoId);
+        enviar();
+
+        // Assert
+        assertEquals(List.of("2=false"), reconectado.eventos);
+        assertEquals(primero.ids.get(2), reconectado.ids.get(0));
+    }
+
+    @Test
+    void testReconexion_SinHistorialPideRecargar() {
+        // Arrange: el historial sólo guarda cuatro cambios
+        Emisor primero = suscribir(Set.of(), Set.of(), null);
+        enviar();
+        String idInicial = primero.ids.get(0);
+        for (long id = 1; id <= 5; id++) {
+            difusor.alCambiarDisponibilidad(new DisponibilidadCambiadaEvent(id, "Novela", false));
+        }
+
+        // Act
+        Emisor antiguo = suscribir(Set.of(), Set.of(), idInicial);
+        Emisor deOtraInstancia = suscribir(Set.of(), Set.of(), "otra-3");
+        enviar();
+
+        // Assert
+        assertEquals(List.of("reinicio"), antiguo.eventos);
+        assertEquals(List.of("reinicio"), deOtraInstancia.eventos);
+    }
+
+    @Test
+    void testClienteLento_CombinaYAlDesbordarPideRecargar() {
+        // Arrange
+        Emisor lento = suscribir(Set.of(), Set.of(), null);
+
+        // Act: el libro 1 cambia dos veces antes de que el cliente lea
+        difusor.alCambiarDisponibilidad(new DisponibilidadCambiadaEvent(1L, "Novela", false));
+        difusor.alCambiarDisponibilidad(new DisponibilidadCambiadaEvent(2L, "Novela", false));
+        difusor.alCambiarDisponibilidad(new DisponibilidadCambiadaEvent(1L, "Novela", true));
+        enviar();
+        List<String> combinados = List.copyOf(lento.eventos);
+        lento.eventos.clear();
+        for (long id = 3; id <= 5; id++) {
+            difusor.alCambiarDisponibilidad(new DisponibilidadCambiadaEvent(id, "Novela", false));
+        }
+        enviar();
+
+        // Assert: los ids siguen en orden y, tras desbordarse, sólo llega el reinicio
+        assertEquals(List.of("inicio", "2=false", "1=true"), combinados);
+        assertEquals(List.of("reinicio"), lento.eventos);
+        assertEquals(1, contador("biblioteca.disponibilidad.combinados"));
+        assertEquals(1, contador("biblioteca.disponibilidad.desbordamientos"));
+    }
+
+    @Test
+    void testClienteDesconectado_DejaDeRecibir() {
+        // Arrange
+        Emisor desconectado = suscribir(Set.of(), Set.of(), null);
+        desconectado.fallar = true;
+        enviar();
+
+        // Act
+        difusor.alCambiarDisponibilidad(new DisponibilidadCambiadaEvent(1L, "Novela", false));
+        difusor.latir();
+
+        // Assert
+        assertTrue(tareas.isEmpty());
+        assertEquals(0, registry.get("biblioteca.disponibilidad.suscriptores").gauge().value());
+    }
+
+    @Test
+    void testEjecutorPorDefecto_HilosDePlataformaLimitados() throws Exception {
+        // Arrange: tres clientes que no leen con dos hilos de envío
+        properties.setHilosEnvio(2);
+        DifusorDisponibilidad real = new DifusorDisponibilidad(properties);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Thread> hilos = new CopyOnWriteArrayList<>();
+        SseEmitter bloqueante = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                hilos.add(Thread.currentThread());
+                try {
+                    salida.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            real.suscribir(bloqueante, Set.of(), Set.of(), null);
+        }
+        esperar(() -> hilos.size() == 2);
+        Thread.sleep(100);
+        int enCurso = hilos.size();
+        salida.countDown();
+        esperar(() -> hilos.size() == 3);
+        real.cerrar();
+
+        // Assert
+        assertEquals(2, enCurso);
+        assertTrue(hilos.stream().noneMatch(Thread::isVirtual));
+        assertTrue(hilos.stream().allMatch(hilo -> hilo.getName().startsWith("sse-")));
+    }
+
+    private double contador(String nombre) {
+        return registry.get(nombre).functionCounter().count();
+    }
+
+    private static void esperar(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condicion.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "No se cumplió la condición a tiempo");
+            Thread.sleep(5);
+        }
+    }
+
+    private Emisor suscribir(Set<String> generos, Set<Long> ids, String ultimoId) {
+        Emisor emisor = new Emisor();
+        difusor.suscribir(emisor, generos, ids, ultimoId);
+        return emisor;
+    }
+
+    private void enviar() {
+        while (!tareas.isEmpty()) {
+            tareas.remove(0).run();
+        }
+    }
+
+    private LibroDTO libro(Long id, boolean disponible) {
+        return new LibroDTO(id, "Libro " + id, "isbn-" + id, "Autor", 2000, "Novela", disponible);
+    }
+
+    // Guarda cada evento como "libroId=disponible" o, si no es un cambio, con su nombre
+    private static class Emisor extends SseEmitter {
+
+        private final List<String> eventos = new ArrayList<>();
+        private final List<String> ids = new ArrayList<>();
+        private boolean fallar;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (fallar) {
+                throw new IOException("Conexión cerrada");
+            }
+            String nombre = null;
+            CambioDisponibilidadDTO cambio = null;
+            for (DataWithMediaType parte : builder.build()) {
+                if (parte.getData() instanceof CambioDisponibilidadDTO datos) {
+                    cambio = datos;
+                } else {
+                    for (String linea : parte.getData().toString().split("\n")) {
+                        if (linea.startsWith("id:")) {
+                            ids.add(linea.substring(3));
+                        } else if (linea.startsWith("event:")) {
+                            nombre = linea.substring(6);
+                        }
+                    }
+                }
+            }
+            if (cambio != null) {
+                eventos.add(cambio.getLibroId() + "=" + cambio.isDisponible());
+            } else if (nombre != null) {
+                eventos.add(nombre);
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.biblioteca.api.estadisticas;
+
+import com.biblioteca.api.config.EstadisticasProperties;
+import com.biblioteca.api.dto.EstadisticaGeneroDTO;
+import com.biblioteca.api.dto.LibroMasPrestadoDTO;
+import com.biblioteca.api.event.PrestamoCambiadoEvent;
+import com.biblioteca.api.repository.PrestamoRepository;
+import com.biblioteca.api.repository.PrestamoRepository.Agregado;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Los agregados del repositorio se calculan sobre una lista de préstamos en memoria
+class EstadisticasPrestamosTest {
+
+    private PrestamoRepository prestamoRepository;
+    private EstadisticasProperties properties;
+    private List<Prestamo> prestamos;
+    private EstadisticasPrestamos estadisticas;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        prestamoRepository = mock(PrestamoRepository.class);
+        properties = new EstadisticasProperties();
+        properties.setTamanoPodio(3);
+        prestamos = new ArrayList<>(List.of(
+                new Prestamo(1L, 10L, "Novela", false),
+                new Prestamo(1L, 11L, "Novela", true),
+                new Prestamo(1L, 12L, "Novela", false),
+                new Prestamo(2L, 10L, "Novela", true),
+                new Prestamo(2L, 11L, "Novela", false),
+                new Prestamo(3L, 12L, "Poesía", true),
+                new Prestamo(3L, 10L, "Poesía", false),
+                new Prestamo(4L, 11L, "Ensayo", false),
+                new Prestamo(5L, 12L, "Ensayo", false)));
+        when(prestamoRepository.streamPrestamosPorLibro()).thenAnswer(invocacion -> porLibro().stream());
+        when(prestamoRepository.findPrestamosPorGenero()).thenAnswer(invocacion -> porGenero());
+        when(prestamoRepository.streamPendientesPorUsuario()).thenAnswer(invocacion -> pendientesPorUsuario().stream());
+        estadisticas = new EstadisticasPrestamos(prestamoRepository, properties);
+        estadisticas.bindTo(registry);
+    }
+
+    @Test
+    void testConstruir_CalculaLosContadores() {
+        // Act
+        estadisticas.construir();
+
+        // Assert
+        assertTrue(estadisticas.listo());
+        // A igualdad de préstamos, primero el de menor id
+        assertEquals(List.of(libro(1L, 3), libro(2L, 2), libro(3L, 2)), estadisticas.masPrestados(3));
+        assertEquals(List.of(libro(1L, 3)), estadisticas.masPrestados(1));
+        assertEquals(List.of(
+                new EstadisticaGeneroDTO("Ensayo", 2, 0),
+                new EstadisticaGeneroDTO("Novela", 5, 2),
+                new EstadisticaGeneroDTO("Poesía", 2, 1)), estadisticas.porGenero());
+        assertEquals(1, estadisticas.pendientesDeUsuario(10L));
+        assertEquals(1, estadisticas.pendientesDeUsuario(11L));
+        assertEquals(1, estadisticas.pendientesDeUsuario(12L));
+        assertEquals(0, estadisticas.pendientesDeUsuario(99L));
+    }
+
+    @Test
+    void testEventos_ActualizanContadoresYPodio() {
+        // Arrange
+        estadisticas.construir();
+
+        // Act
+        aplicar(PrestamoCambiadoEvent.creado(4L, 10L, "Ensayo"));
+        aplicar(PrestamoCambiadoEvent.creado(4L, 10L, "Ensayo"));
+        aplicar(PrestamoCambiadoEvent.creado(4L, 10L, "Ensayo"));
+        aplicar(PrestamoCambiadoEvent.devuelto(4L, 10L, "Ensayo"));
+        aplicar(PrestamoCambiadoEvent.devuelto(1L, 11L, "Novela"));
+
+        // Assert
+        assertEquals(List.of(libro(4L, 4), libro(1L, 3), libro(2L, 2)), estadisticas.masPrestados(3));
+        assertTrue(estadisticas.porGenero().contains(new EstadisticaGeneroDTO("Ensayo", 5, 2)));
+        assertTrue(estadisticas.porGenero().contains(new EstadisticaGeneroDTO("Novela", 5, 1)));
+        assertEquals(3, estadisticas.pendientesDeUsuario(10L));
+        assertEquals(0, estadisticas.pendientesDeUsuario(11L));
+    }
+
+    @Test
+    void testEliminarPrestamos_RecalculaElPodio() {
+        // Arrange
+        estadisticas.construir();
+
+        // Act: el libro 1 baja a un préstamo y el 4 (fuera del podio) queda por encima
+        aplicar(PrestamoCambiadoEvent.eliminado(1L, 10L, "Novela", false));
+        aplicar(PrestamoCambiadoEvent.eliminado(1L, 11L, "Novela", true));
+
+        // Assert
+        assertEquals(List.of(libro(2L, 2), libro(3L, 2), libro(1L, 1)), estadisticas.masPrestados(3));
+        assertTrue(estadisticas.porGenero().contains(new EstadisticaGeneroDTO("Novela", 3, 1)));
+        assertEquals(0, estadisticas.pendientesDeUsuario(11L));
+    }
+
+    @Test
+    void testVerificar_CorrigeLasDiferenciasConLaBaseDeDatos() {
+        // Arrange
+        estadisticas.construir();
+        // Préstamos creados y devueltos sin pasar por el servicio (otra instancia, por ejemplo)
+        prestamos.add(new Prestamo(5L, 11L, "Ensayo", true));
+        prestamos.add(new Prestamo(5L, 11L, "Ensayo", false));
+        prestamos.add(new Prestamo(5L, 12L, "Ensayo", false));
+
+        // Act
+        estadisticas.verificar();
+
+        // Assert: libro 5, usuario 11 y los dos contadores de Ensayo
+        assertEquals(4, registry.get("biblioteca.estadisticas.discrepancias").functionCounter().count());
+        assertEquals(List.of(libro(5L, 4), libro(1L, 3), libro(2L, 2)), estadisticas.masPrestados(3));
+        assertEquals(2, estadisticas.pendientesDeUsuario(11L));
+        assertTrue(estadisticas.porGenero().contains(new EstadisticaGeneroDTO("Ensayo", 5, 1)));
+    }
+
+    @Test
+    void testVerificar_SinDiferenciasNoCuentaDiscrepancias() {
+        // Arrange
+        estadisticas.construir();
+        aplicar(PrestamoCambiadoEvent.creado(5L, 10L, "Ensayo"));
+        prestamos.add(new Prestamo(5L, 10L, "Ensayo", true));
+
+        // Act
+        estadisticas.verificar();
+
+        // Assert
+        assertEquals(0, registry.get("biblioteca.estadisticas.discrepancias").functionCounter().count());
+        assertEquals(2, estadisticas.pendientesDeUsuario(10L));
+    }
+
+    @Test
+    void testDeshabilitadas_NoSeCalculan() {
+        // Arrange
+        properties.setHabilitadas(false);
+
+        // Act
+        estadisticas.construir();
+
+        // Assert
+        assertFalse(estadisticas.listo());
+        verify(prestamoRepository, never()).streamPrestamosPorLibro();
+    }
+
+    private void aplicar(PrestamoCambiadoEvent evento) {
+        estadisticas.alCambiarPrestamo(evento);
+    }
+
+    private LibroMasPrestadoDTO libro(Long libroId, long prestamos) {
+        return new LibroMasPrestadoDTO(libroId, null, prestamos);
+    }
+
+    private List<Agregado<Long>> porLibro() {
+        return prestamos.stream()
+                .collect(Collectors.groupingBy(Prestamo::libroId, TreeMap::new, Collectors.counting()))
+                .entrySet().stream()
+                .map(entrada -> agregado(entrada.getKey(), entrada.getValue(), 0))
+                .collect(Collectors.toList());
+    }
+
+    private List<Agregado<String>> porGenero() {
+        Map<String, List<Prestamo>> porGenero = prestamos.stream()
+                .collect(Collectors.groupingBy(Prestamo::genero, TreeMap::new, Collectors.toList()));
+        return porGenero.entrySet().stream()
+                .map(entrada -> agregado(entrada.getKey(), entrada.getValue().size(),
+                        entrada.getValue().stream().filter(Prestamo::pendiente).count()))
+                .collect(Collectors.toList());
+    }
+
+    private List<Agregado<Long>> pendientesPorUsuario() {
+        return prestamos.stream()
+                .filter(Prestamo::pendiente)
+                .collect(Collectors.groupingBy(Prestamo::usuarioId, TreeMap::new, Collectors.counting()))
+                .entrySet().stream()
+                .map(entrada -> agregado(entrada.getKey(), 0, entrada.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private static <K> Agregado<K> agregado(K clave, long prestamos, long pendientes) {
+        return new Agregado<>() {
+            @Override
+            public K getClave() {
+                return clave;
+            }
+
+            @Override
+            public long getPrestamos() {
+                return prestamos;
+            }
+
+            @Override
+            public long getPendientes() {
+                return pendientes;
+            }
+        };
+    }
+
+    private record Prestamo(Long libroId, Long usuarioId, String genero, boolean pendiente) {
+    }
+}
@@ -0,0 +1,163 @@
+package com.biblioteca.api.limite;
+
+import com.biblioteca.api.config.LimiteTraficoProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FiltroLimiteTraficoTest {
+
+    private LimiteTraficoProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LimiteTraficoProperties();
+        properties.setEscriturasSimultaneas(1);
+        properties.setEsperaMaxima(Duration.ZERO);
+        LimiteTraficoProperties.Grupo prestamos = new LimiteTraficoProperties.Grupo();
+        prestamos.setMetodos(List.of("POST", "DELETE"));
+        prestamos.setRutas(List.of("/api/prestamos/**"));
+        prestamos.setPorSegundo(0.5);
+        prestamos.setRafaga(2);
+        properties.getGrupos().put("prestamos", prestamos);
+    }
+
+    @Test
+    void testTasa_CadaClienteTieneSuCubo() throws Exception {
+        // Arrange
+        FiltroLimiteTrafico filtro = filtro();
+
+        // Act
+        List<Integer> estados = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            estados.add(ejecutar(filtro, peticion("POST", "/api/prestamos", "10.0.0.1", null)).getStatus());
+        }
+        MockHttpServletResponse rechazada = ejecutar(filtro, peticion("POST", "/api/prestamos", "10.0.0.1", null));
+        int otraIp = ejecutar(filtro, peticion("POST", "/api/prestamos", "10.0.0.2", null)).getStatus();
+        int conClave = ejecutar(filtro, peticion("POST", "/api/prestamos", "10.0.0.1", "integracion")).getStatus();
+
+        // Assert: ráfaga de dos y un token cada dos segundos
+        assertEquals(List.of(200, 200, 429), estados);
+        assertEquals(429, rechazada.getStatus());
+        assertEquals("2", rechazada.getHeader("Retry-After"));
+        assertTrue(rechazada.getContentAsString().contains("\"status\":429"));
+        assertEquals(200, otraIp);
+        assertEquals(200, conClave);
+    }
+
+    @Test
+    void testTasa_ClaveDesconocidaCuentaComoSuIp() throws Exception {
+        // Arrange
+        FiltroLimiteTrafico filtro = filtro();
+
+        // Act: una clave distinta en cada petición desde la misma dirección
+        List<Integer> estados = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            estados.add(ejecutar(filtro, peticion("POST", "/api/prestamos", "10.0.0.1", "inventada-" + i)).getStatus());
+        }
+        int conClaveConocida = ejecutar(filtro, peticion("POST", "/api/prestamos", "10.0.0.1", "integracion")).getStatus();
+
+        // Assert
+        assertEquals(List.of(200, 200, 429), estados);
+        assertEquals(200, conClaveConocida);
+    }
+
+    @Test
+    void testTasa_RutasEquivalentesCompartenCubo() throws Exception {
+        // Arrange
+        FiltroLimiteTrafico filtro = filtro();
+
+        // Act: rutas que Spring MVC lleva al mismo controlador
+        List<Integer> estados = new ArrayList<>();
+        for (String ruta : List.of("/api/prestamos;x=1", "/api/%70restamos", "/api//prestamos/lote", "/api/prestamos;x=1/lote")) {
+            estados.add(ejecutar(filtro, peticion("POST", ruta, "10.0.0.1", null)).getStatus());
+        }
+
+        // Assert
+        assertEquals(List.of(200, 200, 429, 429), estados);
+    }
+
+    @Test
+    void testTasa_SoloEnLosEndpointsDelGrupo() throws Exception {
+        // Arrange
+        FiltroLimiteTrafico filtro = filtro();
+
+        // Act
+        List<Integer> estados = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            estados.add(ejecutar(filtro, peticion("GET", "/api/prestamos", "10.0.0.1", null)).getStatus());
+            estados.add(ejecutar(filtro, peticion("POST", "/api/libros", "10.0.0.1", null)).getStatus());
+        }
+
+        // Assert
+        assertTrue(estados.stream().allMatch(estado -> estado == 200));
+    }
+
+    @Test
+    void testCompartimentos_EscriturasLlenasNoBloqueanLecturas() throws Exception {
+        // Arrange: la escritura en curso intenta otra escritura y una lectura
+        LimitadorTrafico limitador = new LimitadorTrafico(properties);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        limitador.bindTo(registry);
+        FiltroLimiteTrafico filtro = new FiltroLimiteTrafico(limitador, objectMapper(), "X-API-Key", Set.of("integracion"));
+        List<MockHttpServletResponse> dentro = new ArrayList<>();
+        FilterChain escrituraLenta = (request, response) -> {
+            dentro.add(ejecutar(filtro, peticion("PUT", "/api/libros/1", "10.0.0.2", null)));
+            dentro.add(ejecutar(filtro, peticion("GET", "/api/libros", "10.0.0.2", null)));
+        };
+
+        // Act
+        MockHttpServletResponse primera = new MockHttpServletResponse();
+        filtro.doFilter(peticion("PUT", "/api/libros/1", "10.0.0.1", null), primera, escrituraLenta);
+        int despues = ejecutar(filtro, peticion("PUT", "/api/libros/1", "10.0.0.1", null)).getStatus();
+
+        // Assert
+        assertEquals(200, primera.getStatus());
+        assertEquals(429, dentro.get(0).getStatus());
+        assertEquals("1", dentro.get(0).getHeader("Retry-After"));
+        assertEquals(200, dentro.get(1).getStatus());
+        assertEquals(200, despues);
+        assertEquals(1, registry.get("biblioteca.limite.rechazos")
+                .tags("motivo", "concurrencia", "grupo", LimitadorTrafico.ESCRITURAS).functionCounter().count());
+        assertEquals(0, registry.get("biblioteca.limite.en.curso")
+                .tag("compartimento", LimitadorTrafico.ESCRITURAS).gauge().value());
+    }
+
+    private FiltroLimiteTrafico filtro() {
+        return new FiltroLimiteTrafico(new LimitadorTrafico(properties), objectMapper(), "X-API-Key", Set.of("integracion"));
+    }
+
+    private static MockHttpServletResponse ejecutar(FiltroLimiteTrafico filtro, MockHttpServletRequest request)
+            throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request, response, (req, res) -> { });
+        return response;
+    }
+
+    private static MockHttpServletRequest peticion(String metodo, String ruta, String ip, String clave) {
+        MockHttpServletRequest request = new MockHttpServletRequest(metodo, ruta);
+        request.setRemoteAddr(ip);
+        if (clave != null) {
+            request.addHeader("X-API-Key", clave);
+        }
+        return request;
+    }
+
+    private static ObjectMapper objectMapper() {
+        return new ObjectMapper().registerModule(new JavaTimeModule());
+    }
+}
@@ -0,0 +1,48 @@
+package com.biblioteca.api.limite;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Con el servidor real: las peticiones llegan desde 127.0.0.1, como desde el nginx de Elastic Beanstalk
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "biblioteca.limite-trafico.grupos.catalogo.por-segundo=0.01",
+        "biblioteca.limite-trafico.grupos.catalogo.rafaga=1"
+})
+class LimiteTraficoProxyTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void testProxyDeConfianza_CadaClienteReenviadoTieneSuCubo() {
+        // Act
+        List<Integer> estados = new ArrayList<>();
+        estados.add(crearLibro("203.0.113.10, 10.0.1.5"));
+        estados.add(crearLibro("203.0.113.10, 10.0.1.5"));
+        estados.add(crearLibro("203.0.113.20, 10.0.1.5"));
+
+        // Assert: el segundo del mismo cliente se rechaza; otro cliente detrás del mismo proxy no
+        assertEquals(429, estados.get(1));
+        assertNotEquals(429, estados.get(0));
+        assertNotEquals(429, estados.get(2));
+    }
+
+    private int crearLibro(String reenviadoPara) {
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.setContentType(MediaType.APPLICATION_JSON);
+        cabeceras.set("X-Forwarded-For", reenviadoPara);
+        return restTemplate.exchange("/api/libros", HttpMethod.POST, new HttpEntity<>("{}", cabeceras), String.class)
+                .getStatusCode().value();
+    }
+}
@@ -0,0 +1,231 @@
+package com.biblioteca.api.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.temporal.Temporal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Las mismas comprobaciones que PlanesConsultaTest sobre PostgreSQL, con las migraciones de
+ * PostgreSQL. Cada sentencia se prepara con PREPARE y se explica con EXPLAIN EXECUTE y los
+ * valores con los que la ejecutó Hibernate: con valores concretos el planificador puede usar
+ * los índices parciales, igual que en las primeras ejecuciones reales.
+ */
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// Las configuraciones anidadas de la clase base no se heredan: se importan las dos
+@Import({PlanesConsultaTest.CapturaSqlConfig.class, PlanesConsultaPostgresTest.CapturaParametrosConfig.class})
+class PlanesConsultaPostgresTest extends PlanesConsultaTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CapturaParametros capturaParametros;
+
+    private int preparadas;
+
+    @Test
+    void testRutasFrecuentes_UsanSusIndicesParciales() {
+        // Arrange
+        Long usuarioId = usuarios.get(7).getId();
+
+        // Act & Assert
+        assertUsaIndice("ix_prestamos_pendientes", () -> prestamoRepository.findDTOPendientesByUsuarioId(usuarioId));
+        assertUsaIndice("ix_prestamos_pendientes", () -> prestamoRepository.countPendientesByUsuarioId(usuarioId));
+        assertUsaIndice("ix_prestamos_pendientes_vencimiento",
+                () -> prestamoRepository.findVencidosDespuesDe(0L, LocalDate.now(), Limit.of(20)));
+        assertUsaIndice("ix_libros_disponibles", () -> libroRepository.findDTOByDisponible(true));
+    }
+
+    @Override
+    List<String> planes(Runnable consulta) {
+        entityManager.clear();
+        capturaParametros.sentencias.clear();
+        capturaParametros.activa = true;
+        try {
+            consulta.run();
+            entityManager.flush();
+        } finally {
+            capturaParametros.activa = false;
+        }
+        return capturaParametros.sentencias.stream().map(this::explicar).toList();
+    }
+
+    @Override
+    String recorridoCompleto() {
+        return "Seq Scan";
+    }
+
+    private void assertUsaIndice(String indice, Runnable consulta) {
+        List<String> planes = planes(consulta);
+        assertFalse(planes.isEmpty(), "La consulta no ha llegado a la base de datos");
+        // El nombre seguido de un espacio: ix_prestamos_pendientes no debe aceptar el de vencimiento
+        Predicate<String> usaIndice = plan -> plan.contains(" " + indice + " ");
+        assertTrue(planes.stream().anyMatch(usaIndice), () -> "No se usa " + indice + ":\n" + String.join("\n", planes));
+    }
+
+    // PREPARE con $1..$n en lugar de "?" y EXPLAIN EXECUTE con los valores capturados
+    private String explicar(SentenciaCapturada sentencia) {
+        String nombre = "plan_" + (++preparadas);
+        StringBuilder sql = new StringBuilder();
+        int parametro = 0;
+        for (char c : sentencia.sql().toCharArray()) {
+            if (c == '?') {
+                sql.append('$').append(++parametro);
+            } else {
+                sql.append(c);
+            }
+        }
+        jdbcTemplate.execute("prepare " + nombre + " as " + sql);
+        try {
+            String valores = sentencia.parametros().values().stream()
+                    .map(PlanesConsultaPostgresTest::literal)
+                    .collect(Collectors.joining(", "));
+            String ejecucion = parametro == 0 ? nombre : nombre + "(" + valores + ")";
+            return String.join("\n", jdbcTemplate.queryForList("explain execute " + ejecucion, String.class));
+        } finally {
+            jdbcTemplate.execute("deallocate " + nombre);
+        }
+    }
+
+    private static String literal(Object valor) {
+        if (valor == null) {
+            return "null";
+        }
+        if (valor instanceof Number || valor instanceof Boolean) {
+            return valor.toString();
+        }
+        if (valor instanceof java.util.Date || valor instanceof Temporal) {
+            return "'" + valor + "'";
+        }
+        return "'" + valor.toString().replace("'", "''") + "'";
+    }
+
+    record SentenciaCapturada(String sql, Map<Integer, Object> parametros) {
+    }
+
+    /**
+     * Envuelve el DataSource para registrar, mientras está activa, cada sentencia preparada
+     * que se ejecuta junto con los valores de sus parámetros.
+     */
+    static class CapturaParametros implements BeanPostProcessor {
+
+        final List<SentenciaCapturada> sentencias = new CopyOnWriteArrayList<>();
+        volatile boolean activa;
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String nombre) {
+            if (bean instanceof DataSource dataSource) {
+                return envolver(DataSource.class, dataSource, (metodo, resultado, argumentos) ->
+                        resultado instanceof Connection conexion ? envolverConexion(conexion) : resultado);
+            }
+            return bean;
+        }
+
+        private Connection envolverConexion(Connection conexion) {
+            return envolver(Connection.class, conexion, (metodo, resultado, argumentos) ->
+                    metodo.equals("prepareStatement") && resultado instanceof PreparedStatement sentencia
+                            ? envolverSentencia(sentencia, (String) argumentos[0])
+                            : resultado);
+        }
+
+        private PreparedStatement envolverSentencia(PreparedStatement sentencia, String sql) {
+            Map<Integer, Object> parametros = new TreeMap<>();
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, metodo, argumentos) -> {
+                        String nombre = metodo.getName();
+                        if (nombre.startsWith("set") && argumentos != null && argumentos.length >= 2
+                                && argumentos[0] instanceof Integer indice) {
+                            parametros.put(indice, nombre.equals("setNull") ? null : argumentos[1]);
+                        } else if (nombre.equals("clearParameters")) {
+                            parametros.clear();
+                        } else if (activa && (nombre.startsWith("execute") || nombre.equals("addBatch"))) {
+                            sentencias.add(new SentenciaCapturada(sql, new TreeMap<>(parametros)));
+                        }
+                        return invocar(sentencia, metodo, argumentos);
+                    });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T envolver(Class<T> tipo, T objetivo, Transformacion transformacion) {
+            InvocationHandler manejador = (proxy, metodo, argumentos) ->
+                    transformacion.aplicar(metodo.getName(), invocar(objetivo, metodo, argumentos), argumentos);
+            return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, manejador);
+        }
+
+        private static Object invocar(Object objetivo, Method metodo, Object[] argumentos)
+                throws Throwable {
+            try {
+                return metodo.invoke(objetivo, argumentos);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @FunctionalInterface
+        interface Transformacion {
+            Object aplicar(String metodo, Object resultado, Object[] argumentos);
+        }
+    }
+
+    @TestConfiguration
+    static class CapturaParametrosConfig {
+
+        @Bean
+        static CapturaParametros capturaParametros() {
+            return new CapturaParametros();
+        }
+    }
+}
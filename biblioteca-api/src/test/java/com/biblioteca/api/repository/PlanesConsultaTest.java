@@ -0,0 +1,244 @@
+package com.biblioteca.api.repository;
+
+import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.entity.Perfil;
+import com.biblioteca.api.entity.Prestamo;
+import com.biblioteca.api.entity.Prestamo.EstadoPrestamo;
+import com.biblioteca.api.entity.Usuario;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba con EXPLAIN que las consultas frecuentes de los repositorios usan los índices de
+ * las migraciones sobre un catálogo con datos. El SQL se captura tal y como lo genera Hibernate,
+ * así que cualquier cambio en una consulta o en los índices queda cubierto.
+ *
+ * <p>Se ejecuta sobre H2, que explica sentencias con parámetros sin valor y marca con
+ * "tableScan" los recorridos completos de una tabla; PlanesConsultaPostgresTest repite las
+ * comprobaciones sobre PostgreSQL con los valores de los parámetros. No se comprueban las consultas que recorren
+ * el catálogo entero a propósito (findAllDTO, streamDTO, streamTextos y streamFiltros) ni las
+ * agregaciones de las estadísticas de préstamos.
+ */
+// Sin caché de segundo nivel: respondería las búsquedas por id sin llegar a la base de datos
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=false")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PlanesConsultaTest {
+
+    private static final int LIBROS = 2000;
+    // Tablas de decenas de páginas: en una de dos o tres PostgreSQL prefiere con razón recorrerla entera
+    private static final int USUARIOS = 2000;
+    private static final int PRESTAMOS = 4000;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CapturaSql capturaSql;
+
+    final List<Libro> libros = new ArrayList<>();
+    final List<Usuario> usuarios = new ArrayList<>();
+    Prestamo prestamo;
+
+    // Los datos se siembran una sola vez: ANALYZE confirma la transacción en curso
+    @BeforeAll
+    void sembrar() {
+        transactionTemplate.executeWithoutResult(estado -> {
+            for (int i = 0; i < LIBROS; i++) {
+                libros.add(libroRepository.save(crearLibro(i)));
+            }
+            for (int i = 0; i < USUARIOS; i++) {
+                usuarios.add(usuarioRepository.save(crearUsuario(i)));
+            }
+            for (int i = 0; i < PRESTAMOS; i++) {
+                // Uno de cada diez préstamos sigue activo, como en un catálogo con historial
+                prestamo = prestamoRepository.save(crearPrestamo(usuarios.get(i % USUARIOS), libros.get(i % LIBROS),
+                        i % 10 == 0 ? EstadoPrestamo.ACTIVO : EstadoPrestamo.DEVUELTO));
+            }
+        });
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    void testConsultasDeLibros_UsanIndices() {
+        // Arrange
+        Long libroId = libros.get(LIBROS / 2).getId();
+        List<Long> ids = List.of(libros.get(1).getId(), libros.get(2).getId());
+
+        // Act & Assert
+        assertUsaIndices(() -> libroRepository.findDTOByGenero("Género 3"));
+        assertUsaIndices(() -> libroRepository.findDTOByDisponible(true));
+        assertUsaIndices(() -> libroRepository.findByGenero("Género 3"));
+        assertUsaIndices(() -> libroRepository.findById(libroId));
+        assertUsaIndices(() -> libroRepository.existsById(libroId));
+        assertUsaIndices(() -> libroRepository.existsByIsbn("isbn-7"));
+        assertUsaIndices(() -> libroRepository.findDTOByIdIn(ids));
+        assertUsaIndices(() -> libroRepository.findEstadosParaPrestar(ids));
+        assertUsaIndices(() -> libroRepository.findIsbnsExistentes(List.of("isbn-1", "isbn-2")));
+        assertUsaIndices(() -> libroRepository.findDTOByIdGreaterThan(libroId, Limit.of(20)));
+        assertUsaIndices(() -> libroRepository.findVersionById(libroId));
+        assertUsaIndices(() -> libroRepository.marcarComoPrestado(libroId));
+        assertUsaIndices(() -> libroRepository.marcarComoPrestados(ids));
+    }
+
+    @Test
+    void testConsultasDePrestamos_UsanIndices() {
+        // Arrange
+        Long usuarioId = usuarios.get(7).getId();
+        Long libroId = libros.get(7).getId();
+
+        // Act & Assert
+        assertUsaIndices(() -> prestamoRepository.findDTOByUsuarioIdAndEstado(usuarioId, EstadoPrestamo.ACTIVO));
+        assertUsaIndices(() -> prestamoRepository.findByUsuarioIdAndEstado(usuarioId, EstadoPrestamo.DEVUELTO));
+        assertUsaIndices(() -> prestamoRepository.findByUsuarioId(usuarioId));
+        assertUsaIndices(() -> prestamoRepository.findByLibroId(libroId));
+        assertUsaIndices(() -> prestamoRepository.findDTOById(prestamo.getId()));
+        assertUsaIndices(() -> prestamoRepository.findDTOByIdGreaterThan(prestamo.getId() - 100, Limit.of(20)));
+        assertUsaIndices(() -> prestamoRepository.findDTOPendientesByUsuarioId(usuarioId));
+        assertUsaIndices(() -> prestamoRepository.countPendientesByUsuarioId(usuarioId));
+        assertUsaIndices(() -> prestamoRepository.findVencidosDespuesDe(prestamo.getId() - 100, LocalDate.now(), Limit.of(20)));
+        assertUsaIndices(() -> prestamoRepository.marcarComoVencidos(List.of(prestamo.getId()), BigDecimal.ONE));
+    }
+
+    @Test
+    void testConsultasDeUsuarios_UsanIndices() {
+        // Arrange
+        Long usuarioId = usuarios.get(7).getId();
+
+        // Act & Assert
+        assertUsaIndices(() -> usuarioRepository.findByEmail("lector-7@biblioteca.com"));
+        assertUsaIndices(() -> usuarioRepository.existsByEmail("lector-7@biblioteca.com"));
+        assertUsaIndices(() -> usuarioRepository.findDTOById(usuarioId));
+        assertUsaIndices(() -> usuarioRepository.findDTOByIdGreaterThan(usuarioId, Limit.of(20)));
+        assertUsaIndices(() -> usuarioRepository.findNombreById(usuarioId));
+        assertUsaIndices(() -> usuarioRepository.findVersionById(usuarioId));
+    }
+
+    void assertUsaIndices(Runnable consulta) {
+        List<String> planes = planes(consulta);
+        assertFalse(planes.isEmpty(), "La consulta no ha llegado a la base de datos");
+        for (String plan : planes) {
+            assertFalse(plan.contains(recorridoCompleto()), () -> "Recorrido completo de una tabla:\n" + plan);
+        }
+    }
+
+    // Plan de cada sentencia que envía la consulta a la base de datos
+    List<String> planes(Runnable consulta) {
+        entityManager.clear();
+        capturaSql.limpiar();
+        consulta.run();
+        entityManager.flush();
+
+        return capturaSql.sentencias.stream()
+                .map(sql -> jdbcTemplate.query(conexion -> conexion.prepareStatement("explain " + sql),
+                        rs -> rs.next() ? rs.getString(1) : ""))
+                .toList();
+    }
+
+    // Cómo aparece en el plan un recorrido completo de una tabla
+    String recorridoCompleto() {
+        return ".tableScan";
+    }
+
+    private Libro crearLibro(int i) {
+        Libro libro = new Libro();
+        libro.setTitulo("Título " + i);
+        libro.setIsbn("isbn-" + i);
+        libro.setAutor("Autor " + (i % 100));
+        libro.setAnioPublicacion(1950 + i % 70);
+        libro.setGenero("Género " + (i % 20));
+        libro.setDisponible(i % 4 != 0);
+        return libro;
+    }
+
+    private Usuario crearUsuario(int i) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Lector " + i);
+        usuario.setEmail("lector-" + i + "@biblioteca.com");
+        usuario.setTelefono("600000000");
+        usuario.setFechaRegistro(LocalDate.now());
+
+        Perfil perfil = new Perfil();
+        perfil.setDireccion("Calle Mayor " + i);
+        perfil.setCiudad("Castellón");
+        perfil.setCodigoPostal("12001");
+        perfil.setUsuario(usuario);
+        usuario.setPerfil(perfil);
+        return usuario;
+    }
+
+    private Prestamo crearPrestamo(Usuario usuario, Libro libro, EstadoPrestamo estado) {
+        Prestamo nuevo = new Prestamo();
+        nuevo.setUsuario(usuario);
+        nuevo.setLibro(libro);
+        nuevo.setFechaPrestamo(LocalDate.now().minusDays(30));
+        nuevo.setFechaVencimiento(LocalDate.now().minusDays(16));
+        nuevo.setFechaDevolucion(estado == EstadoPrestamo.DEVUELTO ? LocalDate.now() : null);
+        nuevo.setEstado(estado);
+        return nuevo;
+    }
+
+    // Registra el SQL que envía Hibernate para poder explicarlo después
+    static class CapturaSql implements StatementInspector {
+
+        private final List<String> sentencias = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            sentencias.add(sql);
+            return sql;
+        }
+
+        void limpiar() {
+            sentencias.clear();
+        }
+    }
+
+    @TestConfiguration
+    static class CapturaSqlConfig {
+
+        @Bean
+        CapturaSql capturaSql() {
+            return new CapturaSql();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer inspectorSentencias(CapturaSql capturaSql) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, capturaSql);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.biblioteca.api.repository;
+
+import com.biblioteca.api.dto.PrestamoDTO;
+import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.entity.Perfil;
+import com.biblioteca.api.entity.Prestamo;
+import com.biblioteca.api.entity.Prestamo.EstadoPrestamo;
+import com.biblioteca.api.entity.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PrestamoRepositoryTest {
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void setUp() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testListarPrestamos_NumeroDeConsultasConstante() {
+        // Arrange
+        crearPrestamos(1);
+        long consultasConUnPrestamo = contarConsultas(() -> prestamoRepository.findAllDTO());
+
+        crearPrestamos(20);
+        long consultasConVeintiunPrestamos = contarConsultas(() -> prestamoRepository.findAllDTO());
+
+        // Assert
+        assertEquals(1, consultasConUnPrestamo);
+        assertEquals(1, consultasConVeintiunPrestamos);
+    }
+
+    @Test
+    void testPrestamosActivosDeUsuario_UnaSolaConsulta() {
+        // Arrange
+        Usuario usuario = crearUsuario("lector@biblioteca.com");
+        for (int i = 0; i < 5; i++) {
+            crearPrestamo(usuario, crearLibro("isbn-activo-" + i), EstadoPrestamo.ACTIVO);
+        }
+        crearPrestamo(usuario, crearLibro("isbn-devuelto"), EstadoPrestamo.DEVUELTO);
+        entityManager.clear();
+
+        // Act
+        estadisticas.clear();
+        List<PrestamoDTO> activos = prestamoRepository.findDTOByUsuarioIdAndEstado(usuario.getId(), EstadoPrestamo.ACTIVO);
+
+        // Assert
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertEquals(5, activos.size());
+        assertEquals("Lector", activos.get(0).getNombreUsuario());
+        assertTrue(activos.get(0).getTituloLibro().startsWith("Título"));
+    }
+
+    @Test
+    void testBuscarPrestamoPorId_ProyeccionCompleta() {
+        // Arrange
+        Usuario usuario = crearUsuario("otro@biblioteca.com");
+        Libro libro = crearLibro("isbn-unico");
+        Prestamo prestamo = crearPrestamo(usuario, libro, EstadoPrestamo.ACTIVO);
+        entityManager.clear();
+
+        // Act
+        PrestamoDTO dto = prestamoRepository.findDTOById(prestamo.getId()).orElseThrow();
+
+        // Assert
+        assertEquals(usuario.getId(), dto.getUsuarioId());
+        assertEquals(libro.getId(), dto.getLibroId());
+        assertEquals(EstadoPrestamo.ACTIVO, dto.getEstado());
+        assertEquals("Título isbn-unico", dto.getTituloLibro());
+    }
+
+    private long contarConsultas(Supplier<List<PrestamoDTO>> consulta) {
+        entityManager.clear();
+        estadisticas.clear();
+        consulta.get();
+        return estadisticas.getPrepareStatementCount();
+    }
+
+    private void crearPrestamos(int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            String sufijo = System.nanoTime() + "-" + i;
+            crearPrestamo(crearUsuario("usuario-" + sufijo + "@biblioteca.com"), crearLibro("isbn-" + sufijo),
+                    EstadoPrestamo.ACTIVO);
+        }
+        entityManager.flush();
+    }
+
+    private Usuario crearUsuario(String email) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Lector");
+        usuario.setEmail(email);
+        usuario.setTelefono("600000000");
+        usuario.setFechaRegistro(LocalDate.now());
+
+        Perfil perfil = new Perfil();
+        perfil.setDireccion("Calle Mayor 1");
+        perfil.setCiudad("Castellón");
+        perfil.setCodigoPostal("12001");
+        perfil.setUsuario(usuario);
+        usuario.setPerfil(perfil);
+        return entityManager.persist(usuario);
+    }
+
+    private Libro crearLibro(String isbn) {
+        Libro libro = new Libro();
+        libro.setTitulo("Título " + isbn);
+        libro.setIsbn(isbn);
+        libro.setAutor("Autor");
+        libro.setAnioPublicacion(2000);
+        libro.setGenero("Novela");
+        libro.setDisponible(true);
+        return entityManager.persist(libro);
+    }
+
+    private Prestamo crearPrestamo(Usuario usuario, Libro libro, EstadoPrestamo estado) {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setUsuario(usuario);
+        prestamo.setLibro(libro);
+        prestamo.setFechaPrestamo(LocalDate.now());
+        prestamo.setFechaVencimiento(LocalDate.now().plusDays(14));
+        prestamo.setEstado(estado);
+        return entityManager.persistAndFlush(prestamo);
+    }
+}
@@ -0,0 +1,112 @@
+package com.biblioteca.api.repository;
+
+import com.biblioteca.api.dto.UsuarioDTO;
+import com.biblioteca.api.entity.Perfil;
+import com.biblioteca.api.entity.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class UsuarioRepositoryTest {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void setUp() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testListarUsuarios_ProyeccionConPerfilEnUnaConsulta() {
+        // Arrange
+        for (int i = 0; i < 10; i++) {
+            crearUsuario("lector-" + i + "@biblioteca.com", i % 2 == 0);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        estadisticas.clear();
+        List<UsuarioDTO> usuarios = usuarioRepository.findAllDTO();
+
+        // Assert
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertEquals(0, estadisticas.getEntityLoadCount());
+        assertEquals(10, usuarios.size());
+        assertEquals("Castellón", usuarios.get(0).getPerfil().getCiudad());
+        assertNull(usuarios.get(1).getPerfil());
+    }
+
+    @Test
+    void testBuscarUsuarioPorId_ProyeccionCompleta() {
+        // Arrange
+        Usuario usuario = crearUsuario("unico@biblioteca.com", true);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        UsuarioDTO dto = usuarioRepository.findDTOById(usuario.getId()).orElseThrow();
+
+        // Assert
+        assertEquals("unico@biblioteca.com", dto.getEmail());
+        assertEquals(usuario.getPerfil().getId(), dto.getPerfil().getId());
+        assertEquals("12001", dto.getPerfil().getCodigoPostal());
+    }
+
+    @Test
+    void testVersion_CambiaAlModificarElPerfil() {
+        // Arrange
+        Usuario usuario = crearUsuario("versionado@biblioteca.com", true);
+        entityManager.flush();
+        UsuarioRepository.VersionUsuario antes = usuarioRepository.findVersionById(usuario.getId()).orElseThrow();
+
+        // Act
+        usuario.getPerfil().setCiudad("Valencia");
+        entityManager.flush();
+        entityManager.clear();
+        UsuarioRepository.VersionUsuario despues = usuarioRepository.findVersionById(usuario.getId()).orElseThrow();
+
+        // Assert
+        assertEquals(antes.getVersion(), despues.getVersion());
+        assertEquals(usuario.getPerfil().getId(), despues.getPerfilId());
+        assertEquals(antes.getVersionPerfil() + 1, despues.getVersionPerfil());
+        assertTrue(usuarioRepository.findVersionById(-1L).isEmpty());
+    }
+
+    private Usuario crearUsuario(String email, boolean conPerfil) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Lector");
+        usuario.setEmail(email);
+        usuario.setTelefono("600000000");
+        usuario.setFechaRegistro(LocalDate.now());
+        if (conPerfil) {
+            Perfil perfil = new Perfil();
+            perfil.setDireccion("Calle Mayor 1");
+            perfil.setCiudad("Castellón");
+            perfil.setCodigoPostal("12001");
+            perfil.setUsuario(usuario);
+            usuario.setPerfil(perfil);
+        }
+        return entityManager.persist(usuario);
+    }
+}
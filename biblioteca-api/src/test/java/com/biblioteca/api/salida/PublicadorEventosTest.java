@@ -0,0 +1,226 @@
+package com.biblioteca.api.salida;
+
+import com.biblioteca.api.config.SalidaEventosProperties;
+import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.entity.EventoSalida;
+import com.biblioteca.api.entity.EventoSalida.TipoEvento;
+import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.entity.Prestamo;
+import com.biblioteca.api.entity.Prestamo.EstadoPrestamo;
+import com.biblioteca.api.entity.Usuario;
+import com.biblioteca.api.repository.EventoSalidaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sin la transacción del test: cada lote se reserva y publica en la suya
+@DataJpaTest(properties = "biblioteca.salida-eventos.tamano-lote=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BandejaSalida.class, PublicadorEventos.class, PublicadorEventosTest.DestinoConFallos.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@EnableConfigurationProperties(SalidaEventosProperties.class)
+class PublicadorEventosTest {
+
+    @Autowired
+    private BandejaSalida bandejaSalida;
+
+    @Autowired
+    private PublicadorEventos publicador;
+
+    @Autowired
+    private EventoSalidaRepository eventoSalidaRepository;
+
+    @Autowired
+    private DestinoConFallos destino;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        eventoSalidaRepository.deleteAll();
+        destino.limpiar();
+        destino.fallar = false;
+        publicador.bindTo(registry);
+    }
+
+    @Test
+    void testRegistrar_ExigeUnaTransaccion() {
+        assertThrows(IllegalTransactionStateException.class,
+                () -> bandejaSalida.registrarLibro(TipoEvento.LIBRO_ELIMINADO, 1L, null));
+    }
+
+    @Test
+    void testPublicar_EnLotesYEnOrdenSoloLosConfirmados() {
+        // Arrange: cinco eventos confirmados y uno de una transacción revertida
+        transactionTemplate.executeWithoutResult(estado -> {
+            bandejaSalida.registrarPrestamo(TipoEvento.PRESTAMO_CREADO, prestamo(1L));
+            bandejaSalida.registrarPrestamo(TipoEvento.PRESTAMO_DEVUELTO, prestamo(1L));
+            bandejaSalida.registrarLibro(TipoEvento.LIBRO_CREADO, 7L, libro(7L));
+        });
+        transactionTemplate.executeWithoutResult(estado -> {
+            bandejaSalida.registrarLibro(TipoEvento.LIBRO_ACTUALIZADO, 7L, libro(7L));
+            bandejaSalida.registrarLibro(TipoEvento.LIBRO_ELIMINADO, 7L, null);
+        });
+        transactionTemplate.executeWithoutResult(estado -> {
+            bandejaSalida.registrarPrestamo(TipoEvento.PRESTAMO_ELIMINADO, prestamo(2L));
+            estado.setRollbackOnly();
+        });
+        double lotesAntes = registry.get("biblioteca.salida.lotes").functionTimer().count();
+
+        // Act
+        int publicados = publicador.publicar();
+
+        // Assert
+        assertEquals(5, publicados);
+        assertEquals(3, registry.get("biblioteca.salida.lotes").functionTimer().count() - lotesAntes);
+        assertEquals(0, eventoSalidaRepository.count());
+        List<EventoSalida> eventos = destino.eventos();
+        assertEquals(List.of(TipoEvento.PRESTAMO_CREADO, TipoEvento.PRESTAMO_DEVUELTO, TipoEvento.LIBRO_CREADO,
+                TipoEvento.LIBRO_ACTUALIZADO, TipoEvento.LIBRO_ELIMINADO), eventos.stream().map(EventoSalida::getTipo).toList());
+        assertEquals(eventos.stream().map(EventoSalida::getId).sorted().toList(),
+                eventos.stream().map(EventoSalida::getId).toList());
+        assertEquals("{\"prestamoId\":1,\"usuarioId\":10,\"libroId\":20,\"estado\":\"ACTIVO\","
+                + "\"fechaVencimiento\":\"2024-06-15\",\"multa\":1.50}", eventos.get(0).getDatos());
+    }
+
+    @Test
+    void testPublicar_FalloDelDestinoConservaElLote() {
+        // Arrange
+        transactionTemplate.executeWithoutResult(estado ->
+                bandejaSalida.registrarPrestamo(TipoEvento.PRESTAMO_CREADO, prestamo(1L)));
+        destino.fallar = true;
+        double fallosAntes = registry.get("biblioteca.salida.fallos").functionCounter().count();
+
+        // Act
+        int publicadosConFallo = publicador.publicar();
+        destino.fallar = false;
+        int publicadosAlReintentar = publicador.publicar();
+
+        // Assert
+        assertEquals(0, publicadosConFallo);
+        assertEquals(1, registry.get("biblioteca.salida.fallos").functionCounter().count() - fallosAntes);
+        assertEquals(1, publicadosAlReintentar);
+        assertEquals(1, destino.eventos().size());
+        assertEquals(0, eventoSalidaRepository.count());
+    }
+
+    @Test
+    void testPublicar_RetrasoDelEventoMasAntiguoAunqueNoSeaElPrimero() {
+        // Arrange: el segundo evento por id se creó antes (otra instancia confirmó tarde)
+        eventoSalidaRepository.save(new EventoSalida(TipoEvento.LIBRO_CREADO, 1L, "{}"));
+        EventoSalida tardio = new EventoSalida(TipoEvento.LIBRO_CREADO, 2L, "{}");
+        tardio.setCreado(Instant.now().minus(Duration.ofHours(1)));
+        eventoSalidaRepository.save(tardio);
+        // Con el destino caído el lote sigue pendiente y el retraso no vuelve a cero
+        destino.fallar = true;
+
+        // Act
+        publicador.publicar();
+
+        // Assert
+        double retraso = registry.get("biblioteca.salida.retraso").gauge().value();
+        assertTrue(retraso >= 3600, "retraso: " + retraso);
+    }
+
+    @Test
+    void testPublicar_SaltaLosEventosReservadosPorOtraInstancia() throws Exception {
+        // Arrange: otra instancia tiene reservado el primer lote mientras publica
+        transactionTemplate.executeWithoutResult(estado -> {
+            for (long id = 1; id <= 3; id++) {
+                bandejaSalida.registrarLibro(TipoEvento.LIBRO_CREADO, id, libro(id));
+            }
+        });
+        CountDownLatch reservados = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CompletableFuture<List<Long>> otraInstancia = CompletableFuture.supplyAsync(() ->
+                transactionTemplate.execute(estado -> {
+                    List<Long> ids = eventoSalidaRepository.reservarPendientes(2).stream().map(EventoSalida::getId).toList();
+                    reservados.countDown();
+                    try {
+                        liberar.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return ids;
+                }));
+        assertTrue(reservados.await(10, TimeUnit.SECONDS));
+
+        // Act
+        int publicados = publicador.publicar();
+        liberar.countDown();
+        List<Long> reservadosPorLaOtra = otraInstancia.get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(1, publicados);
+        Long publicado = destino.eventos().get(0).getId();
+        assertFalse(reservadosPorLaOtra.contains(publicado));
+        assertEquals(2, eventoSalidaRepository.count());
+    }
+
+    private static Prestamo prestamo(Long id) {
+        Usuario usuario = new Usuario();
+        usuario.setId(10L);
+        Libro libro = new Libro();
+        libro.setId(20L);
+        Prestamo prestamo = new Prestamo();
+        prestamo.setId(id);
+        prestamo.setUsuario(usuario);
+        prestamo.setLibro(libro);
+        prestamo.setEstado(EstadoPrestamo.ACTIVO);
+        prestamo.setFechaVencimiento(LocalDate.of(2024, 6, 15));
+        prestamo.setMulta(new BigDecimal("1.50"));
+        return prestamo;
+    }
+
+    private static LibroDTO libro(Long id) {
+        LibroDTO libro = new LibroDTO();
+        libro.setId(id);
+        libro.setTitulo("Título " + id);
+        libro.setIsbn("isbn-" + id);
+        libro.setGenero("Novela");
+        libro.setDisponible(true);
+        return libro;
+    }
+
+    // Destino en memoria que puede fallar a demanda
+    static class DestinoConFallos extends DestinoEventosMemoria {
+
+        volatile boolean fallar;
+
+        DestinoConFallos() {
+            super(100);
+        }
+
+        @Override
+        public void publicar(List<EventoSalida> lote) {
+            if (fallar) {
+                throw new IllegalStateException("Destino no disponible");
+            }
+            super.publicar(lote);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.biblioteca.api.service;
+
+import com.biblioteca.api.dto.ResultadoImportacionDTO;
+import com.biblioteca.api.dto.ResultadoImportacionDTO.FilaRechazada;
+import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.exception.BadRequestException;
+import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.service.ImportacionLibrosService.FormatoImportacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doReturn;
+
+// Lotes de tres filas para que los archivos pequeños ocupen varios
+@SpringBootTest(properties = "biblioteca.importacion.tamano-lote=3")
+class ImportacionLibrosServiceTest {
+
+    @Autowired
+    private ImportacionLibrosService importacionLibrosService;
+
+    @Autowired
+    private LibroService libroService;
+
+    @SpyBean
+    private LibroRepository libroRepository;
+
+    private String prefijo;
+
+    @BeforeEach
+    void setUp() {
+        prefijo = "imp-" + System.nanoTime() + "-";
+    }
+
+    @Test
+    void testImportarCsv_ColumnasEnCualquierOrdenYCamposEntreComillas() throws Exception {
+        // Arrange
+        String csv = """
+                isbn,Titulo,autor,genero,anioPublicacion
+                %1$s1,"Cien años de soledad",Gabriel García Márquez,Novela,1967
+                %1$s2,"Crónica de una muerte anunciada, edición revisada","García Márquez, Gabriel",Novela,
+
+                %1$s3,El coronel no tiene quien le escriba,Gabriel García Márquez,Novela,1961
+                """.formatted(prefijo);
+
+        // Act
+        ResultadoImportacionDTO resultado = importar(csv, FormatoImportacion.CSV);
+
+        // Assert: la cabecera y las líneas en blanco no cuentan como filas
+        assertEquals(3, resultado.getFilasLeidas());
+        assertEquals(3, resultado.getInsertados());
+        assertEquals(0, resultado.getRechazados());
+        Libro segundo = libroRepository.findByIsbn(prefijo + "2").orElseThrow();
+        assertEquals("Crónica de una muerte anunciada, edición revisada", segundo.getTitulo());
+        assertEquals("García Márquez, Gabriel", segundo.getAutor());
+        assertNull(segundo.getAnioPublicacion());
+        assertTrue(segundo.getDisponible());
+        assertEquals(1967, libroRepository.findByIsbn(prefijo + "1").orElseThrow().getAnioPublicacion());
+    }
+
+    @Test
+    void testImportarNdjson_IgnoraIdYDisponibilidadDelArchivo() throws Exception {
+        // Arrange
+        String ndjson = """
+                {"id":999999,"titulo":"Rayuela","isbn":"%1$s1","autor":"Julio Cortázar","anioPublicacion":1963,"genero":"Novela","disponible":false}
+                {"titulo":"Ficciones","isbn":"%1$s2","autor":"Jorge Luis Borges","genero":"Cuentos"}
+                """.formatted(prefijo);
+
+        // Act
+        ResultadoImportacionDTO resultado = importar(ndjson, FormatoImportacion.NDJSON);
+
+        // Assert
+        assertEquals(2, resultado.getInsertados());
+        Libro rayuela = libroRepository.findByIsbn(prefijo + "1").orElseThrow();
+        assertNotEquals(999999L, rayuela.getId());
+        assertTrue(rayuela.getDisponible());
+        assertEquals("Ficciones", libroRepository.findByIsbn(prefijo + "2").orElseThrow().getTitulo());
+    }
+
+    @Test
+    void testImportar_FilasInvalidasSeRechazanConLineaYMotivo() throws Exception {
+        // Arrange
+        String csv = """
+                titulo,isbn,autor,anioPublicacion,genero
+                Válido,%1$s1,Autor,2001,Novela
+                Año con letras,%1$s2,Autor,dos mil,Novela
+                ,%1$s3,,2001,Novela
+                Año antiguo,%1$s4,Autor,999,Novela
+                """.formatted(prefijo);
+        String ndjson = "{\"titulo\":\"Sin cerrar\"\n";
+
+        // Act
+        ResultadoImportacionDTO deCsv = importar(csv, FormatoImportacion.CSV);
+        ResultadoImportacionDTO deNdjson = importar(ndjson, FormatoImportacion.NDJSON);
+
+        // Assert
+        assertEquals(4, deCsv.getFilasLeidas());
+        assertEquals(1, deCsv.getInsertados());
+        assertEquals(3, deCsv.getRechazados());
+        assertEquals(List.of(
+                new FilaRechazada(3, null, "Año de publicación no numérico: dos mil"),
+                new FilaRechazada(4, prefijo + "3", "El autor es obligatorio; El título es obligatorio"),
+                new FilaRechazada(5, prefijo + "4", "El año de publicación debe ser válido")
+        ), deCsv.getFilasRechazadas());
+        assertFalse(libroRepository.existsByIsbn(prefijo + "3"));
+
+        assertEquals(1, deNdjson.getRechazados());
+        assertTrue(deNdjson.getFilasRechazadas().get(0).getMotivo().startsWith("JSON inválido"));
+    }
+
+    @Test
+    void testImportar_IsbnRepetidosEnElLoteEntreLotesYEnLaBaseDeDatos() throws Exception {
+        // Arrange: con lotes de tres, la línea 3 repite una del mismo lote y la 6 una del primer lote
+        importar("titulo,isbn,autor,anioPublicacion,genero\nExistente," + prefijo + "existente,Autor,2000,Novela\n",
+                FormatoImportacion.CSV);
+        String csv = """
+                titulo,isbn,autor,anioPublicacion,genero
+                Uno,%1$s1,Autor,2001,Novela
+                Uno otra vez,%1$s1,Autor,2001,Novela
+                Dos,%1$s2,Autor,2002,Novela
+                Tres,%1$s3,Autor,2003,Novela
+                Dos otra vez,%1$s2,Autor,2002,Novela
+                Ya registrado,%1$sexistente,Autor,2000,Novela
+                Cuatro,%1$s4,Autor,2004,Novela
+                """.formatted(prefijo);
+
+        // Act
+        ResultadoImportacionDTO resultado = importar(csv, FormatoImportacion.CSV);
+
+        // Assert
+        assertEquals(7, resultado.getFilasLeidas());
+        assertEquals(4, resultado.getInsertados());
+        assertEquals(List.of(
+                new FilaRechazada(3, prefijo + "1", "ISBN repetido en el archivo"),
+                new FilaRechazada(6, prefijo + "2", "ISBN repetido en el archivo"),
+                new FilaRechazada(7, prefijo + "existente", "Ya existe un libro con el ISBN: " + prefijo + "existente")
+        ), resultado.getFilasRechazadas());
+        assertEquals("Uno", libroRepository.findByIsbn(prefijo + "1").orElseThrow().getTitulo());
+        assertEquals("Existente", libroRepository.findByIsbn(prefijo + "existente").orElseThrow().getTitulo());
+    }
+
+    @Test
+    void testImportar_ConflictoAlInsertarDeshaceSoloSuLote() throws Exception {
+        // Arrange: otra petición da de alta un ISBN del segundo lote después de la comprobación
+        importar("titulo,isbn,autor,anioPublicacion,genero\nDe otra petición," + prefijo + "5,Autor,2000,Novela\n",
+                FormatoImportacion.CSV);
+        doReturn(Set.of()).when(libroRepository).findIsbnsExistentes(argThat(isbns -> isbns.contains(prefijo + "5")));
+        StringBuilder csv = new StringBuilder("titulo,isbn,autor,anioPublicacion,genero\n");
+        for (int i = 1; i <= 7; i++) {
+            csv.append("Libro ").append(i).append(',').append(prefijo).append(i).append(",Autor,2000,Novela\n");
+        }
+
+        // Act
+        ResultadoImportacionDTO resultado = importar(csv.toString(), FormatoImportacion.CSV);
+
+        // Assert: el lote 4-6 se rechaza entero y los demás se insertan
+        assertEquals(4, resultado.getInsertados());
+        assertEquals(3, resultado.getRechazados());
+        assertEquals(List.of(5L, 6L, 7L), resultado.getFilasRechazadas().stream().map(FilaRechazada::getLinea).toList());
+        assertTrue(resultado.getFilasRechazadas().stream()
+                .allMatch(fila -> fila.getMotivo().equals("Conflicto al insertar el lote; vuelva a importar estas filas")));
+        assertFalse(libroRepository.existsByIsbn(prefijo + "4"));
+        assertFalse(libroRepository.existsByIsbn(prefijo + "6"));
+        assertEquals("De otra petición", libroRepository.findByIsbn(prefijo + "5").orElseThrow().getTitulo());
+        assertTrue(libroRepository.existsByIsbn(prefijo + "3"));
+        assertTrue(libroRepository.existsByIsbn(prefijo + "7"));
+    }
+
+    @Test
+    void testImportar_RendimientoSobreLasFilasLeidas() throws Exception {
+        // Arrange
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            ndjson.append("{\"titulo\":\"Libro ").append(i).append("\",\"isbn\":\"").append(prefijo).append(i)
+                    .append("\",\"autor\":\"Autor\",\"genero\":\"Novela\"}\n");
+        }
+        ndjson.append("no es json\n");
+
+        // Act
+        ResultadoImportacionDTO resultado = importar(ndjson.toString(), FormatoImportacion.NDJSON);
+
+        // Assert: las filas rechazadas también cuentan en el rendimiento
+        assertEquals(21, resultado.getFilasLeidas());
+        assertEquals(20, resultado.getInsertados());
+        assertTrue(resultado.getDuracionMs() >= 1);
+        assertEquals(21 * 1000.0 / resultado.getDuracionMs(), resultado.getFilasPorSegundo(), 1e-9);
+    }
+
+    @Test
+    void testImportarCsv_SinColumnaObligatoria() {
+        // Arrange
+        String csv = "titulo,isbn,autor,genero\nSin año," + prefijo + "1,Autor,Novela\n";
+
+        // Act & Assert
+        BadRequestException error = assertThrows(BadRequestException.class, () -> importar(csv, FormatoImportacion.CSV));
+        assertEquals("Falta la columna 'anioPublicacion' en la cabecera del CSV", error.getMessage());
+        assertFalse(libroRepository.existsByIsbn(prefijo + "1"));
+    }
+
+    @Test
+    void testImportar_AltaYBajaCambianElEtagDelCatalogo() throws Exception {
+        // Arrange
+        String inicial = libroService.obtenerEtagCatalogo();
+
+        // Act: tras la baja del libro importado (versión 0) vuelven a coincidir el total, la suma
+        // de versiones y el id máximo; con ids de un bloque anterior, ni siquiera el alta los cambia
+        importar("titulo,isbn,autor,genero,anioPublicacion\nEfímero," + prefijo + "1,Autor,Novela,2024\n",
+                FormatoImportacion.CSV);
+        String trasAlta = libroService.obtenerEtagCatalogo();
+        libroService.eliminarLibro(libroRepository.findByIsbn(prefijo + "1").orElseThrow().getId());
+        String trasBaja = libroService.obtenerEtagCatalogo();
+
+        // Assert
+        assertEquals(3, Set.of(inicial, trasAlta, trasBaja).size());
+    }
+
+    private ResultadoImportacionDTO importar(String contenido, FormatoImportacion formato) throws IOException {
+        return importacionLibrosService.importar(
+                new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8)), formato);
+    }
+}
@@ -1,16 +1,26 @@
 package com.biblioteca.api.service;
 
+import com.biblioteca.api.busqueda.IndiceBusquedaLibros;
+import com.biblioteca.api.busqueda.IndiceFiltrosLibros;
 import com.biblioteca.api.dto.LibroDTO;
+import com.biblioteca.api.dto.PaginaDTO;
 import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.event.LibroCambiadoEvent;
 import com.biblioteca.api.exception.BadRequestException;
 import com.biblioteca.api.exception.ResourceNotFoundException;
 import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.repository.VersionCatalogoRepository;
+import com.biblioteca.api.salida.BandejaSalida;
+import com.biblioteca.api.util.CursorUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.util.Arrays;
 import java.util.List;
@@ -27,6 +37,21 @@ class LibroServiceTest {
     @Mock
     private LibroRepository libroRepository;
 
+    @Mock
+    private VersionCatalogoRepository versionCatalogoRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private IndiceBusquedaLibros indiceBusqueda;
+
+    @Mock
+    private IndiceFiltrosLibros indiceFiltros;
+
+    @Mock
+    private BandejaSalida bandejaSalida;
+
     @InjectMocks
     private LibroService libroService;
 
@@ -56,8 +81,8 @@ class LibroServiceTest {
     @Test
     void testObtenerTodosLosLibros() {
         // Arrange
-        List<Libro> libros = Arrays.asList(libro);
-        when(libroRepository.findAll()).thenReturn(libros);
+        List<LibroDTO> libros = Arrays.asList(proyeccion(1L, "Cien años de soledad"));
+        when(libroRepository.findAllDTO()).thenReturn(libros);
 
         // Act
         List<LibroDTO> resultado = libroService.obtenerTodosLosLibros();
@@ -66,7 +91,7 @@ class LibroServiceTest {
         assertNotNull(resultado);
         assertEquals(1, resultado.size());
         assertEquals("Cien años de soledad", resultado.get(0).getTitulo());
-        verify(libroRepository, times(1)).findAll();
+        verify(libroRepository, times(1)).findAllDTO();
     }
 
     @Test
@@ -156,6 +181,7 @@ class LibroServiceTest {
         // Assert
         verify(libroRepository, times(1)).existsById(1L);
         verify(libroRepository, times(1)).deleteById(1L);
+        verify(versionCatalogoRepository, times(1)).incrementarLibros();
     }
 
     @Test
@@ -169,13 +195,27 @@ class LibroServiceTest {
         });
         verify(libroRepository, times(1)).existsById(999L);
         verify(libroRepository, never()).deleteById(anyLong());
+        verify(versionCatalogoRepository, never()).incrementarLibros();
+    }
+
+    @Test
+    void testObtenerEtagCatalogo_SaleDelContadorDeCambios() {
+        // Arrange
+        when(versionCatalogoRepository.findVersionLibros()).thenReturn(42L);
+
+        // Act
+        String etag = libroService.obtenerEtagCatalogo();
+
+        // Assert
+        assertEquals("\"libros-42\"", etag);
+        verifyNoInteractions(libroRepository);
     }
 
     @Test
     void testObtenerLibrosDisponibles() {
         // Arrange
-        List<Libro> librosDisponibles = Arrays.asList(libro);
-        when(libroRepository.findByDisponible(true)).thenReturn(librosDisponibles);
+        List<LibroDTO> librosDisponibles = Arrays.asList(proyeccion(1L, "Cien años de soledad"));
+        when(libroRepository.findDTOByDisponible(true)).thenReturn(librosDisponibles);
 
         // Act
         List<LibroDTO> resultado = libroService.obtenerLibrosDisponibles();
@@ -184,6 +224,106 @@ class LibroServiceTest {
         assertNotNull(resultado);
         assertEquals(1, resultado.size());
         assertTrue(resultado.get(0).getDisponible());
-        verify(libroRepository, times(1)).findByDisponible(true);
+        verify(libroRepository, times(1)).findDTOByDisponible(true);
+    }
+
+    @Test
+    void testObtenerLibrosDisponiblesPorGenero_ConIndice() {
+        // Arrange
+        LibroDTO prestadoTrasIndexar = proyeccion(2L, "El otoño del patriarca");
+        prestadoTrasIndexar.setDisponible(false);
+        when(indiceFiltros.listo()).thenReturn(true);
+        when(indiceFiltros.disponiblesPorGenero("Realismo mágico")).thenReturn(Arrays.asList(1L, 2L, 3L));
+        when(libroRepository.findDTOByIdIn(Arrays.asList(1L, 2L, 3L))).thenReturn(Arrays.asList(
+                proyeccion(3L, "Crónica de una muerte anunciada"), prestadoTrasIndexar, proyeccion(1L, "Cien años de soledad")));
+
+        // Act
+        List<LibroDTO> resultado = libroService.obtenerLibrosDisponiblesPorGenero("Realismo mágico");
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 3L), resultado.stream().map(LibroDTO::getId).toList());
+        verify(libroRepository, never()).findDTOByGenero(anyString());
+        verify(libroRepository, never()).findDTOByDisponible(any());
+    }
+
+    @Test
+    void testObtenerLibrosPaginados_DevuelveCursorSiguiente() {
+        // Arrange
+        when(libroRepository.findDTOByIdGreaterThan(0L, Limit.of(2)))
+                .thenReturn(Arrays.asList(proyeccion(1L, "Cien años de soledad"), proyeccion(2L, "Rayuela")));
+
+        // Act
+        PaginaDTO<LibroDTO> pagina = libroService.obtenerLibrosPaginados(null, 1);
+
+        // Assert
+        assertEquals(1, pagina.getContenido().size());
+        assertEquals(1L, pagina.getContenido().get(0).getId());
+        assertEquals(1L, CursorUtil.decodificar(pagina.getSiguiente()));
+    }
+
+    @Test
+    void testObtenerLibrosPaginados_UltimaPagina() {
+        // Arrange
+        when(libroRepository.findDTOByIdGreaterThan(1L, Limit.of(11)))
+                .thenReturn(Arrays.asList(proyeccion(2L, "Rayuela")));
+
+        // Act
+        PaginaDTO<LibroDTO> pagina = libroService.obtenerLibrosPaginados(CursorUtil.codificar(1L), 10);
+
+        // Assert
+        assertEquals(1, pagina.getContenido().size());
+        assertNull(pagina.getSiguiente());
+    }
+
+    @Test
+    void testObtenerLibrosPaginados_CursorInvalido() {
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> libroService.obtenerLibrosPaginados("no-es-un-cursor", 10));
+        verify(libroRepository, never()).findDTOByIdGreaterThan(anyLong(), any(Limit.class));
+    }
+
+    @Test
+    void testActualizarLibro_PublicaEstadoAnteriorYActual() {
+        // Arrange
+        when(libroRepository.findById(1L)).thenReturn(Optional.of(libro));
+        when(libroRepository.save(any(Libro.class))).thenReturn(libro);
+        libroDTO.setGenero("Novela");
+
+        // Act
+        libroService.actualizarLibro(1L, libroDTO);
+
+        // Assert
+        ArgumentCaptor<LibroCambiadoEvent> evento = ArgumentCaptor.forClass(LibroCambiadoEvent.class);
+        verify(eventPublisher).publishEvent(evento.capture());
+        assertEquals(1L, evento.getValue().libroId());
+        assertEquals("Realismo mágico", evento.getValue().anterior().getGenero());
+        assertEquals("Novela", evento.getValue().actual().getGenero());
+    }
+
+    @Test
+    void testBuscarLibros_MantieneElOrdenDelIndice() {
+        // Arrange
+        when(indiceBusqueda.buscar("garcia", 10)).thenReturn(Arrays.asList(2L, 1L));
+        when(libroRepository.findDTOByIdIn(Arrays.asList(2L, 1L))).thenReturn(Arrays.asList(
+                proyeccion(1L, "Cien años de soledad"), proyeccion(2L, "Crónica de una muerte anunciada")));
+
+        // Act
+        List<LibroDTO> resultado = libroService.buscarLibros("garcia", 10);
+
+        // Assert
+        assertEquals(2, resultado.size());
+        assertEquals(2L, resultado.get(0).getId());
+        assertEquals(1L, resultado.get(1).getId());
+    }
+
+    @Test
+    void testBuscarLibros_ConsultaVacia() {
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> libroService.buscarLibros("  ", 10));
+        verify(indiceBusqueda, never()).buscar(anyString(), anyInt());
+    }
+
+    private LibroDTO proyeccion(Long id, String titulo) {
+        return new LibroDTO(id, titulo, "isbn-" + id, "Gabriel García Márquez", 1967, "Realismo mágico", true);
     }
 }
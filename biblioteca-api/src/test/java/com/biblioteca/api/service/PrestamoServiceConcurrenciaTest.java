@@ -0,0 +1,129 @@
+package com.biblioteca.api.service;
+
+import com.biblioteca.api.dto.PrestamoDTO;
+import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.entity.Prestamo.EstadoPrestamo;
+import com.biblioteca.api.entity.Usuario;
+import com.biblioteca.api.exception.BadRequestException;
+import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.repository.PrestamoRepository;
+import com.biblioteca.api.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Muchas peticiones simultáneas por el mismo libro. Sólo se comprueba el resultado: un préstamo y
+ * el resto rechazados como no disponibles. No es una prueba de que no haya esperas: el UPDATE
+ * condicional del ganador y el del contador de versiones del catálogo retienen sus filas hasta el
+ * commit, y las demás peticiones esperan a ese commit antes de ver el libro ya prestado.
+ */
+@SpringBootTest
+class PrestamoServiceConcurrenciaTest {
+
+    private static final int HILOS = 32;
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private Long libroId;
+    private List<Long> usuarioIds;
+
+    @BeforeEach
+    void setUp() {
+        Libro libro = new Libro();
+        libro.setTitulo("Libro muy solicitado");
+        libro.setIsbn("isbn-concurrencia-" + System.nanoTime());
+        libro.setAutor("Autor");
+        libro.setAnioPublicacion(2020);
+        libro.setGenero("Novela");
+        libro.setDisponible(true);
+        libroId = libroRepository.save(libro).getId();
+
+        usuarioIds = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            Usuario usuario = new Usuario();
+            usuario.setNombre("Lector " + i);
+            usuario.setEmail("lector-" + i + "-" + System.nanoTime() + "@biblioteca.com");
+            usuario.setTelefono("600000000");
+            usuario.setFechaRegistro(LocalDate.now());
+            usuarioIds.add(usuarioRepository.save(usuario).getId());
+        }
+    }
+
+    @Test
+    void testPrestamosSimultaneosDelMismoLibro_SoloUnoGana() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<PrestamoDTO>> intentos = new ArrayList<>();
+        for (Long usuarioId : usuarioIds) {
+            intentos.add(executor.submit(() -> {
+                salida.await();
+                return prestamoService.crearPrestamo(new PrestamoDTO(null, null, null, null,
+                        EstadoPrestamo.ACTIVO, null, usuarioId, libroId, null, null));
+            }));
+        }
+
+        // Act
+        salida.countDown();
+        int exitos = 0;
+        int rechazos = 0;
+        for (Future<PrestamoDTO> intento : intentos) {
+            try {
+                intento.get(30, TimeUnit.SECONDS);
+                exitos++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(BadRequestException.class, e.getCause(), "Fallo inesperado: " + e.getCause());
+                rechazos++;
+            }
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(1, exitos);
+        assertEquals(HILOS - 1, rechazos);
+        assertEquals(1, prestamoRepository.findByLibroId(libroId).size());
+        assertFalse(libroRepository.findById(libroId).orElseThrow().getDisponible());
+    }
+
+    @Test
+    void testPrestarDevolverYPrestar_CicloCompleto() {
+        // Act
+        PrestamoDTO primero = prestamoService.crearPrestamo(new PrestamoDTO(null, null, null, null,
+                EstadoPrestamo.ACTIVO, null, usuarioIds.get(0), libroId, null, null));
+        assertThrows(BadRequestException.class, () -> prestamoService.crearPrestamo(new PrestamoDTO(null, null, null, null,
+                EstadoPrestamo.ACTIVO, null, usuarioIds.get(1), libroId, null, null)));
+        prestamoService.devolverLibro(primero.getId());
+        PrestamoDTO segundo = prestamoService.crearPrestamo(new PrestamoDTO(null, null, null, null,
+                EstadoPrestamo.ACTIVO, null, usuarioIds.get(1), libroId, null, null));
+
+        // Assert
+        assertEquals("Libro muy solicitado", segundo.getTituloLibro());
+        assertEquals("Lector 1", segundo.getNombreUsuario());
+        assertEquals(EstadoPrestamo.DEVUELTO, prestamoService.obtenerPrestamoPorId(primero.getId()).getEstado());
+        assertThrows(BadRequestException.class, () -> prestamoService.devolverLibro(primero.getId()));
+    }
+}
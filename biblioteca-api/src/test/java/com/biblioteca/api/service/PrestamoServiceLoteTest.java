@@ -0,0 +1,226 @@
+package com.biblioteca.api.service;
+
+import com.biblioteca.api.dto.PrestamoDTO;
+import com.biblioteca.api.dto.PrestamoLoteDTO;
+import com.biblioteca.api.dto.ResultadoLoteDTO;
+import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.entity.Prestamo.EstadoPrestamo;
+import com.biblioteca.api.entity.Usuario;
+import com.biblioteca.api.exception.BadRequestException;
+import com.biblioteca.api.exception.ResourceNotFoundException;
+import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.repository.PrestamoRepository;
+import com.biblioteca.api.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+// Sin el publicador de la bandeja de salida, que consultaría la base de datos mientras se cuentan las sentencias
+@SpringBootTest(properties = "biblioteca.salida-eventos.publicacion-habilitada=false")
+class PrestamoServiceLoteTest {
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @SpyBean
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long usuarioId;
+
+    @BeforeEach
+    void setUp() {
+        usuarioId = crearUsuario();
+    }
+
+    @Test
+    void testCrearPrestamosEnLote_ResultadoPorLibro() {
+        // Arrange
+        Long disponible = crearLibro(true);
+        Long prestado = crearLibro(false);
+        Long otroDisponible = crearLibro(true);
+        Long inexistente = Long.MAX_VALUE;
+
+        // Act
+        ResultadoLoteDTO resultado = prestamoService.crearPrestamosEnLote(
+                new PrestamoLoteDTO(usuarioId, List.of(disponible, prestado, inexistente, otroDisponible)));
+
+        // Assert: en el orden de la petición
+        assertEquals(2, resultado.getExitosos());
+        assertEquals(2, resultado.getFallidos());
+        List<ResultadoLoteDTO.Item> items = resultado.getResultados();
+        assertEquals(List.of(disponible, prestado, inexistente, otroDisponible),
+                items.stream().map(ResultadoLoteDTO.Item::getLibroId).toList());
+        assertTrue(items.get(0).isExito());
+        assertEquals("Lector del lote", items.get(0).getPrestamo().getNombreUsuario());
+        assertEquals(EstadoPrestamo.ACTIVO, items.get(0).getPrestamo().getEstado());
+        assertNotNull(items.get(0).getPrestamo().getId());
+        assertFalse(items.get(1).isExito());
+        assertEquals("El libro no está disponible para préstamo", items.get(1).getMensaje());
+        assertNull(items.get(1).getPrestamo());
+        assertEquals("Libro no encontrado con id: " + inexistente, items.get(2).getMensaje());
+        assertTrue(items.get(3).isExito());
+
+        assertFalse(libroRepository.findById(disponible).orElseThrow().getDisponible());
+        assertFalse(libroRepository.findById(otroDisponible).orElseThrow().getDisponible());
+        assertEquals(2, prestamoRepository.findDTOByUsuarioIdAndEstado(usuarioId, EstadoPrestamo.ACTIVO).size());
+    }
+
+    @Test
+    void testCrearPrestamosEnLote_IdsRepetidosCuentanUnaVez() {
+        // Arrange
+        Long libro = crearLibro(true);
+        Long otro = crearLibro(true);
+
+        // Act
+        ResultadoLoteDTO resultado = prestamoService.crearPrestamosEnLote(
+                new PrestamoLoteDTO(usuarioId, List.of(libro, otro, libro)));
+
+        // Assert
+        assertEquals(2, resultado.getExitosos());
+        assertEquals(0, resultado.getFallidos());
+        assertEquals(List.of(libro, otro), resultado.getResultados().stream().map(ResultadoLoteDTO.Item::getLibroId).toList());
+        assertEquals(2, prestamoRepository.findDTOByUsuarioIdAndEstado(usuarioId, EstadoPrestamo.ACTIVO).size());
+    }
+
+    @Test
+    void testCrearPrestamosEnLote_NingunoDisponibleNoEscribe() {
+        // Arrange
+        Long prestado = crearLibro(false);
+
+        // Act
+        ResultadoLoteDTO resultado = prestamoService.crearPrestamosEnLote(
+                new PrestamoLoteDTO(usuarioId, List.of(prestado, Long.MAX_VALUE)));
+
+        // Assert
+        assertEquals(0, resultado.getExitosos());
+        assertEquals(2, resultado.getFallidos());
+        assertTrue(prestamoRepository.findDTOByUsuarioIdAndEstado(usuarioId, EstadoPrestamo.ACTIVO).isEmpty());
+    }
+
+    @Test
+    void testCrearPrestamosEnLote_UsuarioInexistente() {
+        // Arrange
+        Long libro = crearLibro(true);
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class,
+                () -> prestamoService.crearPrestamosEnLote(new PrestamoLoteDTO(Long.MAX_VALUE, List.of(libro))));
+        assertTrue(libroRepository.findById(libro).orElseThrow().getDisponible());
+    }
+
+    @Test
+    void testCrearPrestamosEnLote_PrestamoSimultaneoEsperaAlLote() throws Exception {
+        // Arrange: otra petición intenta prestar uno de los libros entre la consulta y el UPDATE
+        Long libro = crearLibro(true);
+        Long disputado = crearLibro(true);
+        Long otro = crearLibro(true);
+        Long otroUsuario = crearUsuario();
+        FutureTask<PrestamoDTO> otraPeticion = new FutureTask<>(() -> prestamoService.crearPrestamo(
+                new PrestamoDTO(null, null, null, null, EstadoPrestamo.ACTIVO, null, otroUsuario, disputado, null, null)));
+        Thread hilo = new Thread(otraPeticion);
+        doAnswer(invocacion -> {
+            // El repositorio es un proxy de interfaz: el espía delega en él con su respuesta por defecto
+            Object estados = mockingDetails(libroRepository).getMockCreationSettings().getDefaultAnswer().answer(invocacion);
+            hilo.start();
+            esperarBloqueado(hilo);
+            return estados;
+        }).when(libroRepository).findEstadosParaPrestar(anyCollection());
+
+        // Act
+        ResultadoLoteDTO resultado = prestamoService.crearPrestamosEnLote(
+                new PrestamoLoteDTO(usuarioId, List.of(libro, disputado, otro)));
+
+        // Assert: el lote se lleva los tres y la otra petición, al obtener la fila, lo ve prestado
+        assertEquals(3, resultado.getExitosos());
+        ExecutionException error = assertThrows(ExecutionException.class, () -> otraPeticion.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(BadRequestException.class, error.getCause());
+        assertEquals("El libro no está disponible para préstamo", error.getCause().getMessage());
+        assertEquals(3, prestamoRepository.findDTOByUsuarioIdAndEstado(usuarioId, EstadoPrestamo.ACTIVO).size());
+        assertTrue(prestamoRepository.findDTOByUsuarioIdAndEstado(otroUsuario, EstadoPrestamo.ACTIVO).isEmpty());
+    }
+
+    @Test
+    void testCrearPrestamosEnLote_SentenciasIndependientesDelTamano() {
+        // Arrange
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Long> uno = crearLibros(1);
+        List<Long> treinta = crearLibros(30);
+
+        // Act
+        estadisticas.clear();
+        prestamoService.crearPrestamosEnLote(new PrestamoLoteDTO(usuarioId, uno));
+        long sentenciasConUno = estadisticas.getPrepareStatementCount();
+        estadisticas.clear();
+        prestamoService.crearPrestamosEnLote(new PrestamoLoteDTO(usuarioId, treinta));
+        long sentenciasConTreinta = estadisticas.getPrepareStatementCount();
+
+        // Assert: los 60 INSERT (préstamos y eventos de salida) van en lotes JDBC; como mucho
+        // cambia el número de bloques pedidos a las dos secuencias de ids
+        assertEquals(60, estadisticas.getEntityInsertCount());
+        assertTrue(sentenciasConTreinta - sentenciasConUno <= 2,
+                "Con 1 libro: " + sentenciasConUno + " sentencias; con 30: " + sentenciasConTreinta);
+    }
+
+    // La otra petición espera al bloqueo de la fila (H2 espera con un wait temporizado)
+    private static void esperarBloqueado(Thread hilo) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hilo.getState() != Thread.State.TIMED_WAITING && hilo.getState() != Thread.State.WAITING) {
+            assertTrue(System.nanoTime() < limite, "La otra petición no llegó a esperar: " + hilo.getState());
+            Thread.sleep(5);
+        }
+    }
+
+    private List<Long> crearLibros(int cantidad) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            ids.add(crearLibro(true));
+        }
+        return ids;
+    }
+
+    private Long crearUsuario() {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Lector del lote");
+        usuario.setEmail("lote-" + System.nanoTime() + "@biblioteca.com");
+        usuario.setTelefono("600000000");
+        usuario.setFechaRegistro(LocalDate.now());
+        return usuarioRepository.save(usuario).getId();
+    }
+
+    private Long crearLibro(boolean disponible) {
+        Libro libro = new Libro();
+        libro.setTitulo("Libro del lote");
+        libro.setIsbn("isbn-lote-" + System.nanoTime());
+        libro.setAutor("Autor");
+        libro.setAnioPublicacion(2020);
+        libro.setGenero("Novela");
+        libro.setDisponible(disponible);
+        return libroRepository.save(libro).getId();
+    }
+}
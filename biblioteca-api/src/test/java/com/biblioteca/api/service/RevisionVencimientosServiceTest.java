@@ -0,0 +1,186 @@
+package com.biblioteca.api.service;
+
+import com.biblioteca.api.config.VencimientosProperties;
+import com.biblioteca.api.entity.Libro;
+import com.biblioteca.api.entity.Prestamo;
+import com.biblioteca.api.entity.Prestamo.EstadoPrestamo;
+import com.biblioteca.api.entity.RevisionVencimientos;
+import com.biblioteca.api.entity.Usuario;
+import com.biblioteca.api.repository.LibroRepository;
+import com.biblioteca.api.repository.PrestamoRepository;
+import com.biblioteca.api.repository.RevisionVencimientosRepository;
+import com.biblioteca.api.repository.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sin la transacción del test: cada bloque de la revisión se confirma en la suya
+@DataJpaTest(properties = {
+        "biblioteca.vencimientos.tamano-bloque=2",
+        "biblioteca.vencimientos.multa-diaria=0.50",
+        "biblioteca.vencimientos.multa-maxima=20.00"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({RevisionVencimientosService.class, PoliticaPrestamos.class})
+@EnableConfigurationProperties(VencimientosProperties.class)
+class RevisionVencimientosServiceTest {
+
+    private static final LocalDate HOY = LocalDate.of(2024, 6, 1);
+
+    @Autowired
+    private RevisionVencimientosService revisionService;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private RevisionVencimientosRepository revisionRepository;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private Usuario usuario;
+    private int libros;
+
+    @BeforeEach
+    void setUp() {
+        prestamoRepository.deleteAll();
+        libroRepository.deleteAll();
+        revisionService.bindTo(registry);
+        usuarioRepository.deleteAll();
+        RevisionVencimientos revision = revision();
+        revision.iniciar(LocalDate.of(2000, 1, 1));
+        revision.setCompletada(true);
+        revisionRepository.save(revision);
+
+        usuario = new Usuario();
+        usuario.setNombre("Lector");
+        usuario.setEmail("lector@biblioteca.com");
+        usuario.setTelefono("600000000");
+        usuario.setFechaRegistro(HOY);
+        usuario = usuarioRepository.save(usuario);
+    }
+
+    @Test
+    void testRevisar_MarcaVencidosYCalculaMultas() {
+        // Arrange
+        Prestamo unDia = crearPrestamo(HOY.minusDays(1), EstadoPrestamo.ACTIVO);
+        Prestamo tresDias = crearPrestamo(HOY.minusDays(3), EstadoPrestamo.ACTIVO);
+        Prestamo dosMeses = crearPrestamo(HOY.minusDays(60), EstadoPrestamo.ACTIVO);
+        Prestamo yaVencido = crearPrestamo(HOY.minusDays(4), EstadoPrestamo.VENCIDO);
+        Prestamo aTiempo = crearPrestamo(HOY, EstadoPrestamo.ACTIVO);
+        Prestamo devuelto = crearPrestamo(HOY.minusDays(10), EstadoPrestamo.DEVUELTO);
+        double bloquesAntes = bloques();
+
+        // Act
+        revisionService.revisar(HOY);
+
+        // Assert
+        assertVencido(unDia, "0.50");
+        assertVencido(tresDias, "1.50");
+        assertVencido(dosMeses, "20.00");
+        assertVencido(yaVencido, "2.00");
+        assertEquals(EstadoPrestamo.ACTIVO, recargar(aTiempo).getEstado());
+        assertEquals(EstadoPrestamo.DEVUELTO, recargar(devuelto).getEstado());
+
+        RevisionVencimientos revision = revision();
+        assertTrue(revision.isCompletada());
+        assertEquals(4, revision.getRevisados());
+        assertEquals(4, revision.getActualizados());
+        // Cuatro vencidos en bloques de dos
+        assertEquals(2, bloques() - bloquesAntes);
+    }
+
+    @Test
+    void testRevisar_ReanudaDesdeElPuntoDeControl() {
+        // Arrange: una pasada de hoy interrumpida después del primer préstamo
+        Prestamo revisado = crearPrestamo(HOY.minusDays(2), EstadoPrestamo.ACTIVO);
+        Prestamo pendiente = crearPrestamo(HOY.minusDays(2), EstadoPrestamo.ACTIVO);
+        RevisionVencimientos revision = revision();
+        revision.iniciar(HOY);
+        revision.avanzar(revisado.getId(), 1, 1, false);
+        revisionRepository.save(revision);
+
+        // Act
+        revisionService.revisar(HOY);
+
+        // Assert
+        assertEquals(EstadoPrestamo.ACTIVO, recargar(revisado).getEstado());
+        assertVencido(pendiente, "1.00");
+        assertEquals(2, revision().getRevisados());
+    }
+
+    @Test
+    void testRevisar_UnaPasadaPorDiaYMultaCreciente() {
+        // Arrange
+        Prestamo prestamo = crearPrestamo(HOY.minusDays(1), EstadoPrestamo.ACTIVO);
+        revisionService.revisar(HOY);
+        double revisadosAntes = revisados();
+
+        // Act
+        revisionService.revisar(HOY);
+        double revisadosMismoDia = revisados() - revisadosAntes;
+        revisionService.revisar(HOY.plusDays(1));
+
+        // Assert
+        assertEquals(0, revisadosMismoDia);
+        assertVencido(prestamo, "1.00");
+        assertEquals(HOY.plusDays(1), revision().getFecha());
+    }
+
+    private double bloques() {
+        return registry.get("biblioteca.vencimientos.bloques").functionTimer().count();
+    }
+
+    private double revisados() {
+        return registry.get("biblioteca.vencimientos.revisados").functionCounter().count();
+    }
+
+    private void assertVencido(Prestamo prestamo, String multa) {
+        Prestamo actual = recargar(prestamo);
+        assertEquals(EstadoPrestamo.VENCIDO, actual.getEstado());
+        assertEquals(0, new BigDecimal(multa).compareTo(actual.getMulta()), "Multa: " + actual.getMulta());
+    }
+
+    private Prestamo recargar(Prestamo prestamo) {
+        return prestamoRepository.findById(prestamo.getId()).orElseThrow();
+    }
+
+    private RevisionVencimientos revision() {
+        return revisionRepository.findById(RevisionVencimientosService.REVISION_PRESTAMOS).orElseThrow();
+    }
+
+    private Prestamo crearPrestamo(LocalDate fechaVencimiento, EstadoPrestamo estado) {
+        libros++;
+        Libro libro = new Libro();
+        libro.setTitulo("Título " + libros);
+        libro.setIsbn("isbn-vencimiento-" + libros);
+        libro.setAutor("Autor");
+        libro.setAnioPublicacion(2000);
+        libro.setGenero("Novela");
+        libro.setDisponible(estado == EstadoPrestamo.DEVUELTO);
+
+        Prestamo prestamo = new Prestamo();
+        prestamo.setUsuario(usuario);
+        prestamo.setLibro(libroRepository.save(libro));
+        prestamo.setFechaPrestamo(fechaVencimiento.minusDays(14));
+        prestamo.setFechaVencimiento(fechaVencimiento);
+        prestamo.setFechaDevolucion(estado == EstadoPrestamo.DEVUELTO ? fechaVencimiento.plusDays(5) : null);
+        prestamo.setEstado(estado);
+        return prestamoRepository.save(prestamo);
+    }
+}